@@ -0,0 +1 @@
+-dontobfuscate
@@ -0,0 +1,218 @@
+package com.twilio.video.app.e2eTest
+
+import android.content.Context
+import android.os.Handler
+import android.os.HandlerThread
+import androidx.test.ext.junit.rules.activityScenarioRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry.getInstrumentation
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry
+import androidx.test.runner.lifecycle.Stage
+import com.twilio.video.ConnectOptions
+import com.twilio.video.LocalVideoTrack
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.Room
+import com.twilio.video.TwilioException
+import com.twilio.video.Video
+import com.twilio.video.VideoCapturer
+import com.twilio.video.app.screen.assertRoomIsConnected
+import com.twilio.video.app.screen.clickDisconnectButton
+import com.twilio.video.app.screen.clickJoinRoomButton
+import com.twilio.video.app.screen.enterRoomName
+import com.twilio.video.app.sdk.CAMERA_TRACK_NAME
+import com.twilio.video.app.sdk.SCREEN_TRACK_NAME
+import com.twilio.video.app.ui.room.RoomActivity
+import com.twilio.video.app.ui.splash.SplashActivity
+import com.twilio.video.app.util.getTargetContext
+import com.twilio.video.app.util.randomUUID
+import com.twilio.video.app.util.retryEspressoAction
+import com.twilio.video.ktx.createLocalVideoTrack
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.junit.After
+import org.junit.Assert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import tvi.webrtc.CapturerObserver
+import tvi.webrtc.JavaI420Buffer
+import tvi.webrtc.SurfaceTextureHelper
+import tvi.webrtc.VideoFrame
+
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+@E2ETest
+class BackgroundVideoTest : BaseE2ETest() {
+
+    @get:Rule
+    var scenario = activityScenarioRule<SplashActivity>()
+
+    private val capturers = listOf(FakeVideoCapturer(), FakeVideoCapturer())
+    private val localVideoTracks = mutableListOf<LocalVideoTrack>()
+    private var remoteRoom: Room? = null
+
+    @After
+    fun disconnectRemoteParticipant() {
+        remoteRoom?.disconnect()
+        localVideoTracks.forEach { it.release() }
+        capturers.forEach { it.dispose() }
+    }
+
+    @Test
+    fun it_should_switch_off_every_remote_video_track_in_the_background() {
+        val roomName = randomUUID()
+        enterRoomName(roomName)
+        clickJoinRoomButton()
+        retryEspressoAction { assertRoomIsConnected() }
+        val roomActivity = resumedRoomActivity()
+
+        connectRemoteParticipant(roomActivity, roomName)
+
+        assertThat(awaitRemoteTracks(roomActivity) { tracks ->
+            tracks.size == 2 && tracks.none { it.isSwitchedOff }
+        }, equalTo(true))
+
+        getInstrumentation().runOnMainSync { getInstrumentation().callActivityOnStop(roomActivity) }
+
+        assertThat(awaitRemoteTracks(roomActivity) { tracks -> tracks.all { it.isSwitchedOff } }, equalTo(true))
+
+        getInstrumentation().runOnMainSync { getInstrumentation().callActivityOnStart(roomActivity) }
+
+        assertThat(awaitRemoteTracks(roomActivity) { tracks -> tracks.none { it.isSwitchedOff } }, equalTo(true))
+
+        clickDisconnectButton()
+    }
+
+    @Test
+    fun it_should_switch_the_remote_video_tracks_back_on_after_the_activity_is_recreated() {
+        val roomName = randomUUID()
+        enterRoomName(roomName)
+        clickJoinRoomButton()
+        retryEspressoAction { assertRoomIsConnected() }
+        val roomActivity = resumedRoomActivity()
+
+        connectRemoteParticipant(roomActivity, roomName)
+        assertThat(awaitRemoteTracks(roomActivity) { tracks ->
+            tracks.size == 2 && tracks.none { it.isSwitchedOff }
+        }, equalTo(true))
+
+        getInstrumentation().runOnMainSync { roomActivity.recreate() }
+        getInstrumentation().waitForIdleSync()
+        val recreatedActivity = resumedRoomActivity()
+
+        assertThat(awaitRemoteTracks(recreatedActivity) { tracks ->
+            tracks.size == 2 && tracks.none { it.isSwitchedOff }
+        }, equalTo(true))
+
+        clickDisconnectButton()
+    }
+
+    private fun resumedRoomActivity(): RoomActivity {
+        var roomActivity: RoomActivity? = null
+        getInstrumentation().runOnMainSync {
+            roomActivity = ActivityLifecycleMonitorRegistry.getInstance()
+                    .getActivitiesInStage(Stage.RESUMED)
+                    .filterIsInstance<RoomActivity>()
+                    .single()
+        }
+        return roomActivity!!
+    }
+
+    /*
+     * Joins the room with a camera and a screen track, both fed by a FakeVideoCapturer so that the
+     * test does not depend on a camera or a screen capture permission.
+     */
+    private fun connectRemoteParticipant(roomActivity: RoomActivity, roomName: String) {
+        val identity = randomUUID()
+        val token = runBlocking { roomActivity.tokenService.getToken(identity, roomName) }
+        listOf(CAMERA_TRACK_NAME, SCREEN_TRACK_NAME).zip(capturers) { name, capturer ->
+            localVideoTracks += createLocalVideoTrack(getTargetContext(), true, capturer, name = name)!!
+        }
+        val connected = CountDownLatch(1)
+        val connectOptions = ConnectOptions.Builder(token)
+                .roomName(roomName)
+                .videoTracks(localVideoTracks)
+                .build()
+        remoteRoom = Video.connect(getTargetContext(), connectOptions, object : Room.Listener {
+            override fun onConnected(room: Room) = connected.countDown()
+            override fun onConnectFailure(room: Room, twilioException: TwilioException) {}
+            override fun onReconnecting(room: Room, twilioException: TwilioException) {}
+            override fun onReconnected(room: Room) {}
+            override fun onDisconnected(room: Room, twilioException: TwilioException?) {}
+            override fun onParticipantConnected(room: Room, remoteParticipant: RemoteParticipant) {}
+            override fun onParticipantDisconnected(room: Room, remoteParticipant: RemoteParticipant) {}
+            override fun onRecordingStarted(room: Room) {}
+            override fun onRecordingStopped(room: Room) {}
+        })
+        assertThat(connected.await(TIMEOUT_MS, TimeUnit.MILLISECONDS), equalTo(true))
+    }
+
+    private fun awaitRemoteTracks(
+        roomActivity: RoomActivity,
+        condition: (List<RemoteVideoTrack>) -> Boolean
+    ): Boolean {
+        val deadline = System.currentTimeMillis() + TIMEOUT_MS
+        while (System.currentTimeMillis() < deadline) {
+            var isMet = false
+            getInstrumentation().runOnMainSync {
+                val tracks = roomActivity.roomViewState?.participantThumbnails.orEmpty().flatMap {
+                    listOfNotNull(it.getRemoteVideoTrack(), it.getRemoteScreenTrack())
+                }
+                isMet = condition(tracks)
+            }
+            if (isMet) return true
+            Thread.sleep(POLL_INTERVAL_MS)
+        }
+        return false
+    }
+
+    private class FakeVideoCapturer : VideoCapturer {
+        private val thread = HandlerThread("FakeVideoCapturer").apply { start() }
+        private val handler = Handler(thread.looper)
+        private lateinit var observer: CapturerObserver
+        private val captureFrame = object : Runnable {
+            override fun run() {
+                val frame = VideoFrame(JavaI420Buffer.allocate(WIDTH, HEIGHT), 0, System.nanoTime())
+                observer.onFrameCaptured(frame)
+                frame.release()
+                handler.postDelayed(this, FRAME_INTERVAL_MS)
+            }
+        }
+
+        override fun initialize(
+            surfaceTextureHelper: SurfaceTextureHelper,
+            context: Context,
+            capturerObserver: CapturerObserver
+        ) {
+            observer = capturerObserver
+        }
+
+        override fun startCapture(width: Int, height: Int, framerate: Int) {
+            observer.onCapturerStarted(true)
+            handler.post(captureFrame)
+        }
+
+        override fun stopCapture() {
+            handler.removeCallbacks(captureFrame)
+            observer.onCapturerStopped()
+        }
+
+        override fun dispose() {
+            thread.quitSafely()
+        }
+
+        override fun isScreencast() = false
+    }
+
+    companion object {
+        private const val TIMEOUT_MS = 30000L
+        private const val POLL_INTERVAL_MS = 100L
+        private const val WIDTH = 640
+        private const val HEIGHT = 480
+        private const val FRAME_INTERVAL_MS = 66L
+    }
+}
@@ -0,0 +1,100 @@
+package com.twilio.video.app.integrationTest
+
+import android.Manifest
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import androidx.test.rule.GrantPermissionRule
+import com.twilio.video.LocalVideoTrack
+import com.twilio.video.app.sdk.VideoSinkRouter
+import com.twilio.video.app.util.CameraCapturerCompat
+import com.twilio.video.app.util.getTargetContext
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import org.hamcrest.CoreMatchers.equalTo
+import org.junit.After
+import org.junit.Assert.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+@RunWith(AndroidJUnit4::class)
+@MediumTest
+@IntegrationTest
+class VideoSinkRouterTest : BaseIntegrationTest() {
+
+    @get:Rule
+    var permissionRule: GrantPermissionRule = GrantPermissionRule.grant(Manifest.permission.CAMERA)
+
+    private val router = VideoSinkRouter()
+    private val primarySink = FrameCountingSink()
+    private val thumbnailSink = FrameCountingSink()
+    private lateinit var videoTrack: LocalVideoTrack
+
+    @Before
+    fun createVideoTrack() {
+        val cameraCapturer = CameraCapturerCompat.newInstance(getTargetContext())!!
+        videoTrack = LocalVideoTrack.create(getTargetContext(), true, cameraCapturer)!!
+    }
+
+    @After
+    fun releaseVideoTrack() {
+        router.stop()
+        videoTrack.release()
+    }
+
+    @Test
+    fun it_should_detach_every_sink_in_the_background() {
+        router.bind(primarySink, videoTrack)
+        router.bind(thumbnailSink, videoTrack)
+        assertThat(primarySink.awaitFrame(), equalTo(true))
+        assertThat(router.sinkCount(videoTrack), equalTo(2))
+
+        router.stop()
+
+        assertThat(router.sinkCount(videoTrack), equalTo(0))
+        assertThat(videoTrack.sinks.size, equalTo(0))
+        val frameCount = primarySink.frameCount
+        assertThat(primarySink.awaitFrame(BACKGROUND_WAIT_MS), equalTo(false))
+        assertThat(primarySink.frameCount, equalTo(frameCount))
+    }
+
+    @Test
+    fun it_should_attach_the_sinks_again_when_returning_from_the_background() {
+        router.bind(primarySink, videoTrack)
+        router.bind(thumbnailSink, videoTrack)
+        router.stop()
+
+        router.start()
+
+        assertThat(router.sinkCount(videoTrack), equalTo(2))
+        assertThat(videoTrack.sinks.size, equalTo(2))
+        assertThat(primarySink.awaitFrame(), equalTo(true))
+        assertThat(thumbnailSink.awaitFrame(), equalTo(true))
+    }
+
+    private class FrameCountingSink : VideoSink {
+        private val frames = Semaphore(0)
+        private val frameCounter = AtomicInteger()
+
+        val frameCount: Int get() = frameCounter.get()
+
+        override fun onFrame(frame: VideoFrame) {
+            frameCounter.incrementAndGet()
+            frames.release()
+        }
+
+        fun awaitFrame(timeoutMs: Long = FRAME_TIMEOUT_MS): Boolean {
+            frames.drainPermits()
+            return frames.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    companion object {
+        private const val FRAME_TIMEOUT_MS = 5000L
+        private const val BACKGROUND_WAIT_MS = 500L
+    }
+}
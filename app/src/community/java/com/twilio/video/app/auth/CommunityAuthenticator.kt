@@ -62,12 +62,15 @@ class CommunityAuthenticator constructor(
         }.toObservable()
     }
 
+    /*
+     * Called on the main thread at cold start, so the passcode is not decrypted here.
+     */
     override fun loggedIn(): Boolean {
-        return !securePreferences.getSecureString(PASSCODE).isNullOrEmpty()
+        return securePreferences.hasSecureString(PASSCODE)
     }
 
     override fun logout() {
         sharedPreferences.edit { remove(DISPLAY_NAME) }
-        sharedPreferences.edit { remove(PASSCODE) }
+        securePreferences.removeSecureString(PASSCODE)
     }
 }
@@ -19,7 +19,12 @@ import android.content.SharedPreferences
 import com.twilio.video.app.android.SharedPreferencesWrapper
 import com.twilio.video.app.data.api.AuthService
 import com.twilio.video.app.data.api.AuthServiceRepository
+import com.twilio.video.app.data.api.HttpPreconnector
+import com.twilio.video.app.data.api.ResilientTokenService
+import com.twilio.video.app.data.api.TokenRequestPolicy
+import com.twilio.video.app.data.api.TokenRequestStats
 import com.twilio.video.app.data.api.TokenService
+import com.twilio.video.app.data.api.authServiceMoshi
 import com.twilio.video.app.security.SecurePreferences
 import com.twilio.video.app.util.isReleaseBuildType
 import dagger.Module
@@ -27,33 +32,38 @@ import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
 import java.util.concurrent.TimeUnit
+import javax.inject.Named
 import javax.inject.Singleton
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
-import retrofit2.converter.gson.GsonConverterFactory
+import retrofit2.converter.moshi.MoshiConverterFactory
 
 @Module
 @InstallIn(SingletonComponent::class)
 class CommunityAuthServiceModule {
     @Provides
     @Singleton
-    fun providesOkHttpClient(): OkHttpClient {
-        val builder = OkHttpClient.Builder()
+    @Named("AuthService")
+    fun providesOkHttpClient(
+        sharedOkHttpClient: OkHttpClient,
+        tokenRequestPolicy: TokenRequestPolicy
+    ): OkHttpClient {
+        val builder = sharedOkHttpClient.newBuilder()
         if (!isReleaseBuildType) {
             val interceptor = HttpLoggingInterceptor()
             interceptor.level = HttpLoggingInterceptor.Level.BODY
             builder.addInterceptor(interceptor)
         }
         return builder
-                .readTimeout(30, TimeUnit.SECONDS)
-                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(tokenRequestPolicy.readTimeoutMs, TimeUnit.MILLISECONDS)
+                .connectTimeout(tokenRequestPolicy.connectTimeoutMs, TimeUnit.MILLISECONDS)
                 .build()
     }
 
     @Provides
     @Singleton
-    fun providesAuthService(okHttpClient: OkHttpClient): AuthService {
+    fun providesAuthService(@Named("AuthService") okHttpClient: OkHttpClient): AuthService {
         return Retrofit.Builder()
                 .client(okHttpClient)
                 /*
@@ -61,7 +71,7 @@ class CommunityAuthServiceModule {
                  * user, so insert a placeholder base URL to be replaced at runtime.
                  */
                 .baseUrl("https://PLACEHOLDER_URL")
-                .addConverterFactory(GsonConverterFactory.create())
+                .addConverterFactory(MoshiConverterFactory.create(authServiceMoshi))
                 .build()
                 .create(AuthService::class.java)
     }
@@ -70,8 +80,18 @@ class CommunityAuthServiceModule {
     fun providesTokenService(
         authService: AuthService,
         securePreferences: SecurePreferences,
-        sharedPreferences: SharedPreferences
+        sharedPreferences: SharedPreferences,
+        httpPreconnector: HttpPreconnector,
+        appSettingsRepository: AppSettingsRepository,
+        tokenRequestStats: TokenRequestStats,
+        tokenRequestPolicy: TokenRequestPolicy
     ): TokenService {
-        return AuthServiceRepository(authService, securePreferences, SharedPreferencesWrapper(sharedPreferences))
+        val authServiceRepository = AuthServiceRepository(authService, securePreferences,
+                SharedPreferencesWrapper(sharedPreferences), httpPreconnector)
+        return ResilientTokenService(
+                authServiceRepository,
+                { appSettingsRepository.currentSettings.environment },
+                tokenRequestStats,
+                tokenRequestPolicy)
     }
 }
@@ -1,9 +1,13 @@
 package com.twilio.video.app.data.api
 
+import com.squareup.moshi.JsonClass
+
+@JsonClass(generateAdapter = true)
 data class AuthServiceErrorDTO(
     val error: ErrorDTO? = null
 )
 
+@JsonClass(generateAdapter = true)
 data class ErrorDTO(
     val message: String? = null,
     val explanation: String? = null
@@ -0,0 +1,32 @@
+package com.twilio.video.app.data.api
+
+import com.squareup.moshi.JsonAdapter
+import com.squareup.moshi.JsonReader
+import com.squareup.moshi.JsonWriter
+import com.squareup.moshi.Moshi
+import com.twilio.video.app.data.api.model.Topology
+
+/*
+ * Moshi instance for the auth service DTOs. The DTO adapters are generated at compile time and
+ * Topology has a hand written adapter, so parsing does not reflect over the DTO classes.
+ */
+val authServiceMoshi: Moshi = Moshi.Builder()
+        .add(Topology::class.java, TopologyJsonAdapter().nullSafe())
+        .build()
+
+private class TopologyJsonAdapter : JsonAdapter<Topology>() {
+    private val topologies = Topology.values()
+    private val options = JsonReader.Options.of(*topologies.map { it.value }.toTypedArray())
+
+    override fun fromJson(reader: JsonReader): Topology? {
+        val index = reader.selectString(options)
+        if (index != -1) return topologies[index]
+        // Unknown room types are ignored rather than failing the whole response
+        reader.skipValue()
+        return null
+    }
+
+    override fun toJson(writer: JsonWriter, value: Topology?) {
+        writer.value(value?.value)
+    }
+}
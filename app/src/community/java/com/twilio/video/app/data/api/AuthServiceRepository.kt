@@ -15,8 +15,7 @@
  */
 package com.twilio.video.app.data.api
 
-import com.google.gson.Gson
-import com.google.gson.JsonSyntaxException
+import com.squareup.moshi.JsonDataException
 import com.twilio.video.VideoDimensions.HD_720P_VIDEO_DIMENSIONS
 import com.twilio.video.Vp8Codec
 import com.twilio.video.app.android.SharedPreferencesWrapper
@@ -32,16 +31,19 @@ import com.twilio.video.app.data.api.model.Topology.GROUP
 import com.twilio.video.app.data.api.model.Topology.GROUP_SMALL
 import com.twilio.video.app.data.api.model.Topology.PEER_TO_PEER
 import com.twilio.video.app.security.SecurePreferences
+import java.io.IOException
 import retrofit2.HttpException
 import timber.log.Timber
 
 private const val LEGACY_PASSCODE_SIZE = 10
 private const val PASSCODE_SIZE = 14
+private val errorAdapter = authServiceMoshi.adapter(AuthServiceErrorDTO::class.java)
 
 class AuthServiceRepository(
     private val authService: AuthService,
     private val securePreferences: SecurePreferences,
-    private val sharedPreferences: SharedPreferencesWrapper
+    private val sharedPreferences: SharedPreferencesWrapper,
+    private val httpPreconnector: HttpPreconnector? = null
 ) : TokenService {
     override suspend fun getToken(identity: String?, roomName: String?): String {
         return getToken(identity, roomName, passcode = null)
@@ -64,6 +66,17 @@ class AuthServiceRepository(
         throw IllegalArgumentException("Passcode cannot be null")
     }
 
+    // A request for a room also creates it, see buildRequest
+    override fun isIdempotent(roomName: String?) = roomName == null
+
+    override fun preconnect() {
+        httpPreconnector?.preconnect {
+            securePreferences.getSecureString(PASSCODE)
+                    ?.takeIf { it.length == LEGACY_PASSCODE_SIZE || it.length == PASSCODE_SIZE }
+                    ?.let { buildUrl(it) }
+        }
+    }
+
     private fun buildRequest(
         passcode: String,
         identity: String?,
@@ -72,14 +85,17 @@ class AuthServiceRepository(
         val requestBody = roomName?.let { roomName ->
             AuthServiceRequestDTO(passcode, identity, roomName, true)
         } ?: AuthServiceRequestDTO(passcode, identity)
+        return Pair(requestBody, buildUrl(passcode))
+    }
+
+    private fun buildUrl(passcode: String): String {
         val appId = passcode.substring(6, 10)
         val serverlessId = passcode.substring(10)
-        val url = if (passcode.length == PASSCODE_SIZE) {
+        return if (passcode.length == PASSCODE_SIZE) {
             "$URL_PREFIX$appId-$serverlessId$URL_SUFFIX"
         } else {
             "$URL_PREFIX$appId$URL_SUFFIX"
         }
-        return Pair(requestBody, url)
     }
 
     private fun handleResponse(response: AuthServiceResponseDTO): String? {
@@ -123,16 +139,15 @@ class AuthServiceRepository(
         Timber.e(httpException)
         httpException.response()?.let { response ->
             response.errorBody()?.let { errorBody ->
-                try {
-                    val errorJson = errorBody.string()
-                    Gson().fromJson(errorJson, AuthServiceErrorDTO::class.java)?.let { errorDTO ->
-                        errorDTO.error?.let { error ->
-                            val error = AuthServiceError.value(error.message)
-                            throw AuthServiceException(httpException, error)
-                        }
-                    }
-                } catch (jsonSyntaxException: JsonSyntaxException) {
-                    throw AuthServiceException(jsonSyntaxException)
+                val errorDTO = try {
+                    errorBody.use { errorAdapter.fromJson(it.source()) }
+                } catch (e: IOException) {
+                    throw AuthServiceException(e)
+                } catch (e: JsonDataException) {
+                    throw AuthServiceException(e)
+                }
+                errorDTO?.error?.let { error ->
+                    throw AuthServiceException(httpException, AuthServiceError.value(error.message))
                 }
             }
         }
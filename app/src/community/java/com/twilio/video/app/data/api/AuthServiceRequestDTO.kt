@@ -1,5 +1,8 @@
 package com.twilio.video.app.data.api
 
+import com.squareup.moshi.JsonClass
+
+@JsonClass(generateAdapter = true)
 data class AuthServiceRequestDTO(
     val passcode: String? = null,
     val user_identity: String? = null,
@@ -1,9 +1,11 @@
 package com.twilio.video.app.data.api
 
-import com.google.gson.annotations.SerializedName
+import com.squareup.moshi.Json
+import com.squareup.moshi.JsonClass
 import com.twilio.video.app.data.api.model.Topology
 
+@JsonClass(generateAdapter = true)
 data class AuthServiceResponseDTO(
     val token: String? = null,
-    @SerializedName("room_type") val topology: Topology? = null
+    @Json(name = "room_type") val topology: Topology? = null
 )
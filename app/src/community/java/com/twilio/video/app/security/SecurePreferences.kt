@@ -5,4 +5,11 @@ interface SecurePreferences {
     fun putSecureString(key: String, value: String)
 
     fun getSecureString(key: String): String?
+
+    /*
+     * Whether a value is stored for key, without decrypting it.
+     */
+    fun hasSecureString(key: String): Boolean
+
+    fun removeSecureString(key: String)
 }
@@ -3,34 +3,63 @@ package com.twilio.video.app.security
 import android.content.Context
 import android.content.SharedPreferences
 import android.util.Base64
+import androidx.core.content.edit
 import com.facebook.android.crypto.keychain.AndroidConceal
 import com.facebook.android.crypto.keychain.SharedPrefsBackedKeyChain
 import com.facebook.crypto.Crypto
 import com.facebook.crypto.CryptoConfig
 import com.facebook.crypto.Entity
 import com.facebook.soloader.SoLoader
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import timber.log.Timber
 
+/*
+ * Loading the Conceal native library and creating the crypto is started on a background
+ * dispatcher instead of the constructor's calling thread. Decrypted values are kept in memory for
+ * the lifetime of the process so that repeated reads, such as the passcode on every token
+ * request, only pay for decryption once.
+ */
 class SecurePreferencesImpl(
     context: Context,
-    private val preferences: SharedPreferences
+    private val preferences: SharedPreferences,
+    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO
 ) : SecurePreferences {
 
     private val entity: Entity = Entity.create(context.packageName)
-    private val crypto: Crypto
-
-    init {
+    private val crypto: Crypto by lazy {
         SoLoader.init(context, false)
         val keyChain = SharedPrefsBackedKeyChain(context, CryptoConfig.KEY_256)
-        crypto = AndroidConceal.get().createCrypto256Bits(keyChain)
+        AndroidConceal.get().createCrypto256Bits(keyChain).also {
+            Timber.d("Conceal crypto initialized")
+        }
+    }
+    private val decryptedValues = ConcurrentHashMap<String, String>()
+
+    init {
+        CoroutineScope(coroutineDispatcher).launch { crypto }
     }
 
     override fun putSecureString(key: String, value: String) {
-        return preferences.edit().putString(key, encrypt(value)).apply()
+        preferences.edit { putString(key, encrypt(value)) }
+        decryptedValues[key] = value
     }
 
     override fun getSecureString(key: String): String? {
+        decryptedValues[key]?.let { return it }
         val encryptedText: String? = preferences.getString(key, null)
-        return if (encryptedText != null) decrypt(encryptedText) else null
+        return encryptedText?.let { decrypt(it) }?.also { decryptedValues[key] = it }
+    }
+
+    override fun hasSecureString(key: String) =
+            decryptedValues.containsKey(key) || preferences.contains(key)
+
+    override fun removeSecureString(key: String) {
+        decryptedValues.remove(key)
+        preferences.edit { remove(key) }
     }
 
     private fun encrypt(plainText: String): String {
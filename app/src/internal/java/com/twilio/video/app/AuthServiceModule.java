@@ -16,9 +16,12 @@
 
 package com.twilio.video.app.data.api;
 
+import static com.twilio.video.app.data.api.TwilioApiEnvironmentKt.VIDEO_APP_SERVICE_DEV_URL;
+import static com.twilio.video.app.data.api.TwilioApiEnvironmentKt.VIDEO_APP_SERVICE_PROD_URL;
+import static com.twilio.video.app.data.api.TwilioApiEnvironmentKt.VIDEO_APP_SERVICE_STAGE_URL;
 import static com.twilio.video.app.util.BuildConfigUtilsKt.isReleaseBuildType;
 
-import android.content.SharedPreferences;
+import com.twilio.video.app.data.AppSettingsRepository;
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
@@ -35,37 +38,47 @@ import retrofit2.converter.scalars.ScalarsConverterFactory;
 @Module
 @InstallIn(SingletonComponent.class)
 public class AuthServiceModule {
-    private static final String VIDEO_APP_SERVICE_DEV_URL = "https://app.dev.video.bytwilio.com";
-    private static final String VIDEO_APP_SERVICE_STAGE_URL =
-            "https://app.stage.video.bytwilio.com";
-    private static final String VIDEO_APP_SERVICE_PROD_URL = "https://app.video.bytwilio.com";
 
     @Provides
     @Singleton
     @Named("VideoAppService")
-    OkHttpClient providesOkHttpClient() {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+    OkHttpClient providesOkHttpClient(
+            OkHttpClient sharedOkHttpClient, TokenRequestPolicy tokenRequestPolicy) {
+        OkHttpClient.Builder builder = sharedOkHttpClient.newBuilder();
         if (!isReleaseBuildType()) {
             HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
             interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
             builder.addInterceptor(interceptor);
         }
-        return builder.readTimeout(30, TimeUnit.SECONDS)
-                .connectTimeout(30, TimeUnit.SECONDS)
+        return builder.readTimeout(tokenRequestPolicy.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .connectTimeout(
+                        tokenRequestPolicy.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
                 .addInterceptor(new FirebaseAuthInterceptor())
                 .build();
     }
 
+    /*
+     * The environment specific services only differ by base URL, so they are derived from this
+     * Retrofit instance and share its client and converters.
+     */
     @Provides
     @Singleton
-    @Named("VideoAppServiceDev")
-    VideoAppService providesVideoAppServiceDev(
-            @Named("VideoAppService") OkHttpClient okHttpClient) {
+    @Named("VideoAppService")
+    Retrofit providesRetrofit(@Named("VideoAppService") OkHttpClient okHttpClient) {
         return new Retrofit.Builder()
                 .client(okHttpClient)
-                .baseUrl(VIDEO_APP_SERVICE_DEV_URL)
+                .baseUrl(VIDEO_APP_SERVICE_PROD_URL)
                 .addConverterFactory(ScalarsConverterFactory.create())
                 .addConverterFactory(GsonConverterFactory.create())
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    @Named("VideoAppServiceDev")
+    VideoAppService providesVideoAppServiceDev(@Named("VideoAppService") Retrofit retrofit) {
+        return retrofit.newBuilder()
+                .baseUrl(VIDEO_APP_SERVICE_DEV_URL)
                 .build()
                 .create(VideoAppService.class);
     }
@@ -73,13 +86,9 @@ public class AuthServiceModule {
     @Provides
     @Singleton
     @Named("VideoAppServiceStage")
-    VideoAppService providesVideoAppServiceStage(
-            @Named("VideoAppService") OkHttpClient okHttpClient) {
-        return new Retrofit.Builder()
-                .client(okHttpClient)
+    VideoAppService providesVideoAppServiceStage(@Named("VideoAppService") Retrofit retrofit) {
+        return retrofit.newBuilder()
                 .baseUrl(VIDEO_APP_SERVICE_STAGE_URL)
-                .addConverterFactory(ScalarsConverterFactory.create())
-                .addConverterFactory(GsonConverterFactory.create())
                 .build()
                 .create(VideoAppService.class);
     }
@@ -87,30 +96,36 @@ public class AuthServiceModule {
     @Provides
     @Singleton
     @Named("VideoAppServiceProd")
-    VideoAppService providesVideoAppServiceProd(
-            @Named("VideoAppService") OkHttpClient okHttpClient) {
-        return new Retrofit.Builder()
-                .client(okHttpClient)
-                .baseUrl(VIDEO_APP_SERVICE_PROD_URL)
-                .addConverterFactory(ScalarsConverterFactory.create())
-                .addConverterFactory(GsonConverterFactory.create())
-                .build()
-                .create(VideoAppService.class);
+    VideoAppService providesVideoAppServiceProd(@Named("VideoAppService") Retrofit retrofit) {
+        return retrofit.create(VideoAppService.class);
     }
 
     @Provides
     VideoAppServiceDelegate providesVideoAppServiceDelegate(
-            SharedPreferences sharedPreferences,
+            AppSettingsRepository appSettingsRepository,
             @Named("VideoAppServiceDev") VideoAppService videoAppServiceDev,
             @Named("VideoAppServiceStage") VideoAppService videoAppServiceStage,
-            @Named("VideoAppServiceProd") VideoAppService videoAppServiceProd) {
+            @Named("VideoAppServiceProd") VideoAppService videoAppServiceProd,
+            HttpPreconnector httpPreconnector) {
 
         return new VideoAppServiceDelegate(
-                sharedPreferences, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd);
+                appSettingsRepository,
+                videoAppServiceDev,
+                videoAppServiceStage,
+                videoAppServiceProd,
+                httpPreconnector);
     }
 
     @Provides
-    TokenService providesTokenService(final VideoAppServiceDelegate videoAppServiceDelegate) {
-        return videoAppServiceDelegate;
+    TokenService providesTokenService(
+            final VideoAppServiceDelegate videoAppServiceDelegate,
+            AppSettingsRepository appSettingsRepository,
+            TokenRequestStats tokenRequestStats,
+            TokenRequestPolicy tokenRequestPolicy) {
+        return new ResilientTokenService(
+                videoAppServiceDelegate,
+                () -> appSettingsRepository.getCurrentSettings().getEnvironment(),
+                tokenRequestStats,
+                tokenRequestPolicy);
     }
 }
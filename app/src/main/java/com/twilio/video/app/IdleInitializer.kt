@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app
+
+import android.os.Looper
+import android.os.MessageQueue
+import android.os.Trace
+import timber.log.Timber
+
+/*
+ * Runs initialization that is not needed for the first frame once the main thread is idle. Only
+ * one task runs per idle pass so that a burst of work cannot delay input or the next frame.
+ */
+class IdleInitializer(private val messageQueue: MessageQueue = Looper.myQueue()) {
+
+    private val tasks = ArrayDeque<Pair<String, () -> Unit>>()
+
+    fun enqueue(name: String, task: () -> Unit): IdleInitializer {
+        tasks.addLast(name to task)
+        return this
+    }
+
+    fun start() {
+        messageQueue.addIdleHandler {
+            tasks.removeFirstOrNull()?.let { (name, task) ->
+                Trace.beginSection(name)
+                try {
+                    task()
+                } catch (e: Exception) {
+                    Timber.e(e, "Idle initialization of %s failed", name)
+                } finally {
+                    Trace.endSection()
+                }
+            }
+            tasks.isNotEmpty()
+        }
+    }
+}
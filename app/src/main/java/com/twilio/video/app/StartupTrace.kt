@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app
+
+import android.app.Activity
+import android.os.Build
+import android.os.Process
+import android.os.SystemClock
+import android.view.ViewTreeObserver
+import timber.log.Timber
+
+/*
+ * Measures cold start from process start to the first frame drawn by RoomActivity. The result is
+ * logged and kept in timeToFirstRoomFrameMs so that it can be compared across builds.
+ */
+object StartupTrace {
+
+    private var processStartMs = 0L
+    @Volatile
+    var timeToFirstRoomFrameMs: Long? = null
+        private set
+
+    fun onApplicationCreate() {
+        processStartMs = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            Process.getStartElapsedRealtime()
+        } else {
+            SystemClock.elapsedRealtime()
+        }
+    }
+
+    fun onRoomActivityCreate(activity: Activity) {
+        if (processStartMs == 0L || timeToFirstRoomFrameMs != null) return
+        val decorView = activity.window.decorView
+        decorView.viewTreeObserver.addOnDrawListener(object : ViewTreeObserver.OnDrawListener {
+            private var isReported = false
+
+            override fun onDraw() {
+                if (isReported) return
+                isReported = true
+                val durationMs = SystemClock.elapsedRealtime() - processStartMs
+                timeToFirstRoomFrameMs = durationMs
+                Timber.i("Time to first RoomActivity frame: %d ms", durationMs)
+                // Listeners cannot be removed while the tree is dispatching onDraw
+                decorView.post { decorView.viewTreeObserver.removeOnDrawListener(this) }
+            }
+        })
+    }
+}
@@ -18,10 +18,10 @@ package com.twilio.video.app;
 
 import com.twilio.video.LogLevel;
 import com.twilio.video.Video;
+import com.twilio.video.app.util.AsyncLoggingTree;
 import com.twilio.video.app.util.BuildConfigUtilsKt;
-import com.twilio.video.app.util.CrashlyticsTreeRanger;
 import com.twilio.video.app.util.DebugTree;
-import com.twilio.video.app.util.ReleaseTree;
+import com.twilio.video.app.util.DeferredTreeRanger;
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
@@ -34,12 +34,18 @@ import timber.log.Timber;
 public class TreeModule {
     @Provides
     @Singleton
-    Timber.Tree providesTree(CrashlyticsTreeRanger treeRanger) {
+    AsyncLoggingTree providesAsyncLoggingTree(DeferredTreeRanger treeRanger) {
+        return new AsyncLoggingTree(treeRanger);
+    }
+
+    @Provides
+    @Singleton
+    Timber.Tree providesTree(AsyncLoggingTree rangerTree) {
         if (BuildConfig.DEBUG || BuildConfigUtilsKt.isInternalFlavor()) {
             Video.setLogLevel(LogLevel.DEBUG);
-            return new DebugTree(treeRanger);
+            return new DebugTree(rangerTree);
         } else {
-            return new ReleaseTree(treeRanger);
+            return rangerTree;
         }
     }
 }
@@ -18,7 +18,11 @@ package com.twilio.video.app
 
 import android.app.Application
 import android.content.Context
+import android.os.Trace
 import androidx.multidex.MultiDex
+import com.twilio.video.app.diagnostics.FlightRecorderReporter
+import com.twilio.video.app.util.AsyncLoggingTree
+import com.twilio.video.app.util.DeferredTreeRanger
 import dagger.hilt.android.HiltAndroidApp
 import javax.inject.Inject
 import timber.log.Timber
@@ -27,6 +31,12 @@ import timber.log.Timber
 class VideoApplication : Application() {
     @Inject
     lateinit var tree: Timber.Tree
+    @Inject
+    lateinit var asyncLoggingTree: AsyncLoggingTree
+    @Inject
+    lateinit var treeRanger: DeferredTreeRanger
+    @Inject
+    lateinit var flightRecorderReporter: FlightRecorderReporter
 
     override fun attachBaseContext(base: Context) {
         super.attachBaseContext(base)
@@ -34,10 +44,20 @@ class VideoApplication : Application() {
     }
 
     override fun onCreate() {
+        StartupTrace.onApplicationCreate()
+        Trace.beginSection("VideoApplication.onCreate")
         super.onCreate()
 
         Timber.plant(tree)
+        // Crashlytics installs its handler from its content provider, before this one
+        asyncLoggingTree.flushOnUncaughtException()
 
-        startAppcenter(this)
+        // Crash reporting and App Center are not needed for the first frame
+        IdleInitializer()
+                .enqueue("TreeRanger.attach") { treeRanger.attach() }
+                .enqueue("FlightRecorderReporter.start") { flightRecorderReporter.start() }
+                .enqueue("startAppcenter") { startAppcenter(this) }
+                .start()
+        Trace.endSection()
     }
 }
@@ -75,13 +75,19 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
             binding.jitterRow.visibility = View.GONE
             binding.audioLevelRow.visibility = View.GONE
         }
+        binding.renderMetrics.text = item.renderMetrics
+        binding.renderMetricsRow.visibility = if (item.renderMetrics != null) View.VISIBLE else View.GONE
     }
 
     override fun getItemCount(): Int {
         return statsListItems.size
     }
 
-    fun updateStatsData(roomStats: RoomStats?) {
+    /*
+     * renderMetrics holds the formatted render metrics of the sinks of each remote video track,
+     * keyed by track sid.
+     */
+    fun updateStatsData(roomStats: RoomStats?, renderMetrics: Map<String, String> = emptyMap()) {
         /*
          * Generate new items on a separate list to ensure statsListItems changes are only
          * performed on the UI thread to meet the threading requirement of RecyclerView.Adapter.
@@ -158,6 +164,7 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
                             .bytes(remoteVideoTrackStats.bytesReceived)
                             .dimensions(remoteVideoTrackStats.dimensions.toString())
                             .framerate(remoteVideoTrackStats.frameRate)
+                            .renderMetrics(renderMetrics[remoteVideoTrackStats.trackSid])
                             .trackName(trackName)
                             .isAudioTrack(false)
                             .isLocalTrack(false)
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.twilio.video.app.data
+
+import android.content.SharedPreferences
+import com.twilio.video.AudioCodec
+import com.twilio.video.BandwidthProfileMode
+import com.twilio.video.ClientTrackSwitchOffControl
+import com.twilio.video.G722Codec
+import com.twilio.video.H264Codec
+import com.twilio.video.IsacCodec
+import com.twilio.video.OpusCodec
+import com.twilio.video.PcmaCodec
+import com.twilio.video.PcmuCodec
+import com.twilio.video.TrackPriority
+import com.twilio.video.TrackSwitchOffMode
+import com.twilio.video.VideoCodec
+import com.twilio.video.VideoContentPreferencesMode
+import com.twilio.video.VideoDimensions
+import com.twilio.video.Vp8Codec
+import com.twilio.video.Vp9Codec
+import com.twilio.video.app.util.get
+
+/*
+ * Immutable, already parsed snapshot of the user preferences read on hot paths such as connecting
+ * to a room or rendering the room screen.
+ */
+data class AppSettings(
+    val displayName: String? = null,
+    val environment: String = Preferences.ENVIRONMENT_DEFAULT,
+    val topology: String = Preferences.TOPOLOGY_DEFAULT,
+    val recordParticipantsOnConnect: Boolean = Preferences.RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT,
+    val videoCaptureDimensions: VideoDimensions =
+            videoCaptureDimensions(Preferences.VIDEO_CAPTURE_RESOLUTION_DEFAULT),
+    val enableStats: Boolean = Preferences.ENABLE_STATS_DEFAULT,
+    val enableInsights: Boolean = Preferences.ENABLE_INSIGHTS_DEFAULT,
+    val enableAutomaticTrackSubscription: Boolean =
+            Preferences.ENABLE_AUTOMATIC_TRACK_SUBSCRIPTION_DEFAULT,
+    val enableDominantSpeaker: Boolean = Preferences.ENABLE_DOMINANT_SPEAKER_DEFAULT,
+    val enableAutoRejoin: Boolean = Preferences.ENABLE_AUTO_REJOIN_DEFAULT,
+    val enableNetworkQuality: Boolean = Preferences.ENABLE_NETWORK_QUALITY_LEVEL_DEFAULT,
+    val videoCodec: VideoCodec = videoCodec(Preferences.VIDEO_CODEC_DEFAULT,
+            Preferences.VP8_SIMULCAST_DEFAULT),
+    val audioCodec: AudioCodec = audioCodec(Preferences.AUDIO_CODEC_DEFAULT),
+    val maxAudioBitrate: Int = Preferences.MAX_AUDIO_BITRATE_DEFAULT,
+    val maxVideoBitrate: Int = Preferences.MAX_VIDEO_BITRATE_DEFAULT,
+    val bandwidthProfileMode: BandwidthProfileMode? =
+            bandwidthProfileMode(Preferences.BANDWIDTH_PROFILE_MODE_DEFAULT),
+    val maxSubscriptionBitrate: Long =
+            Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE_DEFAULT.toLong(),
+    val dominantSpeakerPriority: TrackPriority? =
+            trackPriority(Preferences.BANDWIDTH_PROFILE_DOMINANT_SPEAKER_PRIORITY_DEFAULT),
+    val trackSwitchOffMode: TrackSwitchOffMode? =
+            trackSwitchOffMode(Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_MODE_DEFAULT),
+    val clientTrackSwitchOffControl: ClientTrackSwitchOffControl? =
+            clientTrackSwitchOffControl(Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL_DEFAULT),
+    val videoContentPreferencesMode: VideoContentPreferencesMode? =
+            videoContentPreferencesMode(Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE_DEFAULT),
+    val acousticEchoCanceler: Boolean = Preferences.AUDIO_ACOUSTIC_ECHO_CANCELER_DEFAULT,
+    val noiseSuppressor: Boolean = Preferences.AUDIO_ACOUSTIC_NOISE_SUPRESSOR_DEFAULT,
+    val automaticGainControl: Boolean = Preferences.AUDIO_AUTOMATIC_GAIN_CONTROL_DEFAULT,
+    val openSLESUsage: Boolean = Preferences.AUDIO_OPEN_SLES_USAGE_DEFAULT
+) {
+
+    /*
+     * Returns a copy of these settings with only the value stored under the given key re-read.
+     * A null key means the preferences were cleared, so every value is re-read.
+     */
+    fun update(sharedPreferences: SharedPreferences, key: String?): AppSettings {
+        if (key == null) return load(sharedPreferences)
+        return sharedPreferences.run {
+            when (key) {
+                Preferences.DISPLAY_NAME -> copy(displayName = getString(key, null))
+                Preferences.ENVIRONMENT -> copy(environment = get(key, Preferences.ENVIRONMENT_DEFAULT))
+                Preferences.TOPOLOGY -> copy(topology = get(key, Preferences.TOPOLOGY_DEFAULT))
+                Preferences.RECORD_PARTICIPANTS_ON_CONNECT -> copy(recordParticipantsOnConnect =
+                        get(key, Preferences.RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT))
+                Preferences.VIDEO_CAPTURE_RESOLUTION -> copy(videoCaptureDimensions =
+                        videoCaptureDimensions(get(key, Preferences.VIDEO_CAPTURE_RESOLUTION_DEFAULT)))
+                Preferences.ENABLE_STATS -> copy(enableStats = get(key, Preferences.ENABLE_STATS_DEFAULT))
+                Preferences.ENABLE_INSIGHTS -> copy(enableInsights =
+                        get(key, Preferences.ENABLE_INSIGHTS_DEFAULT))
+                Preferences.ENABLE_AUTOMATIC_TRACK_SUBSCRIPTION -> copy(enableAutomaticTrackSubscription =
+                        get(key, Preferences.ENABLE_AUTOMATIC_TRACK_SUBSCRIPTION_DEFAULT))
+                Preferences.ENABLE_DOMINANT_SPEAKER -> copy(enableDominantSpeaker =
+                        get(key, Preferences.ENABLE_DOMINANT_SPEAKER_DEFAULT))
+                Preferences.ENABLE_AUTO_REJOIN -> copy(enableAutoRejoin =
+                        get(key, Preferences.ENABLE_AUTO_REJOIN_DEFAULT))
+                Preferences.ENABLE_NETWORK_QUALITY_LEVEL -> copy(enableNetworkQuality =
+                        get(key, Preferences.ENABLE_NETWORK_QUALITY_LEVEL_DEFAULT))
+                Preferences.VIDEO_CODEC, Preferences.VP8_SIMULCAST -> copy(videoCodec = readVideoCodec(this))
+                Preferences.AUDIO_CODEC -> copy(audioCodec =
+                        audioCodec(get(key, Preferences.AUDIO_CODEC_DEFAULT)))
+                Preferences.MAX_AUDIO_BITRATE -> copy(maxAudioBitrate =
+                        get(key, Preferences.MAX_AUDIO_BITRATE_DEFAULT))
+                Preferences.MAX_VIDEO_BITRATE -> copy(maxVideoBitrate =
+                        get(key, Preferences.MAX_VIDEO_BITRATE_DEFAULT))
+                Preferences.BANDWIDTH_PROFILE_MODE -> copy(bandwidthProfileMode =
+                        bandwidthProfileMode(get(key, Preferences.BANDWIDTH_PROFILE_MODE_DEFAULT)))
+                Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE -> copy(maxSubscriptionBitrate =
+                        get(key, Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE_DEFAULT).toLong())
+                Preferences.BANDWIDTH_PROFILE_DOMINANT_SPEAKER_PRIORITY -> copy(dominantSpeakerPriority =
+                        trackPriority(get(key, Preferences.BANDWIDTH_PROFILE_DOMINANT_SPEAKER_PRIORITY_DEFAULT)))
+                Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_MODE -> copy(trackSwitchOffMode =
+                        trackSwitchOffMode(get(key, Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_MODE_DEFAULT)))
+                Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL -> copy(clientTrackSwitchOffControl =
+                        clientTrackSwitchOffControl(get(key, Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL_DEFAULT)))
+                Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE -> copy(videoContentPreferencesMode =
+                        videoContentPreferencesMode(get(key, Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE_DEFAULT)))
+                Preferences.AUDIO_ACOUSTIC_ECHO_CANCELER -> copy(acousticEchoCanceler =
+                        get(key, Preferences.AUDIO_ACOUSTIC_ECHO_CANCELER_DEFAULT))
+                Preferences.AUDIO_ACOUSTIC_NOISE_SUPRESSOR -> copy(noiseSuppressor =
+                        get(key, Preferences.AUDIO_ACOUSTIC_NOISE_SUPRESSOR_DEFAULT))
+                Preferences.AUDIO_AUTOMATIC_GAIN_CONTROL -> copy(automaticGainControl =
+                        get(key, Preferences.AUDIO_AUTOMATIC_GAIN_CONTROL_DEFAULT))
+                Preferences.AUDIO_OPEN_SLES_USAGE -> copy(openSLESUsage =
+                        get(key, Preferences.AUDIO_OPEN_SLES_USAGE_DEFAULT))
+                else -> this@AppSettings
+            }
+        }
+    }
+
+    companion object {
+
+        fun load(sharedPreferences: SharedPreferences) = KEYS.fold(AppSettings()) { settings, key ->
+            settings.update(sharedPreferences, key)
+        }
+
+        private val KEYS = listOf(
+                Preferences.DISPLAY_NAME,
+                Preferences.ENVIRONMENT,
+                Preferences.TOPOLOGY,
+                Preferences.RECORD_PARTICIPANTS_ON_CONNECT,
+                Preferences.VIDEO_CAPTURE_RESOLUTION,
+                Preferences.ENABLE_STATS,
+                Preferences.ENABLE_INSIGHTS,
+                Preferences.ENABLE_AUTOMATIC_TRACK_SUBSCRIPTION,
+                Preferences.ENABLE_DOMINANT_SPEAKER,
+                Preferences.ENABLE_AUTO_REJOIN,
+                Preferences.ENABLE_NETWORK_QUALITY_LEVEL,
+                Preferences.VIDEO_CODEC,
+                Preferences.AUDIO_CODEC,
+                Preferences.MAX_AUDIO_BITRATE,
+                Preferences.MAX_VIDEO_BITRATE,
+                Preferences.BANDWIDTH_PROFILE_MODE,
+                Preferences.BANDWIDTH_PROFILE_MAX_SUBSCRIPTION_BITRATE,
+                Preferences.BANDWIDTH_PROFILE_DOMINANT_SPEAKER_PRIORITY,
+                Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_MODE,
+                Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL,
+                Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE,
+                Preferences.AUDIO_ACOUSTIC_ECHO_CANCELER,
+                Preferences.AUDIO_ACOUSTIC_NOISE_SUPRESSOR,
+                Preferences.AUDIO_AUTOMATIC_GAIN_CONTROL,
+                Preferences.AUDIO_OPEN_SLES_USAGE
+        )
+
+        private fun videoCaptureDimensions(index: String) =
+                Preferences.VIDEO_DIMENSIONS[index.toInt()]
+
+        private fun readVideoCodec(sharedPreferences: SharedPreferences) = videoCodec(
+                sharedPreferences.get(Preferences.VIDEO_CODEC, Preferences.VIDEO_CODEC_DEFAULT),
+                sharedPreferences.get(Preferences.VP8_SIMULCAST, Preferences.VP8_SIMULCAST_DEFAULT))
+
+        private fun videoCodec(videoCodecName: String?, simulcast: Boolean): VideoCodec =
+                when (videoCodecName) {
+                    Vp8Codec.NAME -> Vp8Codec(simulcast)
+                    H264Codec.NAME -> H264Codec()
+                    Vp9Codec.NAME -> Vp9Codec()
+                    else -> Vp8Codec()
+                }
+
+        private fun audioCodec(audioCodecName: String?): AudioCodec =
+                when (audioCodecName) {
+                    IsacCodec.NAME -> IsacCodec()
+                    PcmaCodec.NAME -> PcmaCodec()
+                    PcmuCodec.NAME -> PcmuCodec()
+                    G722Codec.NAME -> G722Codec()
+                    else -> OpusCodec()
+                }
+
+        private fun trackSwitchOffMode(trackSwitchOffModeString: String) =
+                when (trackSwitchOffModeString) {
+                    TrackSwitchOffMode.PREDICTED.name -> TrackSwitchOffMode.PREDICTED
+                    TrackSwitchOffMode.DETECTED.name -> TrackSwitchOffMode.DETECTED
+                    TrackSwitchOffMode.DISABLED.name -> TrackSwitchOffMode.DISABLED
+                    else -> null
+                }
+
+        private fun clientTrackSwitchOffControl(controlString: String) =
+                when (controlString.uppercase()) {
+                    ClientTrackSwitchOffControl.MANUAL.name -> ClientTrackSwitchOffControl.MANUAL
+                    ClientTrackSwitchOffControl.AUTO.name -> ClientTrackSwitchOffControl.AUTO
+                    else -> null
+                }
+
+        private fun videoContentPreferencesMode(modeString: String) =
+                when (modeString.uppercase()) {
+                    VideoContentPreferencesMode.MANUAL.name -> VideoContentPreferencesMode.MANUAL
+                    VideoContentPreferencesMode.AUTO.name -> VideoContentPreferencesMode.AUTO
+                    else -> null
+                }
+
+        private fun trackPriority(trackPriorityString: String) =
+                when (trackPriorityString) {
+                    TrackPriority.LOW.name -> TrackPriority.LOW
+                    TrackPriority.STANDARD.name -> TrackPriority.STANDARD
+                    TrackPriority.HIGH.name -> TrackPriority.HIGH
+                    else -> null
+                }
+
+        private fun bandwidthProfileMode(modeString: String) =
+                when (modeString) {
+                    BandwidthProfileMode.COLLABORATION.name -> BandwidthProfileMode.COLLABORATION
+                    BandwidthProfileMode.GRID.name -> BandwidthProfileMode.GRID
+                    BandwidthProfileMode.PRESENTATION.name -> BandwidthProfileMode.PRESENTATION
+                    else -> null
+                }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.twilio.video.app.data
+
+import android.content.SharedPreferences
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/*
+ * Loads the AppSettings snapshot once off the main thread and keeps it up to date as individual
+ * preferences change.
+ */
+class AppSettingsRepository(
+    private val sharedPreferences: SharedPreferences,
+    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+
+    private val lock = Any()
+    private var isLoaded = false
+    private val pendingKeys = mutableListOf<String?>()
+    private val mutableSettings = MutableStateFlow(AppSettings())
+    val settings: StateFlow<AppSettings> = mutableSettings
+
+    // SharedPreferences only keeps a weak reference to its listeners
+    private val preferenceChangeListener =
+            SharedPreferences.OnSharedPreferenceChangeListener { preferences, key ->
+                synchronized(lock) {
+                    if (isLoaded) {
+                        mutableSettings.value = mutableSettings.value.update(preferences, key)
+                    } else {
+                        pendingKeys.add(key)
+                    }
+                }
+            }
+
+    private val loadJob: Job = CoroutineScope(coroutineDispatcher).launch {
+        sharedPreferences.registerOnSharedPreferenceChangeListener(preferenceChangeListener)
+        val loadedSettings = AppSettings.load(sharedPreferences)
+        synchronized(lock) {
+            // Apply changes that raced with the initial load
+            mutableSettings.value = pendingKeys.fold(loadedSettings) { settings, key ->
+                settings.update(sharedPreferences, key)
+            }
+            pendingKeys.clear()
+            isLoaded = true
+        }
+        Timber.d("App settings loaded")
+    }
+
+    /*
+     * Returns the current settings without suspending. The preferences are only read on the
+     * calling thread if the initial load has not completed yet.
+     */
+    val currentSettings: AppSettings
+        get() = synchronized(lock) {
+            if (isLoaded) mutableSettings.value else AppSettings.load(sharedPreferences)
+        }
+
+    /*
+     * Returns the current settings, waiting for the initial load to complete if needed.
+     */
+    suspend fun getSettings(): AppSettings {
+        loadJob.join()
+        return mutableSettings.value
+    }
+}
@@ -23,6 +23,7 @@ import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
+import javax.inject.Singleton
 
 @Module
 @InstallIn(SingletonComponent::class)
@@ -31,4 +32,10 @@ class DataModule {
     internal fun provideSharedPreferences(app: Application): SharedPreferences {
         return getSharedPreferences(app)
     }
+
+    @Provides
+    @Singleton
+    fun providesAppSettingsRepository(sharedPreferences: SharedPreferences): AppSettingsRepository {
+        return AppSettingsRepository(sharedPreferences)
+    }
 }
@@ -1,7 +1,20 @@
 package com.twilio.video.app.data.api
 
+import retrofit2.HttpException
+
 class AuthServiceException(
     throwable: Throwable? = null,
     val error: AuthServiceError? = null,
     message: String? = null
 ) : RuntimeException(message, throwable)
+
+/*
+ * Returns true if the token service rejected the request itself, so that repeating it would be
+ * rejected as well. Timeouts, an open circuit and network or server failures are transient.
+ */
+fun isClientError(error: Throwable): Boolean = when (error) {
+    is AuthServiceException -> error.error != null || error.cause?.let { isClientError(it) } == true
+    is HttpException -> error.code() in 400..499
+    is IllegalArgumentException -> true
+    else -> false
+}
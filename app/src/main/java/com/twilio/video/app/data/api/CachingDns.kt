@@ -0,0 +1,33 @@
+package com.twilio.video.app.data.api
+
+import java.net.InetAddress
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import okhttp3.Dns
+
+private val DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(1)
+
+/*
+ * Caches successful lookups for a short time so that requests to the same host, such as a
+ * preconnect followed by the token request, do not each pay for a DNS round trip.
+ */
+class CachingDns(
+    private val delegate: Dns = Dns.SYSTEM,
+    private val ttlMs: Long = DEFAULT_TTL_MS,
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) : Dns {
+
+    private val cache = ConcurrentHashMap<String, Entry>()
+
+    override fun lookup(hostname: String): List<InetAddress> {
+        val now = clock()
+        cache[hostname]?.let { entry ->
+            if (now < entry.expiresAt) return entry.addresses
+        }
+        return delegate.lookup(hostname).also { addresses ->
+            cache[hostname] = Entry(addresses, now + ttlMs)
+        }
+    }
+
+    private class Entry(val addresses: List<InetAddress>, val expiresAt: Long)
+}
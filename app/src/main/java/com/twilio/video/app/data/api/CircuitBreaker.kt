@@ -0,0 +1,55 @@
+package com.twilio.video.app.data.api
+
+/*
+ * Fails requests fast after repeated failures. Once the open duration has elapsed a single trial
+ * request is let through, and its result decides whether the circuit closes or opens again.
+ */
+class CircuitBreaker(
+    private val failureThreshold: Int,
+    private val openDurationMs: Long,
+    private val clock: () -> Long
+) {
+
+    enum class State { CLOSED, OPEN, HALF_OPEN }
+
+    var state = State.CLOSED
+        @Synchronized get
+        private set
+    private var consecutiveFailures = 0
+    private var openedAtMs = 0L
+
+    @Synchronized
+    fun tryAcquire(): Boolean {
+        return when (state) {
+            State.CLOSED -> true
+            State.OPEN -> (clock() - openedAtMs >= openDurationMs).also { isTrial ->
+                if (isTrial) state = State.HALF_OPEN
+            }
+            State.HALF_OPEN -> false
+        }
+    }
+
+    @Synchronized
+    fun onSuccess() {
+        consecutiveFailures = 0
+        state = State.CLOSED
+    }
+
+    @Synchronized
+    fun onFailure() {
+        consecutiveFailures++
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN
+            openedAtMs = clock()
+        }
+    }
+
+    /*
+     * Releases a trial request that was cancelled before it completed so that the next request
+     * can be let through as the trial instead.
+     */
+    @Synchronized
+    fun onCancelled() {
+        if (state == State.HALF_OPEN) state = State.OPEN
+    }
+}
@@ -16,63 +16,45 @@
 
 package com.twilio.video.app.data.api;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseUser;
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.net.HttpURLConnection;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 import timber.log.Timber;
 
 class FirebaseAuthInterceptor implements Interceptor {
-    private static final int FIREBASE_TOKEN_TIMEOUT_MS = 10000;
     private static final String HEADER_AUTHORIZATION = "Authorization";
-    private static final String FIREBASE_TOKEN_TASK_FAILED = "Failed to get Firebase Token";
 
-    @Override
-    public Response intercept(Chain chain) throws IOException {
-        Request authorizedRequest =
-                chain.request()
-                        .newBuilder()
-                        .addHeader(HEADER_AUTHORIZATION, getFirebaseToken())
-                        .build();
+    private final IdTokenCache tokenCache;
 
-        return chain.proceed(authorizedRequest);
+    FirebaseAuthInterceptor() {
+        this(new IdTokenCache(new FirebaseIdTokenSource()));
     }
 
-    /*
-     * Performs a synchronous Firebase token retrieval.
-     */
-    private String getFirebaseToken() {
-        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
-        final CountDownLatch tokenRequestComplete = new CountDownLatch(1);
-        final StringBuffer tokenBuffer = new StringBuffer();
+    FirebaseAuthInterceptor(IdTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
 
-        if (firebaseUser == null) {
-            throw new IllegalStateException("Firebase user is not found");
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String token = tokenCache.getToken();
+        Response response = chain.proceed(authorize(chain.request(), token));
+
+        /*
+         * The token may have been revoked before it expired. Refresh it once and retry the
+         * request, returning the second response whatever its outcome.
+         */
+        if (response.code() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            Timber.d("ID token was rejected, retrying with a refreshed token");
+            response.close();
+            return chain.proceed(authorize(chain.request(), tokenCache.refreshToken(token)));
         }
 
-        firebaseUser
-                .getIdToken(true)
-                .addOnSuccessListener(
-                        getTokenResult -> {
-                            tokenBuffer.append(getTokenResult.getToken());
-                            tokenRequestComplete.countDown();
-                        })
-                .addOnFailureListener(
-                        e -> {
-                            Timber.e(e, FIREBASE_TOKEN_TASK_FAILED);
-                            tokenRequestComplete.countDown();
-                        });
-
-        try {
-            tokenRequestComplete.await(FIREBASE_TOKEN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Timber.e(e, FIREBASE_TOKEN_TASK_FAILED);
-        }
+        return response;
+    }
 
-        return tokenBuffer.toString();
+    private Request authorize(Request request, String token) {
+        return request.newBuilder().header(HEADER_AUTHORIZATION, token).build();
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2019 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.data.api;
+
+import androidx.annotation.Nullable;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import java.util.concurrent.TimeUnit;
+
+class FirebaseIdTokenSource implements IdTokenSource {
+
+    @Nullable
+    @Override
+    public String getUserId() {
+        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+        return firebaseUser != null ? firebaseUser.getUid() : null;
+    }
+
+    @Override
+    public void getIdToken(boolean forceRefresh, Callback callback) {
+        FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+
+        if (firebaseUser == null) {
+            throw new IllegalStateException("Firebase user is not found");
+        }
+
+        firebaseUser
+                .getIdToken(forceRefresh)
+                .addOnSuccessListener(
+                        getTokenResult ->
+                                callback.onSuccess(
+                                        getTokenResult.getToken(),
+                                        TimeUnit.SECONDS.toMillis(
+                                                getTokenResult.getExpirationTimestamp())))
+                .addOnFailureListener(callback::onFailure);
+    }
+}
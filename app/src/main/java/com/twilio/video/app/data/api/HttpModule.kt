@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.data.api
+
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.components.SingletonComponent
+import java.util.concurrent.TimeUnit
+import javax.inject.Singleton
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.Dns
+import okhttp3.OkHttpClient
+
+// The app only talks to a handful of hosts, so a few idle connections are enough
+private const val MAX_IDLE_CONNECTIONS = 4
+private const val KEEP_ALIVE_MINUTES = 5L
+// HTTP/2 multiplexes requests to the same host over one connection
+private const val MAX_REQUESTS_PER_HOST = 16
+
+@Module
+@InstallIn(SingletonComponent::class)
+class HttpModule {
+
+    @Provides
+    @Singleton
+    fun providesOkHttpClient(): OkHttpClient = buildSharedOkHttpClient()
+
+    @Provides
+    @Singleton
+    fun providesHttpPreconnector(okHttpClient: OkHttpClient) = HttpPreconnector(okHttpClient)
+
+    @Provides
+    fun providesTokenRequestPolicy() = TokenRequestPolicy()
+
+    @Provides
+    @Singleton
+    fun providesTokenRequestStats(policy: TokenRequestPolicy) = TokenRequestStats(policy)
+}
+
+/*
+ * Service clients are derived from this client with newBuilder so that they share its connection
+ * pool, dispatcher and DNS cache.
+ */
+fun buildSharedOkHttpClient(dns: Dns = CachingDns()): OkHttpClient =
+        OkHttpClient.Builder()
+                .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(Dispatcher().apply { maxRequestsPerHost = MAX_REQUESTS_PER_HOST })
+                .dns(dns)
+                .build()
@@ -0,0 +1,38 @@
+package com.twilio.video.app.data.api
+
+import java.io.IOException
+import java.util.concurrent.Executor
+import okhttp3.HttpUrl
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import timber.log.Timber
+
+/*
+ * Opens a connection to a host ahead of the first real request so DNS, TCP and TLS setup are
+ * done by the time the request is made. The connection is left in the shared connection pool for
+ * any client derived from the same OkHttpClient.
+ */
+class HttpPreconnector(
+    private val okHttpClient: OkHttpClient,
+    private val executor: Executor = okHttpClient.dispatcher().executorService()
+) {
+
+    /*
+     * Resolves the URL on a background thread, since resolving it may read secure storage.
+     */
+    fun preconnect(url: () -> String?) {
+        executor.execute {
+            val httpUrl = url()?.let { HttpUrl.parse(it) } ?: return@execute
+            val request = Request.Builder()
+                    .url(httpUrl.newBuilder().encodedPath("/").build())
+                    .head()
+                    .build()
+            try {
+                okHttpClient.newCall(request).execute().close()
+                Timber.d("Preconnected to %s", httpUrl.host())
+            } catch (e: IOException) {
+                Timber.w(e, "Failed to preconnect to %s", httpUrl.host())
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2019 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.data.api;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import timber.log.Timber;
+
+/*
+ * Caches the ID token of the signed in user. Unexpired tokens are served from memory, tokens that
+ * are close to expiring are refreshed in the background and concurrent callers share a single
+ * in flight refresh. Callers only block when there is no usable token at all. The token is scoped
+ * to the user it was issued for and dropped as soon as that user signs out or another user signs
+ * in, so logging out does not have to clear it.
+ */
+class IdTokenCache {
+    private static final long TOKEN_TIMEOUT_MS = 10000;
+    private static final long REFRESH_AHEAD_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long EXPIRY_SKEW_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final String TOKEN_TASK_FAILED = "Failed to get ID token";
+
+    private final IdTokenSource tokenSource;
+    private final Clock clock;
+    private final Object lock = new Object();
+    @Nullable private CachedToken cachedToken;
+    @Nullable private PendingRefresh pendingRefresh;
+
+    IdTokenCache(IdTokenSource tokenSource) {
+        this(tokenSource, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    IdTokenCache(IdTokenSource tokenSource, Clock clock) {
+        this.tokenSource = tokenSource;
+        this.clock = clock;
+    }
+
+    /*
+     * Returns a usable token, refreshing it in the background when it is about to expire.
+     */
+    String getToken() throws IOException {
+        PendingRefresh refresh;
+        synchronized (lock) {
+            long now = clock.currentTimeMillis();
+            CachedToken token = currentToken();
+            if (token != null && token.isUsable(now)) {
+                if (token.shouldRefresh(now)) {
+                    Timber.d("ID token expires soon, refreshing in the background");
+                    startRefresh();
+                }
+                return token.value;
+            }
+            refresh = startRefresh();
+        }
+        return refresh.await();
+    }
+
+    /*
+     * Returns a new token after the server rejected the stale token. Callers that were rejected
+     * with the same stale token share a single refresh.
+     */
+    String refreshToken(String staleToken) throws IOException {
+        PendingRefresh refresh;
+        synchronized (lock) {
+            CachedToken token = currentToken();
+            if (token != null && !token.value.equals(staleToken)) {
+                return token.value;
+            }
+            cachedToken = null;
+            refresh = startRefresh();
+        }
+        return refresh.await();
+    }
+
+    @Nullable
+    private CachedToken currentToken() {
+        CachedToken token = cachedToken;
+        if (token == null) {
+            return null;
+        }
+        String userId = tokenSource.getUserId();
+        if (userId == null || !userId.equals(token.userId)) {
+            cachedToken = null;
+            return null;
+        }
+        return token;
+    }
+
+    private PendingRefresh startRefresh() {
+        PendingRefresh refresh = pendingRefresh;
+        if (refresh == null) {
+            refresh = new PendingRefresh(tokenSource.getUserId());
+            pendingRefresh = refresh;
+            tokenSource.getIdToken(true, refresh);
+        }
+        return refresh;
+    }
+
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final class CachedToken {
+        final String userId;
+        final String value;
+        final long expirationTimestampMs;
+
+        CachedToken(String userId, String value, long expirationTimestampMs) {
+            this.userId = userId;
+            this.value = value;
+            this.expirationTimestampMs = expirationTimestampMs;
+        }
+
+        boolean isUsable(long now) {
+            return now < expirationTimestampMs - EXPIRY_SKEW_MS;
+        }
+
+        boolean shouldRefresh(long now) {
+            return now >= expirationTimestampMs - REFRESH_AHEAD_MS;
+        }
+    }
+
+    private final class PendingRefresh implements IdTokenSource.Callback {
+        private final CountDownLatch complete = new CountDownLatch(1);
+        @Nullable private final String userId;
+        @Nullable private volatile String token;
+        @Nullable private volatile Exception exception;
+
+        PendingRefresh(@Nullable String userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void onSuccess(String token, long expirationTimestampMs) {
+            synchronized (lock) {
+                if (pendingRefresh == this) {
+                    pendingRefresh = null;
+                }
+                if (token != null && userId != null) {
+                    cachedToken = new CachedToken(userId, token, expirationTimestampMs);
+                }
+            }
+            this.token = token;
+            complete.countDown();
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+            Timber.e(exception, TOKEN_TASK_FAILED);
+            synchronized (lock) {
+                if (pendingRefresh == this) {
+                    pendingRefresh = null;
+                }
+            }
+            this.exception = exception;
+            complete.countDown();
+        }
+
+        String await() throws IOException {
+            try {
+                if (!complete.await(TOKEN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    throw new IOException(TOKEN_TASK_FAILED + ": timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(TOKEN_TASK_FAILED);
+            }
+            String token = this.token;
+            if (token == null) {
+                throw new IOException(TOKEN_TASK_FAILED, exception);
+            }
+            return token;
+        }
+    }
+}
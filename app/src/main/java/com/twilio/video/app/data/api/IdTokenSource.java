@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2019 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.data.api;
+
+import androidx.annotation.Nullable;
+
+/*
+ * Asynchronous source of ID tokens for the currently signed in user.
+ */
+interface IdTokenSource {
+
+    /*
+     * Returns an identifier for the signed in user or null if no user is signed in.
+     */
+    @Nullable
+    String getUserId();
+
+    void getIdToken(boolean forceRefresh, Callback callback);
+
+    interface Callback {
+        void onSuccess(String token, long expirationTimestampMs);
+
+        void onFailure(Exception exception);
+    }
+}
@@ -0,0 +1,44 @@
+package com.twilio.video.app.data.api
+
+import java.util.concurrent.atomic.AtomicLongArray
+
+private val DEFAULT_BUCKET_BOUNDS_MS =
+        longArrayOf(50, 100, 200, 300, 500, 750, 1_000, 1_500, 2_000, 3_000, 5_000, 10_000)
+
+/*
+ * Counts latencies in fixed buckets so that recording is lock free and percentiles can be
+ * estimated without keeping individual samples. Percentiles resolve to the upper bound of the
+ * bucket that contains them.
+ */
+class LatencyHistogram(private val bucketBoundsMs: LongArray = DEFAULT_BUCKET_BOUNDS_MS) {
+
+    // The last bucket counts latencies above the largest bound
+    private val counts = AtomicLongArray(bucketBoundsMs.size + 1)
+
+    val count: Long
+        get() = snapshot().sum()
+
+    fun record(latencyMs: Long) {
+        val index = bucketBoundsMs.indexOfFirst { latencyMs <= it }
+        counts.incrementAndGet(if (index >= 0) index else bucketBoundsMs.size)
+    }
+
+    /*
+     * Returns the estimated latency below which the given fraction of samples fall, or null if
+     * nothing has been recorded yet.
+     */
+    fun percentile(fraction: Double): Long? {
+        val snapshot = snapshot()
+        val total = snapshot.sum()
+        if (total == 0L) return null
+        val rank = kotlin.math.ceil(total * fraction).toLong().coerceAtLeast(1)
+        var seen = 0L
+        snapshot.forEachIndexed { index, bucketCount ->
+            seen += bucketCount
+            if (seen >= rank) return bucketBoundsMs.getOrElse(index) { bucketBoundsMs.last() }
+        }
+        return bucketBoundsMs.last()
+    }
+
+    fun snapshot(): LongArray = LongArray(counts.length()) { counts.get(it) }
+}
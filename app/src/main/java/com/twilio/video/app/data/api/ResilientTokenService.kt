@@ -0,0 +1,151 @@
+package com.twilio.video.app.data.api
+
+import com.twilio.video.app.data.api.TokenRequestOutcome.CIRCUIT_OPEN
+import com.twilio.video.app.data.api.TokenRequestOutcome.CLIENT_ERROR
+import com.twilio.video.app.data.api.TokenRequestOutcome.FAILURE
+import com.twilio.video.app.data.api.TokenRequestOutcome.HEDGED_SUCCESS
+import com.twilio.video.app.data.api.TokenRequestOutcome.SUCCESS
+import com.twilio.video.app.data.api.TokenRequestOutcome.TIMEOUT
+import java.util.concurrent.TimeUnit
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+import timber.log.Timber
+
+/*
+ * Wraps a TokenService so that a single slow request cannot stall a join. If the first attempt has
+ * not completed within the environment's observed p95 latency, a duplicate attempt is sent and the
+ * first successful response wins. Requests the delegate does not report as idempotent are never
+ * duplicated. The whole request is bounded by the policy deadline, and a
+ * circuit breaker fails requests fast after repeated server errors or timeouts.
+ */
+class ResilientTokenService(
+    private val delegate: TokenService,
+    private val environment: () -> String,
+    private val stats: TokenRequestStats,
+    private val policy: TokenRequestPolicy = TokenRequestPolicy(),
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) : TokenService {
+
+    override suspend fun getToken(identity: String?, roomName: String?): String {
+        return request(delegate.isIdempotent(roomName)) { delegate.getToken(identity, roomName) }
+    }
+
+    override suspend fun getToken(identity: String?, roomName: String?, passcode: String?): String {
+        return request(delegate.isIdempotent(roomName)) {
+            delegate.getToken(identity, roomName, passcode)
+        }
+    }
+
+    override fun isIdempotent(roomName: String?) = delegate.isIdempotent(roomName)
+
+    override fun preconnect() {
+        delegate.preconnect()
+    }
+
+    private suspend fun request(isIdempotent: Boolean, attempt: suspend () -> String): String {
+        val environment = environment()
+        val environmentStats = stats.forEnvironment(environment)
+        val circuitBreaker = environmentStats.circuitBreaker
+        if (!circuitBreaker.tryAcquire()) {
+            Timber.w("Circuit for the %s token service is open, failing fast", environment)
+            environmentStats.record(CIRCUIT_OPEN)
+            throw AuthServiceException(message = "Token requests to $environment are failing")
+        }
+
+        val hedgeDelayMs = hedgeDelayFor(environmentStats.latency)
+        var isHedged = false
+        val token = try {
+            withTimeoutOrNull(policy.deadlineMs) {
+                if (isIdempotent) {
+                    requestHedged(hedgeDelayMs, environmentStats.latency, attempt) { isHedged = true }
+                } else {
+                    requestOnce(environmentStats.latency, attempt)
+                }
+            }
+        } catch (e: CancellationException) {
+            circuitBreaker.onCancelled()
+            throw e
+        } catch (e: Exception) {
+            if (isClientError(e)) {
+                // The service responded, so it is healthy even though it rejected the request
+                circuitBreaker.onSuccess()
+                environmentStats.record(CLIENT_ERROR)
+            } else {
+                circuitBreaker.onFailure()
+                environmentStats.record(FAILURE)
+            }
+            throw e
+        }
+
+        if (token == null) {
+            Timber.w("Token request to %s exceeded %d ms", environment, policy.deadlineMs)
+            circuitBreaker.onFailure()
+            environmentStats.record(TIMEOUT)
+            throw AuthServiceException(
+                    message = "Token request exceeded the ${policy.deadlineMs} ms deadline")
+        }
+        circuitBreaker.onSuccess()
+        environmentStats.record(if (isHedged) HEDGED_SUCCESS else SUCCESS)
+        return token
+    }
+
+    /*
+     * Sends a second attempt if the first has not completed after the hedge delay and returns the
+     * first successful result. A server failure of one attempt waits for the other, while a client
+     * error is returned right away since the other attempt would be rejected as well.
+     */
+    private suspend fun requestHedged(
+        hedgeDelayMs: Long,
+        latency: LatencyHistogram,
+        attempt: suspend () -> String,
+        onHedge: () -> Unit
+    ): String = coroutineScope {
+        val results = Channel<Result<String>>(capacity = 2)
+        val attempts = mutableListOf(launchAttempt(results, latency, attempt))
+        val first = withTimeoutOrNull(hedgeDelayMs) { results.receive() } ?: run {
+            Timber.d("Token request exceeded %d ms, sending a hedged request", hedgeDelayMs)
+            onHedge()
+            attempts += launchAttempt(results, latency, attempt)
+            results.receive()
+        }
+        val result = first.exceptionOrNull()?.let { error ->
+            if (attempts.size > 1 && !isClientError(error)) results.receive() else first
+        } ?: first
+        attempts.forEach { it.cancel() }
+        result.getOrThrow()
+    }
+
+    private suspend fun requestOnce(latency: LatencyHistogram, attempt: suspend () -> String): String {
+        val startMs = clock()
+        return attempt().also { latency.record(clock() - startMs) }
+    }
+
+    private fun CoroutineScope.launchAttempt(
+        results: SendChannel<Result<String>>,
+        latency: LatencyHistogram,
+        attempt: suspend () -> String
+    ): Job = launch {
+        val startMs = clock()
+        val result = try {
+            Result.success(attempt()).also { latency.record(clock() - startMs) }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure<String>(e)
+        }
+        results.send(result)
+    }
+
+    private fun hedgeDelayFor(latency: LatencyHistogram): Long {
+        val percentileMs = latency.takeIf { it.count >= policy.minHedgeSamples }
+                ?.percentile(policy.hedgePercentile)
+                ?: return policy.defaultHedgeDelayMs
+        return percentileMs.coerceIn(policy.minHedgeDelayMs, policy.deadlineMs)
+    }
+}
@@ -0,0 +1,17 @@
+package com.twilio.video.app.data.api
+
+/*
+ * Deadlines and thresholds for token requests. The connect and read timeouts bound each phase of
+ * a single HTTP attempt while the deadline bounds the whole request, including a hedged attempt.
+ */
+data class TokenRequestPolicy(
+    val connectTimeoutMs: Long = 5_000,
+    val readTimeoutMs: Long = 10_000,
+    val deadlineMs: Long = 15_000,
+    val hedgePercentile: Double = 0.95,
+    val minHedgeSamples: Int = 20,
+    val defaultHedgeDelayMs: Long = 2_000,
+    val minHedgeDelayMs: Long = 250,
+    val failureThreshold: Int = 3,
+    val openDurationMs: Long = 30_000
+)
@@ -0,0 +1,43 @@
+package com.twilio.video.app.data.api
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLongArray
+
+enum class TokenRequestOutcome {
+    SUCCESS,
+    HEDGED_SUCCESS,
+    CLIENT_ERROR,
+    FAILURE,
+    TIMEOUT,
+    CIRCUIT_OPEN
+}
+
+/*
+ * Keeps token request health per API environment, such as TWILIO_API_DEV_ENV, so that a slow or
+ * failing environment does not affect the hedge delay or circuit of another.
+ */
+class TokenRequestStats(
+    private val policy: TokenRequestPolicy = TokenRequestPolicy(),
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) {
+
+    private val environments = ConcurrentHashMap<String, EnvironmentStats>()
+
+    fun forEnvironment(environment: String): EnvironmentStats =
+            environments.getOrPut(environment) { EnvironmentStats(policy, clock) }
+
+    class EnvironmentStats(policy: TokenRequestPolicy, clock: () -> Long) {
+
+        // Latency of each successful attempt, which drives the hedge delay
+        val latency = LatencyHistogram()
+        val circuitBreaker = CircuitBreaker(policy.failureThreshold, policy.openDurationMs, clock)
+        private val outcomes = AtomicLongArray(TokenRequestOutcome.values().size)
+
+        fun record(outcome: TokenRequestOutcome) {
+            outcomes.incrementAndGet(outcome.ordinal)
+        }
+
+        fun count(outcome: TokenRequestOutcome): Long = outcomes.get(outcome.ordinal)
+    }
+}
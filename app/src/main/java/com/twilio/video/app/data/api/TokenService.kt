@@ -27,4 +27,16 @@ interface TokenService {
         roomName: String? = null,
         passcode: String? = null
     ): String { return "" }
+
+    /*
+     * Warms up a connection to the token endpoint so the next getToken call skips connection
+     * setup.
+     */
+    fun preconnect() {}
+
+    /*
+     * Returns whether a token request for the room can safely be sent twice, which is not the case
+     * when the request also creates the room.
+     */
+    fun isIdempotent(roomName: String?): Boolean = false
 }
@@ -18,3 +18,7 @@ package com.twilio.video.app.data.api
 
 const val TWILIO_API_DEV_ENV = "dev"
 const val TWILIO_API_STAGE_ENV = "stage"
+
+const val VIDEO_APP_SERVICE_DEV_URL = "https://app.dev.video.bytwilio.com"
+const val VIDEO_APP_SERVICE_STAGE_URL = "https://app.stage.video.bytwilio.com"
+const val VIDEO_APP_SERVICE_PROD_URL = "https://app.video.bytwilio.com"
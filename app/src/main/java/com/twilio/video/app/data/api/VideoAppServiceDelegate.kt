@@ -16,40 +16,45 @@
 
 package com.twilio.video.app.data.api
 
-import android.content.SharedPreferences
-import com.twilio.video.app.data.Preferences.ENVIRONMENT
-import com.twilio.video.app.data.Preferences.ENVIRONMENT_DEFAULT
-import com.twilio.video.app.data.Preferences.RECORD_PARTICIPANTS_ON_CONNECT
-import com.twilio.video.app.data.Preferences.RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT
-import com.twilio.video.app.data.Preferences.TOPOLOGY
-import com.twilio.video.app.data.Preferences.TOPOLOGY_DEFAULT
+import com.twilio.video.app.data.AppSettingsRepository
 import timber.log.Timber
 
 class VideoAppServiceDelegate(
-    private val sharedPreferences: SharedPreferences,
+    private val appSettingsRepository: AppSettingsRepository,
     private val videoAppServiceDev: VideoAppService,
     private val videoAppServiceStage: VideoAppService,
-    private val videoAppServiceProd: VideoAppService
+    private val videoAppServiceProd: VideoAppService,
+    private val httpPreconnector: HttpPreconnector? = null
 ) : TokenService {
 
     override suspend fun getToken(identity: String?, roomName: String?): String {
-        val topology = sharedPreferences.getString(
-                TOPOLOGY,
-                TOPOLOGY_DEFAULT)
-        val isRecordParticipantsOnConnect = sharedPreferences.getBoolean(
-                RECORD_PARTICIPANTS_ON_CONNECT,
-                RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT)
-        val env = sharedPreferences.getString(
-                ENVIRONMENT, ENVIRONMENT_DEFAULT)
-
-        val videoAppService = resolveVideoAppService(env!!)
+        val settings = appSettingsRepository.getSettings()
+
+        val videoAppService = resolveVideoAppService(settings.environment)
         Timber.d("app service env = $videoAppService")
         return videoAppService.getToken(
                 identity,
                 roomName,
                 "production",
-                topology,
-                isRecordParticipantsOnConnect)
+                settings.topology,
+                settings.recordParticipantsOnConnect)
+    }
+
+    // The token is fetched with a GET that has no side effects
+    override fun isIdempotent(roomName: String?) = true
+
+    override fun preconnect() {
+        httpPreconnector?.preconnect {
+            resolveVideoAppServiceUrl(appSettingsRepository.currentSettings.environment)
+        }
+    }
+
+    private fun resolveVideoAppServiceUrl(env: String): String {
+        return when (env) {
+            TWILIO_API_DEV_ENV -> VIDEO_APP_SERVICE_DEV_URL
+            TWILIO_API_STAGE_ENV -> VIDEO_APP_SERVICE_STAGE_URL
+            else -> VIDEO_APP_SERVICE_PROD_URL
+        }
     }
 
     private fun resolveVideoAppService(env: String): VideoAppService {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.diagnostics
+
+import java.io.File
+import java.nio.ByteBuffer
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+
+/*
+ * Binary layout of the flight recorder file. All values are big endian.
+ *
+ * Header, HEADER_SIZE bytes:
+ *   0 int magic, 4 short version, 6 short record size, 8 int capacity, 12 int reserved,
+ *   16 long number of records written this session, 24 long session start wall clock ms
+ *
+ * Record, RECORD_SIZE bytes, stored at index (sequence % capacity):
+ *   0 long wall clock ms, 8 byte kind, 9 byte reserved, 10 short code, 12 int participant count,
+ *   16..31 four int values whose meaning depends on the kind
+ *
+ * Codes are persisted, so new events must only be appended to the name tables.
+ */
+object FlightRecordFormat {
+    const val MAGIC = 0x54564652 // TVFR
+    const val VERSION = 1
+    const val HEADER_SIZE = 32
+    const val RECORD_SIZE = 32
+    const val SEQUENCE_OFFSET = 16
+    const val SESSION_START_OFFSET = 24
+
+    const val KIND_SESSION_START = 1
+    const val KIND_ROOM_EVENT = 2
+    const val KIND_VIEW_EVENT = 3
+    // Values: remote video tracks, packets lost, kilobytes received, local video round trip ms
+    const val KIND_STATS = 4
+    const val KIND_CRASH = 5
+    const val KIND_TASK_REMOVED = 6
+
+    val ROOM_EVENT_NAMES = listOf(
+            "Unknown",
+            "Connecting",
+            "Connected",
+            "Disconnected",
+            "Reconnecting",
+            "Reconnected",
+            "ConnectFailure",
+            "MaxParticipantFailure",
+            "RecordingStarted",
+            "RecordingStopped",
+            "TokenError",
+            "DominantSpeakerChanged",
+            "StatsUpdate",
+            "RemoteParticipantConnected",
+            "RemoteVideoTrackUpdated",
+            "TrackSwitchOff",
+            "ScreenTrackUpdated",
+            "MuteRemoteParticipant",
+            "NetworkQualityLevelChange",
+            "RemoteParticipantDisconnected",
+            "LocalVideoTrackUpdated",
+            "VideoEnabled",
+            "VideoDisabled",
+            "AudioOn",
+            "AudioOff",
+            "AudioEnabled",
+            "AudioDisabled",
+            "ScreenCaptureOn",
+            "ScreenCaptureOff")
+
+    val VIEW_EVENT_NAMES = listOf(
+            "Unknown",
+            "OnResume",
+            "OnPause",
+            "ToggleLocalVideo",
+            "EnableLocalVideo",
+            "DisableLocalVideo",
+            "ToggleLocalAudio",
+            "EnableLocalAudio",
+            "DisableLocalAudio",
+            "StartScreenCapture",
+            "StopScreenCapture",
+            "SwitchCamera",
+            "SelectAudioDevice",
+            "ActivateAudioDevice",
+            "DeactivateAudioDevice",
+            "Connect",
+            "PinParticipant",
+            "VideoTrackRemoved",
+            "ScreenTrackRemoved",
+            "Disconnect",
+            "ThumbnailsVisible")
+}
+
+data class FlightRecord(
+    val timestampMs: Long,
+    val kind: Int,
+    val code: Int,
+    val participantCount: Int,
+    val values: List<Int>
+) {
+    val name: String
+        get() = when (kind) {
+            FlightRecordFormat.KIND_SESSION_START -> "SessionStart"
+            FlightRecordFormat.KIND_ROOM_EVENT -> FlightRecordFormat.ROOM_EVENT_NAMES.nameAt(code)
+            FlightRecordFormat.KIND_VIEW_EVENT -> FlightRecordFormat.VIEW_EVENT_NAMES.nameAt(code)
+            FlightRecordFormat.KIND_STATS -> "Stats"
+            FlightRecordFormat.KIND_CRASH -> "Crash"
+            FlightRecordFormat.KIND_TASK_REMOVED -> "TaskRemoved"
+            else -> "Unknown()"
+        }
+
+    private fun List<String>.nameAt(code: Int) = getOrElse(code) { "Unknown()" }
+}
+
+/*
+ * Decodes flight recorder files without any Android dependencies, so that a file pulled from a
+ * device can be read on a workstation:
+ *
+ * java -cp <app classes and kotlin-stdlib> com.twilio.video.app.diagnostics.FlightRecordDecoder flight_recorder.bin
+ */
+object FlightRecordDecoder {
+
+    /*
+     * Returns the records in the order they were written, or an empty list if the data is not a
+     * flight recorder file.
+     */
+    fun decode(bytes: ByteArray): List<FlightRecord> {
+        val buffer = ByteBuffer.wrap(bytes)
+        if (bytes.size < FlightRecordFormat.HEADER_SIZE ||
+                buffer.getInt(0) != FlightRecordFormat.MAGIC ||
+                buffer.getShort(4).toInt() != FlightRecordFormat.VERSION ||
+                buffer.getShort(6).toInt() != FlightRecordFormat.RECORD_SIZE) {
+            return emptyList()
+        }
+        val capacity = buffer.getInt(8)
+        if (capacity <= 0 ||
+                bytes.size < FlightRecordFormat.HEADER_SIZE + capacity * FlightRecordFormat.RECORD_SIZE) {
+            return emptyList()
+        }
+        val sequence = buffer.getLong(FlightRecordFormat.SEQUENCE_OFFSET)
+        val first = maxOf(0, sequence - capacity)
+        return (first until sequence).map { position ->
+            val offset = FlightRecordFormat.HEADER_SIZE +
+                    (position % capacity).toInt() * FlightRecordFormat.RECORD_SIZE
+            FlightRecord(
+                    timestampMs = buffer.getLong(offset),
+                    kind = buffer.get(offset + 8).toInt(),
+                    code = buffer.getShort(offset + 10).toInt(),
+                    participantCount = buffer.getInt(offset + 12),
+                    values = List(4) { buffer.getInt(offset + 16 + it * 4) })
+        }
+    }
+
+    /*
+     * Returns true if the records end while a room was connected and without a crash marker, which
+     * means the process was killed mid call, for example by a native crash or the watchdog. A call
+     * the user ended by removing the task is not counted, unless it recorded room events after.
+     */
+    fun endedInCall(records: List<FlightRecord>): Boolean {
+        var inCall = false
+        for (record in records) {
+            when (record.kind) {
+                FlightRecordFormat.KIND_CRASH -> return false
+                FlightRecordFormat.KIND_TASK_REMOVED -> inCall = false
+                FlightRecordFormat.KIND_ROOM_EVENT -> when (FlightRecordFormat.ROOM_EVENT_NAMES.getOrNull(record.code)) {
+                    "Connected", "Reconnecting", "Reconnected" -> inCall = true
+                    "Disconnected" -> inCall = false
+                }
+            }
+        }
+        return inCall
+    }
+
+    fun format(records: List<FlightRecord>): String {
+        val dateFormat = SimpleDateFormat("HH:mm:ss.SSS", Locale.US)
+        return records.joinToString(separator = "\n") { record ->
+            val line = "${dateFormat.format(Date(record.timestampMs))} ${record.name} " +
+                    "participants=${record.participantCount}"
+            if (record.kind == FlightRecordFormat.KIND_STATS) {
+                val (videoTracks, packetsLost, kilobytesReceived, roundTripMs) = record.values
+                "$line videoTracks=$videoTracks packetsLost=$packetsLost " +
+                        "receivedKb=$kilobytesReceived rttMs=$roundTripMs"
+            } else {
+                line
+            }
+        }
+    }
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        require(args.size == 1) { "Usage: FlightRecordDecoder <flight recorder file>" }
+        println(format(decode(File(args[0]).readBytes())))
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.diagnostics
+
+import com.twilio.video.StatsReport
+import com.twilio.video.app.diagnostics.FlightRecordFormat.HEADER_SIZE
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_CRASH
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_ROOM_EVENT
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_SESSION_START
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_STATS
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_TASK_REMOVED
+import com.twilio.video.app.diagnostics.FlightRecordFormat.KIND_VIEW_EVENT
+import com.twilio.video.app.diagnostics.FlightRecordFormat.MAGIC
+import com.twilio.video.app.diagnostics.FlightRecordFormat.RECORD_SIZE
+import com.twilio.video.app.diagnostics.FlightRecordFormat.SEQUENCE_OFFSET
+import com.twilio.video.app.diagnostics.FlightRecordFormat.SESSION_START_OFFSET
+import com.twilio.video.app.diagnostics.FlightRecordFormat.VERSION
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent
+import com.twilio.video.app.ui.room.RoomViewEvent
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/*
+ * Fixed size ring of the most recent room and view events, written straight into a memory mapped
+ * file. The kernel owns the dirty pages, so the records survive the process being killed or
+ * crashing without any flush. Recording does not allocate: events are mapped to codes and written
+ * with absolute puts into preallocated slots. See FlightRecordFormat for the layout.
+ *
+ * The file is opened off the main thread as soon as the recorder is created, and the records of
+ * the previous process are kept aside so that they can be reported once the app is idle. Recording
+ * before the open completes waits for it.
+ */
+class FlightRecorder(
+    private val file: File,
+    private val capacity: Int = DEFAULT_CAPACITY,
+    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    private var buffer: MappedByteBuffer? = null
+    private var isOpened = false
+    private var sequence = 0L
+    private var remoteParticipantCount = 0
+    private var previousSession: ByteArray? = null
+
+    init {
+        require(capacity > 0) { "capacity must be positive" }
+        CoroutineScope(coroutineDispatcher).launch { synchronized(this@FlightRecorder) { open() } }
+    }
+
+    /*
+     * Returns the raw records of the previous process, if any, and forgets them.
+     */
+    @Synchronized
+    fun takePreviousSession(): ByteArray? {
+        open()
+        return previousSession.also { previousSession = null }
+    }
+
+    /*
+     * Returns a copy of the records of the current process.
+     */
+    @Synchronized
+    fun snapshot(): ByteArray? {
+        val buffer = open() ?: return null
+        return ByteArray(buffer.capacity()).also { bytes ->
+            buffer.position(0)
+            buffer.get(bytes)
+        }
+    }
+
+    @Synchronized
+    fun recordRoomEvent(roomEvent: RoomEvent) {
+        if (roomEvent is RoomEvent.StatsUpdate) {
+            recordStats(roomEvent)
+        } else {
+            record(KIND_ROOM_EVENT, roomEvent.code(), updateParticipantCount(roomEvent))
+        }
+    }
+
+    @Synchronized
+    fun recordViewEvent(viewEvent: RoomViewEvent) {
+        record(KIND_VIEW_EVENT, viewEvent.code(), remoteParticipantCount)
+    }
+
+    @Synchronized
+    fun recordCrash() {
+        record(KIND_CRASH, 0, remoteParticipantCount)
+    }
+
+    /*
+     * Marks that the user removed the task, so that a session ending right after it is not
+     * reported as an unexpected termination.
+     */
+    @Synchronized
+    fun recordTaskRemoved() {
+        record(KIND_TASK_REMOVED, 0, remoteParticipantCount)
+    }
+
+    @Synchronized
+    fun record(kind: Int, code: Int, participantCount: Int, a: Int = 0, b: Int = 0, c: Int = 0, d: Int = 0) {
+        val buffer = open() ?: return
+        val offset = HEADER_SIZE + (sequence % capacity).toInt() * RECORD_SIZE
+        buffer.putLong(offset, clock())
+        buffer.put(offset + 8, kind.toByte())
+        buffer.put(offset + 9, 0)
+        buffer.putShort(offset + 10, code.toShort())
+        buffer.putInt(offset + 12, participantCount)
+        buffer.putInt(offset + 16, a)
+        buffer.putInt(offset + 20, b)
+        buffer.putInt(offset + 24, c)
+        buffer.putInt(offset + 28, d)
+        // Publish the record only once it is complete
+        buffer.putLong(SEQUENCE_OFFSET, ++sequence)
+    }
+
+    private fun open(): MappedByteBuffer? {
+        if (isOpened) return buffer
+        isOpened = true
+        val size = HEADER_SIZE + capacity * RECORD_SIZE
+        try {
+            buffer = RandomAccessFile(file, "rw").use { randomAccessFile ->
+                randomAccessFile.setLength(size.toLong())
+                randomAccessFile.channel.map(FileChannel.MapMode.READ_WRITE, 0, size.toLong())
+            }.also { buffer ->
+                previousSession = readPreviousSession(buffer)
+                buffer.putInt(0, MAGIC)
+                buffer.putShort(4, VERSION.toShort())
+                buffer.putShort(6, RECORD_SIZE.toShort())
+                buffer.putInt(8, capacity)
+                buffer.putInt(12, 0)
+                buffer.putLong(SEQUENCE_OFFSET, 0)
+                buffer.putLong(SESSION_START_OFFSET, clock())
+            }
+        } catch (e: IOException) {
+            Timber.e(e, "Failed to open flight recorder, recording is disabled")
+            return null
+        }
+        record(KIND_SESSION_START, 0, 0)
+        return buffer
+    }
+
+    private fun readPreviousSession(buffer: MappedByteBuffer): ByteArray? {
+        if (buffer.getInt(0) != MAGIC || buffer.getLong(SEQUENCE_OFFSET) <= 0) return null
+        return ByteArray(buffer.capacity()).also { bytes ->
+            buffer.position(0)
+            buffer.get(bytes)
+        }
+    }
+
+    private fun updateParticipantCount(roomEvent: RoomEvent): Int {
+        when (roomEvent) {
+            // The local participant is part of the connected participants
+            is RoomEvent.Connected -> remoteParticipantCount = roomEvent.participants.size - 1
+            is RoomEvent.Reconnected -> remoteParticipantCount = roomEvent.remoteParticipants.size
+            is RemoteParticipantEvent.RemoteParticipantConnected -> remoteParticipantCount++
+            is RemoteParticipantEvent.RemoteParticipantDisconnected ->
+                remoteParticipantCount = maxOf(0, remoteParticipantCount - 1)
+            RoomEvent.Disconnected -> remoteParticipantCount = 0
+            else -> {}
+        }
+        return remoteParticipantCount
+    }
+
+    private fun recordStats(statsUpdate: RoomEvent.StatsUpdate) {
+        val roomStats = statsUpdate.roomStats
+        var videoTracks = 0
+        var packetsLost = 0
+        var bytesReceived = 0L
+        var roundTripTime = 0L
+        val statsReports: List<StatsReport> = roomStats.statsReports ?: emptyList()
+        // Indexed loops avoid allocating iterators for every stats update
+        for (i in statsReports.indices) {
+            val report = statsReports[i]
+            val remoteVideoTrackStats = report.remoteVideoTrackStats
+            videoTracks += remoteVideoTrackStats.size
+            for (j in remoteVideoTrackStats.indices) {
+                packetsLost += remoteVideoTrackStats[j].packetsLost
+                bytesReceived += remoteVideoTrackStats[j].bytesReceived
+            }
+            val remoteAudioTrackStats = report.remoteAudioTrackStats
+            for (j in remoteAudioTrackStats.indices) {
+                packetsLost += remoteAudioTrackStats[j].packetsLost
+                bytesReceived += remoteAudioTrackStats[j].bytesReceived
+            }
+            val localVideoTrackStats = report.localVideoTrackStats
+            for (j in localVideoTrackStats.indices) {
+                roundTripTime = maxOf(roundTripTime, localVideoTrackStats[j].roundTripTime)
+            }
+        }
+        record(KIND_STATS,
+                0,
+                roomStats.remoteParticipants.size,
+                videoTracks,
+                packetsLost,
+                (bytesReceived / 1024).toInt(),
+                roundTripTime.toInt())
+    }
+
+    companion object {
+        const val DEFAULT_CAPACITY = 256
+    }
+}
+
+/*
+ * Codes index into FlightRecordFormat.ROOM_EVENT_NAMES and VIEW_EVENT_NAMES.
+ */
+private fun RoomEvent.code(): Int = when (this) {
+    RoomEvent.Connecting -> 1
+    is RoomEvent.Connected -> 2
+    RoomEvent.Disconnected -> 3
+    RoomEvent.Reconnecting -> 4
+    is RoomEvent.Reconnected -> 5
+    RoomEvent.ConnectFailure -> 6
+    RoomEvent.MaxParticipantFailure -> 7
+    RoomEvent.RecordingStarted -> 8
+    RoomEvent.RecordingStopped -> 9
+    is RoomEvent.TokenError -> 10
+    is RoomEvent.DominantSpeakerChanged -> 11
+    is RoomEvent.StatsUpdate -> 12
+    is RemoteParticipantEvent.RemoteParticipantConnected -> 13
+    is RemoteParticipantEvent.VideoTrackUpdated -> 14
+    is RemoteParticipantEvent.TrackSwitchOff -> 15
+    is RemoteParticipantEvent.ScreenTrackUpdated -> 16
+    is RemoteParticipantEvent.MuteRemoteParticipant -> 17
+    is RemoteParticipantEvent.NetworkQualityLevelChange -> 18
+    is RemoteParticipantEvent.RemoteParticipantDisconnected -> 19
+    is LocalParticipantEvent.VideoTrackUpdated -> 20
+    LocalParticipantEvent.VideoEnabled -> 21
+    LocalParticipantEvent.VideoDisabled -> 22
+    LocalParticipantEvent.AudioOn -> 23
+    LocalParticipantEvent.AudioOff -> 24
+    LocalParticipantEvent.AudioEnabled -> 25
+    LocalParticipantEvent.AudioDisabled -> 26
+    LocalParticipantEvent.ScreenCaptureOn -> 27
+    LocalParticipantEvent.ScreenCaptureOff -> 28
+}
+
+private fun RoomViewEvent.code(): Int = when (this) {
+    RoomViewEvent.OnResume -> 1
+    RoomViewEvent.OnPause -> 2
+    RoomViewEvent.ToggleLocalVideo -> 3
+    RoomViewEvent.EnableLocalVideo -> 4
+    RoomViewEvent.DisableLocalVideo -> 5
+    RoomViewEvent.ToggleLocalAudio -> 6
+    RoomViewEvent.EnableLocalAudio -> 7
+    RoomViewEvent.DisableLocalAudio -> 8
+    is RoomViewEvent.StartScreenCapture -> 9
+    RoomViewEvent.StopScreenCapture -> 10
+    RoomViewEvent.SwitchCamera -> 11
+    is RoomViewEvent.SelectAudioDevice -> 12
+    RoomViewEvent.ActivateAudioDevice -> 13
+    RoomViewEvent.DeactivateAudioDevice -> 14
+    is RoomViewEvent.Connect -> 15
+    is RoomViewEvent.PinParticipant -> 16
+    is RoomViewEvent.VideoTrackRemoved -> 17
+    is RoomViewEvent.ScreenTrackRemoved -> 18
+    RoomViewEvent.Disconnect -> 19
+    is RoomViewEvent.ThumbnailsVisible -> 20
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.diagnostics
+
+import com.twilio.video.app.util.DeferredTreeRanger
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+/*
+ * Attaches decoded flight records to crash reports. Records of a previous process that was killed
+ * mid call are reported on the next launch, and the current records are logged when an uncaught
+ * exception reaches the handler installed by start, right before the crash reporter sees it.
+ */
+@Singleton
+class FlightRecorderReporter @Inject constructor(
+    private val flightRecorder: FlightRecorder,
+    private val treeRanger: DeferredTreeRanger
+) {
+
+    /*
+     * Must run after the tree ranger is attached, so that the crash reporter's handler is chained
+     * behind this one. The previous session is decoded off the main thread.
+     */
+    fun start() {
+        CoroutineScope(Dispatchers.IO).launch { reportPreviousSession() }
+        val defaultHandler = Thread.getDefaultUncaughtExceptionHandler()
+        Thread.setDefaultUncaughtExceptionHandler { thread, throwable ->
+            try {
+                flightRecorder.recordCrash()
+                flightRecorder.snapshot()?.let { snapshot ->
+                    treeRanger.caution(format("Flight records before crash", snapshot))
+                }
+            } catch (e: Exception) {
+                Timber.e(e, "Failed to attach flight records to crash")
+            }
+            defaultHandler?.uncaughtException(thread, throwable)
+        }
+    }
+
+    private fun reportPreviousSession() {
+        val previousSession = flightRecorder.takePreviousSession() ?: return
+        if (FlightRecordDecoder.endedInCall(FlightRecordDecoder.decode(previousSession))) {
+            treeRanger.caution(format("Flight records of previous session", previousSession))
+            treeRanger.alert(UnexpectedTerminationException())
+        }
+    }
+
+    private fun format(title: String, bytes: ByteArray) =
+            "$title\n${FlightRecordDecoder.format(FlightRecordDecoder.decode(bytes))}"
+
+    class UnexpectedTerminationException :
+            RuntimeException("Previous session ended during a call without a crash report")
+}
@@ -29,6 +29,7 @@ public class StatsListItem {
     public final int framerate;
     public final int jitter;
     public final int audioLevel;
+    public final String renderMetrics;
     public final boolean isLocalTrack;
     public final boolean isAudioTrack;
 
@@ -43,6 +44,7 @@ public class StatsListItem {
         this.framerate = builder.framerate;
         this.jitter = builder.jitter;
         this.audioLevel = builder.audioLevel;
+        this.renderMetrics = builder.renderMetrics;
         this.isLocalTrack = builder.isLocalTrack;
         this.isAudioTrack = builder.isAudioTrack;
     }
@@ -58,6 +60,7 @@ public class StatsListItem {
         private int framerate;
         private int jitter;
         private int audioLevel;
+        private String renderMetrics;
         private boolean isLocalTrack;
         private boolean isAudioTrack;
 
@@ -98,6 +101,11 @@ public class StatsListItem {
             return this;
         }
 
+        public Builder renderMetrics(String renderMetrics) {
+            this.renderMetrics = renderMetrics;
+            return this;
+        }
+
         public Builder isLocalTrack(boolean isLocalTrack) {
             this.isLocalTrack = isLocalTrack;
             return this;
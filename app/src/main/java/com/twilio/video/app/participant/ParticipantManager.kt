@@ -1,11 +1,13 @@
 package com.twilio.video.app.participant
 
 import com.twilio.video.NetworkQualityLevel
-import com.twilio.video.TrackPriority.HIGH
 import com.twilio.video.app.sdk.VideoTrackViewState
-import timber.log.Timber
+import com.twilio.video.app.util.AppLog
 
-class ParticipantManager {
+class ParticipantManager(
+    private val trackPriorityManager: TrackPriorityManager = TrackPriorityManager(),
+    private val speakerOrdering: SpeakerOrderingEngine = SpeakerOrderingEngine()
+) {
 
     private val mutableParticipants = mutableListOf<ParticipantViewState>()
     val participantThumbnails: List<ParticipantViewState> get() = mutableParticipants.toList()
@@ -19,7 +21,7 @@ class ParticipantManager {
     }
 
     fun addParticipant(participantViewState: ParticipantViewState) {
-        Timber.d("Adding participant: %s", participantViewState)
+        AppLog.d { "Adding participant: $participantViewState" }
         mutableParticipants.add(participantViewState)
         updatePrimaryParticipant()
     }
@@ -40,7 +42,7 @@ class ParticipantManager {
 
         mutableParticipants.indexOfFirst(participantMatchPredicate).let { index ->
             if (index > -1) {
-                Timber.d("Updating participant: %s", participantViewState)
+                AppLog.d { "Updating participant: $participantViewState" }
                 mutableParticipants[index] = participantViewState
                 updatePrimaryParticipant()
             }
@@ -48,7 +50,8 @@ class ParticipantManager {
     }
 
     fun removeParticipant(sid: String) {
-        Timber.d("Removing participant: %s", sid)
+        AppLog.d { "Removing participant: $sid" }
+        speakerOrdering.remove(sid)
         mutableParticipants.removeAll { it.sid == sid }
         updatePrimaryParticipant()
     }
@@ -89,21 +92,43 @@ class ParticipantManager {
         }
     }
 
-    fun changeDominantSpeaker(newDominantSpeakerSid: String?) {
-        Timber.d("new dominant speaker with sid: %s", newDominantSpeakerSid)
-        newDominantSpeakerSid?.let { sid ->
-            clearDominantSpeaker()
+    /*
+     * Returns the delay after which evaluateDominantSpeaker has to be called when the change is
+     * held back by the speaker ordering, or null if there is nothing pending.
+     */
+    fun changeDominantSpeaker(newDominantSpeakerSid: String?): Long? {
+        AppLog.d { "new dominant speaker with sid: $newDominantSpeakerSid" }
+        speakerOrdering.onDominantSpeakerChanged(newDominantSpeakerSid)
+        return evaluateDominantSpeaker()
+    }
 
-            getParticipant(newDominantSpeakerSid)?.copy(
-                    isDominantSpeaker = true)?.let { moveDominantSpeakerToTop(it) }
-        } ?: run {
-            clearDominantSpeaker()
-        }
+    fun evaluateDominantSpeaker(): Long? =
+            when (val decision = speakerOrdering.evaluate()) {
+                is SpeakerOrderingEngine.Decision.Promoted -> {
+                    promoteDominantSpeaker(decision.sid, decision.moveToFront)
+                    null
+                }
+                is SpeakerOrderingEngine.Decision.Pending -> decision.delayMs
+                SpeakerOrderingEngine.Decision.Unchanged -> null
+            }
+
+    fun updateVisibleParticipants(sids: Set<String>) {
+        trackPriorityManager.onVisibleParticipantsChanged(sids)
+        trackPriorityManager.update(mutableParticipants, primaryParticipant, speakerOrdering.recentSpeakers)
     }
 
     internal fun updateLocalParticipant(participantViewState: ParticipantViewState) =
             updateParticipant(participantViewState) { it.isLocalParticipant }
 
+    private fun promoteDominantSpeaker(sid: String?, moveToFront: Boolean) {
+        AppLog.d { "Promoting dominant speaker with sid: $sid, move to front: $moveToFront" }
+        clearDominantSpeaker()
+        sid?.let { getParticipant(it) }?.copy(isDominantSpeaker = true)?.let { dominantSpeaker ->
+            // Recent speakers are already at the front, moving them again only reorders thumbnails
+            if (moveToFront) moveDominantSpeakerToTop(dominantSpeaker) else updateParticipant(dominantSpeaker)
+        }
+    }
+
     private fun moveDominantSpeakerToTop(newDominantSpeaker: ParticipantViewState) {
         if (mutableParticipants.size > 1) {
             mutableParticipants.removeAll { it.sid == newDominantSpeaker.sid }
@@ -117,6 +142,37 @@ class ParticipantManager {
                 isDominantSpeaker = false)?.let { updateParticipant(it) }
     }
 
+    /*
+     * Applies the remote participants reported by the room after a reconnect as a diff, so
+     * participants whose state did not change keep the same view state and video track sinks.
+     */
+    fun reconcileRemoteParticipants(remoteParticipants: List<ParticipantViewState>) {
+        val remoteSids = remoteParticipants.map { it.sid }.toSet()
+        val removed = mutableParticipants.removeAll { !it.isLocalParticipant && it.sid !in remoteSids }
+        var changed = removed
+        remoteParticipants.forEach { latest ->
+            val index = mutableParticipants.indexOfFirst { it.sid == latest.sid }
+            if (index > -1) {
+                val existing = mutableParticipants[index]
+                val merged = existing.copy(
+                        identity = latest.identity,
+                        videoTrack = if (existing.videoTrack?.videoTrack == latest.videoTrack?.videoTrack)
+                            existing.videoTrack else latest.videoTrack,
+                        isMuted = latest.isMuted,
+                        networkQualityLevel = latest.networkQualityLevel)
+                if (merged != existing) {
+                    mutableParticipants[index] = merged
+                    changed = true
+                }
+            } else {
+                mutableParticipants.add(latest)
+                changed = true
+            }
+        }
+        AppLog.d { "Reconciled remote participants, changed: $changed" }
+        if (changed) updatePrimaryParticipant()
+    }
+
     fun clearRemoteParticipants() {
         mutableParticipants.removeAll { !it.isLocalParticipant }
         updatePrimaryParticipant()
@@ -124,12 +180,14 @@ class ParticipantManager {
 
     private fun updatePrimaryParticipant() {
         primaryParticipant = retrievePrimaryParticipant()
-        Timber.d("Participant Cache: $mutableParticipants")
-        Timber.d("Primary Participant: $primaryParticipant")
+        AppLog.d { "Participant Cache: $mutableParticipants" }
+        AppLog.d { "Primary Participant: $primaryParticipant" }
     }
 
     private fun retrievePrimaryParticipant(): ParticipantViewState =
-            determinePrimaryParticipant().apply { setTrackPriority(this) }
+            determinePrimaryParticipant().also {
+                trackPriorityManager.update(mutableParticipants, it, speakerOrdering.recentSpeakers)
+            }
 
     private fun determinePrimaryParticipant(): ParticipantViewState {
         return mutableParticipants.find { it.isPinned }
@@ -138,42 +196,4 @@ class ParticipantManager {
                 ?: mutableParticipants.find { !it.isLocalParticipant }
                 ?: mutableParticipants[0] // local participant
     }
-
-    private fun setTrackPriority(participant: ParticipantViewState) {
-        if (participant.sid != primaryParticipant.sid) {
-            when {
-                participant.isScreenSharing -> {
-                    participant.getRemoteScreenTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting screen track priority to high for participant with sid: ${participant.sid}")
-                    }
-                }
-                participant.isDominantSpeaker -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = null
-                        clearOldTrackPriorities()
-                        Timber.d("Clearing dominant speaker priority for participant with sid: ${participant.sid}")
-                    }
-                }
-                else -> {
-                    participant.getRemoteVideoTrack()?.let {
-                        it.priority = HIGH
-                        clearOldTrackPriorities()
-                        Timber.d("Setting video track priority to high for participant with sid: ${participant.sid}")
-                    }
-                }
-            }
-        }
-
-        if (participant.isLocalParticipant) clearOldTrackPriorities()
-    }
-
-    private fun clearOldTrackPriorities() {
-        primaryParticipant.run {
-            getRemoteVideoTrack()?.priority = null
-            getRemoteScreenTrack()?.priority = null
-            Timber.d("Clearing video and screen track priorities for participant with sid: $sid")
-        }
-    }
 }
@@ -25,6 +25,12 @@ data class ParticipantViewState(
 
     fun getRemoteScreenTrack(): RemoteVideoTrack? =
             if (!isLocalParticipant) screenTrack?.videoTrack as RemoteVideoTrack? else null
+
+    /*
+     * The remote track the primary view renders, where a screen share takes precedence over the
+     * camera.
+     */
+    fun getRenderedRemoteTrack(): RemoteVideoTrack? = getRemoteScreenTrack() ?: getRemoteVideoTrack()
 }
 
 fun buildParticipantViewState(participant: Participant): ParticipantViewState {
@@ -0,0 +1,85 @@
+package com.twilio.video.app.participant
+
+import java.util.concurrent.TimeUnit
+
+/*
+ * minDominanceMs is how long a new speaker has to stay dominant before being promoted, and
+ * minHoldMs how long a promoted speaker is kept before anyone else can replace them.
+ */
+data class SpeakerOrderingPolicy(
+    val minDominanceMs: Long = 1000,
+    val minHoldMs: Long = 3000,
+    val recentSpeakerCount: Int = 3
+)
+
+/*
+ * Smooths the dominant speaker reported by the SDK, which can change several times a second in a
+ * lively discussion. A speaker is only promoted once they have been dominant for a while and the
+ * current speaker has been held long enough, so back and forth changes in between are coalesced.
+ *
+ * Promoted speakers are kept in a small LRU. Only a speaker entering the LRU needs to move to the
+ * front of the thumbnails; a recent speaker is already there and keeps their position.
+ */
+class SpeakerOrderingEngine(
+    private val policy: SpeakerOrderingPolicy = SpeakerOrderingPolicy(),
+    private val clock: () -> Long = { TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) }
+) {
+
+    private val mutableRecentSpeakers = ArrayDeque<String>()
+    // Most recent first
+    val recentSpeakers: List<String> get() = mutableRecentSpeakers
+    private var hasPromoted = false
+    private var promotedAtMs = 0L
+    private var candidate: String? = null
+    private var candidateSinceMs = 0L
+
+    var promotedSpeaker: String? = null
+        private set
+
+    fun onDominantSpeakerChanged(sid: String?) {
+        if (sid != candidate) {
+            candidate = sid
+            candidateSinceMs = clock()
+        }
+    }
+
+    /*
+     * Promotes the candidate if the hold and dominance times allow it. Returns the result, along
+     * with when to evaluate again if the candidate is still waiting.
+     */
+    fun evaluate(): Decision {
+        val candidate = candidate
+        if (hasPromoted && candidate == promotedSpeaker) return Decision.Unchanged
+        val now = clock()
+        if (hasPromoted) {
+            val waitMs = maxOf(
+                    candidateSinceMs + policy.minDominanceMs - now,
+                    promotedAtMs + policy.minHoldMs - now)
+            if (waitMs > 0) return Decision.Pending(waitMs)
+        }
+        hasPromoted = true
+        promotedAtMs = now
+        promotedSpeaker = candidate
+        return Decision.Promoted(candidate, candidate != null && admit(candidate))
+    }
+
+    fun isRecentSpeaker(sid: String?) = sid in mutableRecentSpeakers
+
+    fun remove(sid: String) {
+        mutableRecentSpeakers.remove(sid)
+    }
+
+    // Returns true if the speaker was not recent yet
+    private fun admit(sid: String): Boolean {
+        val wasRecent = mutableRecentSpeakers.remove(sid)
+        mutableRecentSpeakers.addFirst(sid)
+        while (mutableRecentSpeakers.size > policy.recentSpeakerCount) mutableRecentSpeakers.removeLast()
+        return !wasRecent
+    }
+
+    sealed class Decision {
+        object Unchanged : Decision()
+        data class Pending(val delayMs: Long) : Decision()
+        data class Promoted(val sid: String?, val moveToFront: Boolean) : Decision()
+    }
+}
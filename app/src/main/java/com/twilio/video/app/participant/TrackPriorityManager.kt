@@ -0,0 +1,133 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority
+import com.twilio.video.app.util.AppLog
+
+/*
+ * Ranks every remote video track, most important first.
+ */
+enum class TrackTier {
+    PRIMARY,
+    PINNED,
+    RECENT_SPEAKER,
+    VISIBLE,
+    HIDDEN
+}
+
+/*
+ * The budget and costs are estimates in kbps of what the media server forwards for a track at each
+ * priority. Hidden tracks are switched off, so they cost nothing. A budget of zero or less is
+ * unlimited.
+ */
+data class TrackPriorityPolicy(
+    val budgetKbps: Int = 2400,
+    val highCostKbps: Int = 1200,
+    val standardCostKbps: Int = 400,
+    val lowCostKbps: Int = 100
+)
+
+/*
+ * Assigns a tier to every remote video track and derives its priority. Tracks are served in tier
+ * order, and a track is demoted to a lower priority once the bandwidth budget cannot afford the
+ * priority of its tier. The SDK is only called for tracks whose priority actually changed. Recent
+ * speakers are the ones promoted by the SpeakerOrderingEngine, most recent first.
+ *
+ * A dominant speaker shown as primary keeps a null priority, so the dominant speaker priority of
+ * the bandwidth profile applies to it.
+ */
+class TrackPriorityManager(private val policy: TrackPriorityPolicy = TrackPriorityPolicy()) {
+
+    private var visibleSids: Set<String>? = null
+    private val assignments = HashMap<RemoteVideoTrack, Assignment>()
+    private val candidates = ArrayList<Candidate>()
+    private val candidateOrder = compareBy<Candidate>({ it.tier }, { it.recency })
+
+    /*
+     * Null until the thumbnails report what is on screen, in which case every thumbnail counts as
+     * visible.
+     */
+    fun onVisibleParticipantsChanged(sids: Set<String>?) {
+        visibleSids = sids
+    }
+
+    fun update(
+        participants: List<ParticipantViewState>,
+        primary: ParticipantViewState,
+        recentSpeakers: List<String>
+    ) {
+        candidates.clear()
+        for (participant in participants) {
+            if (participant.isLocalParticipant) continue
+            val isPrimary = participant.sid == primary.sid
+            val recency = recentSpeakers.indexOf(participant.sid).let { if (it >= 0) it else Int.MAX_VALUE }
+            participant.getRemoteScreenTrack()?.let { screenTrack ->
+                val tier = if (isPrimary) TrackTier.PRIMARY else TrackTier.HIDDEN
+                candidates.add(Candidate(screenTrack, tier, recency))
+            }
+            participant.getRemoteVideoTrack()?.let { videoTrack ->
+                val tier = if (isPrimary && !participant.isScreenSharing) TrackTier.PRIMARY else tierOf(participant, recentSpeakers)
+                candidates.add(Candidate(videoTrack, tier, recency))
+            }
+        }
+        // Stable, so tracks of the same tier keep the thumbnail order after the most recent speakers
+        candidates.sortWith(candidateOrder)
+
+        var remainingKbps = if (policy.budgetKbps > 0) policy.budgetKbps else Int.MAX_VALUE
+        val isDominantSpeakerPrimary = primary.isDominantSpeaker && !primary.isPinned && !primary.isScreenSharing
+        for (candidate in candidates) {
+            var priority = priorityOf(candidate.tier)
+            var cost = costOf(candidate.tier, priority)
+            while (cost > remainingKbps && priority != TrackPriority.LOW) {
+                priority = if (priority == TrackPriority.HIGH) TrackPriority.STANDARD else TrackPriority.LOW
+                cost = costOf(candidate.tier, priority)
+            }
+            remainingKbps -= cost
+            val sdkPriority = if (candidate.tier == TrackTier.PRIMARY && isDominantSpeakerPrimary) null else priority
+            apply(candidate, sdkPriority)
+        }
+
+        // Forget tracks that were unsubscribed
+        assignments.keys.retainAll(candidates.mapTo(HashSet()) { it.track })
+    }
+
+    fun tierOf(track: RemoteVideoTrack): TrackTier? = assignments[track]?.tier
+
+    private fun tierOf(participant: ParticipantViewState, recentSpeakers: List<String>): TrackTier = when {
+        participant.isPinned -> TrackTier.PINNED
+        participant.sid in recentSpeakers -> TrackTier.RECENT_SPEAKER
+        visibleSids?.contains(participant.sid) != false -> TrackTier.VISIBLE
+        else -> TrackTier.HIDDEN
+    }
+
+    private fun apply(candidate: Candidate, priority: TrackPriority?) {
+        val assignment = assignments[candidate.track]
+        if (assignment == null || assignment.priority != priority) {
+            AppLog.d { "Setting priority of ${candidate.track.sid} to $priority, tier ${candidate.tier}" }
+            candidate.track.priority = priority
+        }
+        if (assignment == null) {
+            assignments[candidate.track] = Assignment(candidate.tier, priority)
+        } else {
+            assignment.tier = candidate.tier
+            assignment.priority = priority
+        }
+    }
+
+    private fun priorityOf(tier: TrackTier) = when (tier) {
+        TrackTier.PRIMARY -> TrackPriority.HIGH
+        TrackTier.PINNED, TrackTier.RECENT_SPEAKER -> TrackPriority.STANDARD
+        TrackTier.VISIBLE, TrackTier.HIDDEN -> TrackPriority.LOW
+    }
+
+    private fun costOf(tier: TrackTier, priority: TrackPriority) = when {
+        tier == TrackTier.HIDDEN -> 0
+        priority == TrackPriority.HIGH -> policy.highCostKbps
+        priority == TrackPriority.STANDARD -> policy.standardCostKbps
+        else -> policy.lowCostKbps
+    }
+
+    private class Candidate(val track: RemoteVideoTrack, val tier: TrackTier, val recency: Int)
+
+    private class Assignment(var tier: TrackTier, var priority: TrackPriority?)
+}
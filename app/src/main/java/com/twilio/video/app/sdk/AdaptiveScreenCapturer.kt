@@ -0,0 +1,174 @@
+package com.twilio.video.app.sdk
+
+import android.content.Context
+import android.os.Handler
+import com.twilio.video.ScreenCapturer
+import com.twilio.video.VideoCapturer
+import java.util.concurrent.TimeUnit
+import tvi.webrtc.CapturerObserver
+import tvi.webrtc.SurfaceTextureHelper
+import tvi.webrtc.VideoFrame
+
+/*
+ * Passes the frames of a ScreenCapturer through a ScreenContentFilter before they are encoded, and
+ * scales the forwarded frames down to the resolution of the current motion. Frames are compared on
+ * a copy scaled down by ANALYSIS_DOWNSCALE, which is read back from the texture on the capturer
+ * thread. Halving averages each 2x2 block, bilinear sampling falls between the texel centers, so
+ * every source pixel contributes to the analysis.
+ *
+ * The screen only produces frames when it changes, so a frame that arrives before it is due is
+ * held and compared once it is, instead of dropping what may be the last change for a while.
+ * Holding a texture frame keeps the capturer from delivering the next one until it is released, so
+ * only the latest frame waits. For the same reason a dropped frame is copied at its forwarded size
+ * and the copy is forwarded once the keep alive interval expires, unless a newer frame arrives.
+ */
+class AdaptiveScreenCapturer(
+    private val screenCapturer: ScreenCapturer,
+    val filter: ScreenContentFilter = ScreenContentFilter()
+) : VideoCapturer {
+
+    override fun initialize(
+        surfaceTextureHelper: SurfaceTextureHelper,
+        context: Context,
+        capturerObserver: CapturerObserver
+    ) {
+        screenCapturer.initialize(surfaceTextureHelper, context,
+                FilteringObserver(capturerObserver, surfaceTextureHelper.handler))
+    }
+
+    override fun startCapture(width: Int, height: Int, framerate: Int) {
+        filter.reset()
+        screenCapturer.startCapture(width, height, framerate)
+    }
+
+    override fun stopCapture() = screenCapturer.stopCapture()
+
+    override fun dispose() = screenCapturer.dispose()
+
+    override fun isScreencast() = screenCapturer.isScreencast
+
+    private inner class FilteringObserver(
+        private val observer: CapturerObserver,
+        private val handler: Handler
+    ) : CapturerObserver {
+
+        private var heldFrame: VideoFrame? = null
+        private val deliverHeldFrame = Runnable {
+            heldFrame?.let { frame ->
+                heldFrame = null
+                onDueFrame(frame)
+                frame.release()
+            }
+        }
+        private var keepAliveFrame: VideoFrame? = null
+        private val deliverKeepAliveFrame = Runnable {
+            keepAliveFrame?.let { frame ->
+                keepAliveFrame = null
+                filter.onKeepAlive(frame.timestampNs)
+                observer.onFrameCaptured(frame)
+                frame.release()
+            }
+        }
+
+        override fun onCapturerStarted(success: Boolean) = observer.onCapturerStarted(success)
+
+        override fun onCapturerStopped() {
+            releaseHeldFrame()
+            releaseKeepAliveFrame()
+            observer.onCapturerStopped()
+        }
+
+        override fun onFrameCaptured(frame: VideoFrame) {
+            releaseHeldFrame()
+            releaseKeepAliveFrame()
+            val delayNs = filter.delayNs(frame.timestampNs)
+            if (delayNs > 0) {
+                frame.retain()
+                heldFrame = frame
+                handler.postDelayed(deliverHeldFrame, TimeUnit.NANOSECONDS.toMillis(delayNs))
+            } else {
+                onDueFrame(frame)
+            }
+        }
+
+        private fun releaseHeldFrame() {
+            heldFrame?.let { frame ->
+                heldFrame = null
+                handler.removeCallbacks(deliverHeldFrame)
+                filter.onDropped()
+                frame.release()
+            }
+        }
+
+        private fun releaseKeepAliveFrame() {
+            keepAliveFrame?.let { frame ->
+                keepAliveFrame = null
+                handler.removeCallbacks(deliverKeepAliveFrame)
+                frame.release()
+            }
+        }
+
+        private fun onDueFrame(frame: VideoFrame) {
+            if (!isForwarded(frame)) {
+                scheduleKeepAlive(frame)
+                return
+            }
+            val buffer = frame.buffer
+            val (width, height) = filter.motion.fit(buffer.width, buffer.height)
+            if (width == buffer.width && height == buffer.height) {
+                observer.onFrameCaptured(frame)
+            } else {
+                val scaledFrame = VideoFrame(
+                        buffer.cropAndScale(0, 0, buffer.width, buffer.height, width, height),
+                        frame.rotation,
+                        frame.timestampNs)
+                observer.onFrameCaptured(scaledFrame)
+                scaledFrame.release()
+            }
+        }
+
+        /*
+         * The copy carries the time it is forwarded at, so that timestamps keep increasing.
+         */
+        private fun scheduleKeepAlive(frame: VideoFrame) {
+            val buffer = frame.buffer
+            val (width, height) = filter.motion.fit(buffer.width, buffer.height)
+            val scaledBuffer = if (width == buffer.width && height == buffer.height) {
+                buffer.also { it.retain() }
+            } else {
+                buffer.cropAndScale(0, 0, buffer.width, buffer.height, width, height)
+            }
+            val copy = try {
+                scaledBuffer.toI420()
+            } finally {
+                scaledBuffer.release()
+            } ?: return
+            val delayNs = filter.keepAliveDelayNs(frame.timestampNs)
+            keepAliveFrame = VideoFrame(copy, frame.rotation, frame.timestampNs + delayNs)
+            handler.postDelayed(deliverKeepAliveFrame, TimeUnit.NANOSECONDS.toMillis(delayNs))
+        }
+
+        private fun isForwarded(frame: VideoFrame): Boolean {
+            val buffer = frame.buffer
+            val analysisBuffer = buffer.cropAndScale(0, 0, buffer.width, buffer.height,
+                    maxOf(buffer.width / ANALYSIS_DOWNSCALE, 1), maxOf(buffer.height / ANALYSIS_DOWNSCALE, 1))
+            val i420Buffer = analysisBuffer.toI420()
+            analysisBuffer.release()
+            // The frame is forwarded when its content cannot be read
+            i420Buffer ?: return true
+            return try {
+                filter.onContent(frame.timestampNs, i420Buffer.dataY, i420Buffer.strideY,
+                        i420Buffer.width, i420Buffer.height)
+            } finally {
+                i420Buffer.release()
+            }
+        }
+    }
+
+    companion object {
+        /*
+         * Larger factors would skip pixels, since a texture is sampled bilinearly.
+         */
+        const val ANALYSIS_DOWNSCALE = 2
+    }
+}
@@ -2,7 +2,6 @@ package com.twilio.video.app.sdk
 
 import android.content.Context
 import android.content.Intent
-import android.content.SharedPreferences
 import com.twilio.video.LocalAudioTrack
 import com.twilio.video.LocalParticipant
 import com.twilio.video.LocalTrackPublicationOptions
@@ -11,9 +10,7 @@ import com.twilio.video.ScreenCapturer
 import com.twilio.video.TrackPriority
 import com.twilio.video.VideoFormat
 import com.twilio.video.app.R
-import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION
-import com.twilio.video.app.data.Preferences.VIDEO_CAPTURE_RESOLUTION_DEFAULT
-import com.twilio.video.app.data.Preferences.VIDEO_DIMENSIONS
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioDisabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioEnabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioOff
@@ -24,7 +21,6 @@ import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoDisable
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoTrackUpdated
 import com.twilio.video.app.util.CameraCapturerCompat
-import com.twilio.video.app.util.get
 import com.twilio.video.ktx.createLocalAudioTrack
 import com.twilio.video.ktx.createLocalVideoTrack
 import timber.log.Timber
@@ -32,7 +28,7 @@ import timber.log.Timber
 class LocalParticipantManager(
     private val context: Context,
     private val roomManager: RoomManager,
-    private val sharedPreferences: SharedPreferences
+    private val appSettingsRepository: AppSettingsRepository
 ) {
 
     private var localAudioTrack: LocalAudioTrack? = null
@@ -118,8 +114,8 @@ class LocalParticipantManager(
         screenCapturer = ScreenCapturer(context, captureResultCode, captureIntent,
                 screenCapturerListener)
         screenCapturer?.let { screenCapturer ->
-            screenVideoTrack = createLocalVideoTrack(context, true, screenCapturer,
-                    name = SCREEN_TRACK_NAME)
+            screenVideoTrack = createLocalVideoTrack(context, true,
+                    AdaptiveScreenCapturer(screenCapturer), name = SCREEN_TRACK_NAME)
             screenVideoTrack?.let { screenVideoTrack ->
                 localVideoTrackNames[screenVideoTrack.name] =
                         context.getString(R.string.screen_video_track)
@@ -141,6 +137,10 @@ class LocalParticipantManager(
     fun publishLocalTracks() {
         publishAudioTrack(localAudioTrack)
         publishCameraTrack(cameraVideoTrack)
+        // A screen share survives an automatic rejoin
+        screenVideoTrack?.let {
+            localParticipant?.publishTrack(it, LocalTrackPublicationOptions(TrackPriority.HIGH))
+        }
     }
 
     fun switchCamera() = cameraCapturer?.switchCamera()
@@ -175,9 +175,7 @@ class LocalParticipantManager(
             localAudioTrack?.let { localParticipant?.unpublishTrack(it) }
 
     private fun setupLocalVideoTrack() {
-        val dimensionsIndex = sharedPreferences.get(VIDEO_CAPTURE_RESOLUTION,
-                VIDEO_CAPTURE_RESOLUTION_DEFAULT).toInt()
-        val videoFormat = VideoFormat(VIDEO_DIMENSIONS[dimensionsIndex], 30)
+        val videoFormat = VideoFormat(appSettingsRepository.currentSettings.videoCaptureDimensions, 30)
 
         cameraCapturer = CameraCapturerCompat.newInstance(context)
         cameraVideoTrack = cameraCapturer?.let { cameraCapturer ->
@@ -0,0 +1,138 @@
+package com.twilio.video.app.sdk
+
+import java.util.concurrent.TimeUnit
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+/*
+ * Upper bounds in milliseconds of the inter-frame gap buckets. Longer gaps fall into an extra last
+ * bucket.
+ */
+val FRAME_GAP_BUCKETS_MS = longArrayOf(40, 70, 100, 200, 500)
+
+data class RenderMetrics(
+    val fps: Float,
+    val width: Int,
+    val height: Int,
+    val frameSizeChanges: Int,
+    val timeToFirstFrameMs: Long?,
+    val frameGaps: List<Int>,
+    val renderedFrames: Long = 0,
+    val throttledFrames: Long = 0
+) {
+    fun format(): String {
+        val firstFrame = timeToFirstFrameMs?.let { "$it ms" } ?: "pending"
+        val gaps = frameGaps.mapIndexed { index, count ->
+            val bound = FRAME_GAP_BUCKETS_MS.getOrNull(index)?.let { "<$it" }
+                    ?: ">${FRAME_GAP_BUCKETS_MS.last()}"
+            "$bound: $count"
+        }.joinToString()
+        return ("%.1f fps, %dx%d, %d size changes\n%d rendered, %d throttled\nfirst frame %s\n" +
+                "gaps (ms) %s").format(fps, width, height, frameSizeChanges, renderedFrames,
+                throttledFrames, firstFrame, gaps)
+    }
+}
+
+/*
+ * Measures the frames delivered to sink: the frame rate over the last second, a histogram of the
+ * gaps between frames, frame size changes and the time from binding the sink to a track to its
+ * first frame. Comparing these with the network stats of the track tells whether choppy video is
+ * caused by the network, the decoder or the UI. Behind a ThrottledVideoSink it only measures the
+ * frames that are rendered.
+ */
+class MeteredVideoSink(
+    private val sink: VideoSink,
+    private val clock: () -> Long = System::nanoTime
+) : VideoSink {
+
+    private var boundNs = clock()
+    private var timeToFirstFrameMs: Long? = null
+    private var isAttachedWithoutFrame = true
+    private var lastFrameNs = 0L
+    private var windowStartNs = 0L
+    private var windowFrames = 0
+    private var renderedFrames = 0L
+    private var fps = 0f
+    private var width = 0
+    private var height = 0
+    private var frameSizeChanges = 0
+    private val frameGaps = IntArray(FRAME_GAP_BUCKETS_MS.size + 1)
+
+    /*
+     * Starts measuring the time to first frame, called by VideoSinkRouter when the sink is bound to
+     * a new track. It is kept while the sink is detached and attached again.
+     */
+    @Synchronized
+    fun onBound() {
+        boundNs = clock()
+        timeToFirstFrameMs = null
+    }
+
+    /*
+     * Starts a new measurement of the rate, gaps and sizes, called by VideoSinkRouter whenever the
+     * sink is attached to a track.
+     */
+    @Synchronized
+    fun onAttached() {
+        isAttachedWithoutFrame = true
+        windowFrames = 0
+        renderedFrames = 0
+        fps = 0f
+        width = 0
+        height = 0
+        frameSizeChanges = 0
+        frameGaps.fill(0)
+    }
+
+    override fun onFrame(frame: VideoFrame) {
+        synchronized(this) {
+            val nowNs = clock()
+            renderedFrames++
+            if (timeToFirstFrameMs == null) {
+                timeToFirstFrameMs = TimeUnit.NANOSECONDS.toMillis(nowNs - boundNs)
+            }
+            if (isAttachedWithoutFrame) {
+                isAttachedWithoutFrame = false
+                windowStartNs = nowNs
+            } else {
+                val gapMs = TimeUnit.NANOSECONDS.toMillis(nowNs - lastFrameNs)
+                val bucket = FRAME_GAP_BUCKETS_MS.indexOfFirst { gapMs < it }
+                frameGaps[if (bucket < 0) FRAME_GAP_BUCKETS_MS.size else bucket]++
+                windowFrames++
+            }
+            lastFrameNs = nowNs
+            if (nowNs - windowStartNs >= WINDOW_NS) {
+                fps = (windowFrames.toDouble() * WINDOW_NS / (nowNs - windowStartNs)).toFloat()
+                windowStartNs = nowNs
+                windowFrames = 0
+            }
+
+            val frameWidth = frame.rotatedWidth
+            val frameHeight = frame.rotatedHeight
+            if (frameWidth != width || frameHeight != height) {
+                if (width != 0) frameSizeChanges++
+                width = frameWidth
+                height = frameHeight
+            }
+        }
+        sink.onFrame(frame)
+    }
+
+    @Synchronized
+    fun metrics(): RenderMetrics {
+        // The rate of the last full window is stale once frames stop arriving
+        val isStalled = isAttachedWithoutFrame || clock() - lastFrameNs >= WINDOW_NS
+        return RenderMetrics(
+                if (isStalled) 0f else fps,
+                width,
+                height,
+                frameSizeChanges,
+                timeToFirstFrameMs,
+                frameGaps.toList(),
+                renderedFrames)
+    }
+
+    companion object {
+        private val WINDOW_NS = TimeUnit.SECONDS.toNanos(1)
+    }
+}
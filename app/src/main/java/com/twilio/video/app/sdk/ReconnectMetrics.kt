@@ -0,0 +1,49 @@
+package com.twilio.video.app.sdk
+
+import android.os.SystemClock
+
+/*
+ * Tracks how often the signaling connection to a room is lost and how long it takes to recover.
+ */
+class ReconnectMetrics(private val elapsedRealtime: () -> Long = SystemClock::elapsedRealtime) {
+
+    private var reconnectingSince: Long? = null
+    var reconnectCount = 0
+        private set
+    var lastReconnectDurationMs = 0L
+        private set
+    var totalReconnectDurationMs = 0L
+        private set
+    val isReconnecting get() = reconnectingSince != null
+
+    fun onReconnecting() {
+        if (reconnectingSince == null) reconnectingSince = elapsedRealtime()
+    }
+
+    /*
+     * Returns the duration of the reconnect that just completed.
+     */
+    fun onReconnected(): Long {
+        val duration = reconnectingSince?.let { elapsedRealtime() - it } ?: 0L
+        reconnectingSince = null
+        reconnectCount++
+        lastReconnectDurationMs = duration
+        totalReconnectDurationMs += duration
+        return duration
+    }
+
+    fun onDisconnected() {
+        reconnectingSince = null
+    }
+
+    fun reset() {
+        reconnectingSince = null
+        reconnectCount = 0
+        lastReconnectDurationMs = 0L
+        totalReconnectDurationMs = 0L
+    }
+
+    override fun toString() =
+            "ReconnectMetrics(count=$reconnectCount, lastMs=$lastReconnectDurationMs, " +
+                    "totalMs=$totalReconnectDurationMs)"
+}
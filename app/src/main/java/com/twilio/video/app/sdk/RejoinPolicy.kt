@@ -0,0 +1,29 @@
+package com.twilio.video.app.sdk
+
+import kotlin.math.min
+import kotlin.math.pow
+import kotlin.random.Random
+
+/*
+ * Controls how RoomManager retries after losing a room unexpectedly. Attempt delays grow
+ * exponentially and are jittered so clients dropped by the same network event do not rejoin in
+ * lockstep.
+ */
+class RejoinPolicy(
+    val maxAttempts: Int = 5,
+    private val initialDelayMs: Long = 1000,
+    private val maxDelayMs: Long = 16000,
+    private val multiplier: Double = 2.0,
+    private val jitter: Double = 0.5,
+    private val random: Random = Random.Default
+) {
+
+    /*
+     * Returns the delay before the given zero-based attempt. The delay is picked uniformly from
+     * the upper (1 - jitter) to 1 fraction of the exponential backoff.
+     */
+    fun delayFor(attempt: Int): Long {
+        val backoff = min(maxDelayMs.toDouble(), initialDelayMs * multiplier.pow(attempt))
+        return (backoff * (1 - jitter * random.nextDouble())).toLong()
+    }
+}
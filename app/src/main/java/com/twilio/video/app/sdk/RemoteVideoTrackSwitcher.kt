@@ -0,0 +1,113 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.util.AppLog
+
+/*
+ * Switches remote video tracks off while nobody can see them, which stops the media server from
+ * sending them and the device from decoding them. Requires ClientTrackSwitchOffControl.MANUAL,
+ * otherwise the SDK ignores the requests.
+ */
+class RemoteVideoTrackSwitcher {
+
+    private val switchedOffTracks = HashSet<RemoteVideoTrack>()
+    private val currentTracks = HashSet<RemoteVideoTrack>()
+    private val unlistedTracks = HashSet<RemoteVideoTrack>()
+    private var alwaysOnTrack: RemoteVideoTrack? = null
+    // Visible tracks switched off while the video is in the background
+    private val backgroundTracks = HashSet<RemoteVideoTrack>()
+
+    var isEnabled = true
+        set(value) {
+            field = value
+            if (!value) switchAllOn()
+        }
+
+    /*
+     * Switches off the visible tracks too while no video is shown at all. Tracks keep their
+     * visibility, so leaving the background only switches on the tracks that are on screen.
+     */
+    var isInBackground = false
+        set(value) {
+            if (field == value) return
+            field = value
+            if (!isEnabled) return
+            if (value) {
+                currentTracks.filterNotTo(backgroundTracks) { it in switchedOffTracks }
+                unlistedTracks.filterNotTo(backgroundTracks) { it in switchedOffTracks }
+                AppLog.d { "Switching off ${backgroundTracks.size} visible tracks in the background" }
+                backgroundTracks.forEach { it.switchOff() }
+            } else {
+                backgroundTracks.forEach { it.switchOn() }
+                backgroundTracks.clear()
+            }
+        }
+
+    /*
+     * Tracks at an index outside visibleRange are switched off, unless they are the alwaysOn track,
+     * while tracks that became visible again are switched back on. Null entries are ignored.
+     */
+    fun update(tracks: List<RemoteVideoTrack?>, visibleRange: IntRange, alwaysOn: RemoteVideoTrack? = null) {
+        if (!isEnabled) return
+        alwaysOnTrack = alwaysOn
+        currentTracks.clear()
+        for (index in tracks.indices) {
+            val track = tracks[index] ?: continue
+            currentTracks.add(track)
+            setVisible(track, index in visibleRange || track == alwaysOn)
+        }
+        updateUnlistedTracks()
+    }
+
+    /*
+     * Switches off every track but the rendered one, as in picture in picture where a single view
+     * is left. The tracks should include screen shares as well as cameras.
+     */
+    fun showOnly(tracks: Collection<RemoteVideoTrack>, rendered: RemoteVideoTrack?) =
+            update(tracks.toList(), IntRange.EMPTY, alwaysOn = rendered)
+
+    /*
+     * Tracks that are not part of the lists passed to update, such as screen shares. Only the
+     * alwaysOn track of the last update is rendered among them, the others are switched off.
+     */
+    fun setUnlistedTracks(tracks: Collection<RemoteVideoTrack>) {
+        if (!isEnabled) return
+        unlistedTracks.clear()
+        unlistedTracks.addAll(tracks)
+        updateUnlistedTracks()
+    }
+
+    fun switchAllOn() {
+        switchedOffTracks.forEach { it.switchOn() }
+        switchedOffTracks.clear()
+        backgroundTracks.forEach { it.switchOn() }
+        backgroundTracks.clear()
+    }
+
+    private fun updateUnlistedTracks() {
+        unlistedTracks.forEach { track ->
+            if (track !in currentTracks) setVisible(track, track == alwaysOnTrack)
+        }
+        // Tracks that were unsubscribed no longer need to be tracked
+        switchedOffTracks.retainAll { it in currentTracks || it in unlistedTracks }
+        backgroundTracks.retainAll { it in currentTracks || it in unlistedTracks }
+    }
+
+    private fun setVisible(track: RemoteVideoTrack, isVisible: Boolean) {
+        if (isVisible && switchedOffTracks.remove(track)) {
+            if (isInBackground) {
+                backgroundTracks.add(track)
+            } else {
+                AppLog.d { "Switching on ${track.sid}" }
+                track.switchOn()
+            }
+        } else if (!isVisible && switchedOffTracks.add(track)) {
+            if (!backgroundTracks.remove(track)) {
+                AppLog.d { "Switching off ${track.sid}" }
+                track.switchOff()
+            }
+        } else if (isVisible && isInBackground && backgroundTracks.add(track)) {
+            track.switchOff()
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.twilio.video.app.sdk
 
 import android.content.Context
 import android.content.Intent
-import android.content.SharedPreferences
 import androidx.annotation.VisibleForTesting
 import androidx.annotation.VisibleForTesting.PRIVATE
 import com.twilio.video.Participant
@@ -11,8 +10,11 @@ import com.twilio.video.Room
 import com.twilio.video.StatsReport
 import com.twilio.video.TwilioException
 import com.twilio.video.TwilioException.ROOM_MAX_PARTICIPANTS_EXCEEDED_EXCEPTION
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.data.api.AuthServiceError
 import com.twilio.video.app.data.api.AuthServiceException
+import com.twilio.video.app.data.api.isClientError
+import com.twilio.video.app.diagnostics.FlightRecorder
 import com.twilio.video.app.ui.room.RoomEvent
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -20,6 +22,8 @@ import com.twilio.video.app.ui.room.RoomEvent.Connecting
 import com.twilio.video.app.ui.room.RoomEvent.Disconnected
 import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.Reconnected
+import com.twilio.video.app.ui.room.RoomEvent.Reconnecting
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
@@ -27,13 +31,17 @@ import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParti
 import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.VideoService.Companion.startService
 import com.twilio.video.app.ui.room.VideoService.Companion.stopService
+import com.twilio.video.app.util.AppLog
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.launch
-import timber.log.Timber
 
 const val MICROPHONE_TRACK_NAME = "microphone"
 const val CAMERA_TRACK_NAME = "camera"
@@ -42,8 +50,11 @@ const val SCREEN_TRACK_NAME = "screen"
 class RoomManager(
     private val context: Context,
     private val videoClient: VideoClient,
-    sharedPreferences: SharedPreferences,
-    coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO
+    private val appSettingsRepository: AppSettingsRepository,
+    private val coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val rejoinPolicy: RejoinPolicy = RejoinPolicy(),
+    private val flightRecorder: FlightRecorder? = null,
+    mainDispatcher: CoroutineDispatcher = Dispatchers.Main
 ) {
 
     private var statsScheduler: StatsScheduler? = null
@@ -54,14 +65,33 @@ class RoomManager(
     val roomEvents: SharedFlow<RoomEvent> = mutableRoomEvents
     @VisibleForTesting(otherwise = PRIVATE)
     internal var localParticipantManager: LocalParticipantManager =
-            LocalParticipantManager(context, this, sharedPreferences)
+            LocalParticipantManager(context, this, appSettingsRepository)
     var room: Room? = null
+    val reconnectMetrics = ReconnectMetrics()
+    private var identity: String? = null
+    private var roomName: String? = null
+    /*
+     * Rejoin state is only touched on the main thread, where Room.Listener callbacks and disconnect
+     * arrive, so the rejoin coroutine runs there too and only fetches the token off it.
+     */
+    private val rejoinScope = CoroutineScope(mainDispatcher)
+    private var rejoinJob: Job? = null
+    private var rejoiningRoom: Room? = null
+    private var rejoinAttempt = 0
+    private val isRejoining get() = rejoinJob != null
 
     fun disconnect() {
+        if (isRejoining) {
+            stopRejoining()
+            stopService(context)
+            sendRoomEvent(Disconnected)
+        }
         room?.disconnect()
     }
 
     suspend fun connect(identity: String, roomName: String) {
+        this.identity = identity
+        this.roomName = roomName
         sendRoomEvent(Connecting)
         connectToRoom(identity, roomName)
     }
@@ -78,13 +108,67 @@ class RoomManager(
         }
     }
 
+    /*
+     * Schedules the next rejoin attempt. The token for the attempt is fetched while the backoff
+     * delay elapses, so a successful attempt only waits on the room connection itself.
+     */
+    private fun scheduleRejoin() {
+        val identity = identity
+        val roomName = roomName
+        val attempt = rejoinAttempt++
+        if (identity == null || roomName == null || attempt >= rejoinPolicy.maxAttempts) {
+            AppLog.w { "Giving up rejoining room after $attempt attempts" }
+            giveUpRejoining()
+            return
+        }
+
+        val delayMs = rejoinPolicy.delayFor(attempt)
+        AppLog.i { "Rejoining room $roomName in $delayMs ms, attempt ${attempt + 1}" }
+        rejoinJob = rejoinScope.launch {
+            val connectOptions = async(coroutineDispatcher) {
+                runCatching { videoClient.createConnectOptions(identity, roomName) }
+            }
+            delay(delayMs)
+            try {
+                rejoiningRoom = videoClient.connect(connectOptions.await().getOrThrow(), roomListener)
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                if (isClientError(e)) {
+                    // Another attempt would be refused the same way
+                    giveUpRejoining()
+                    handleTokenException(e, (e as? AuthServiceException)?.error)
+                } else {
+                    AppLog.e(e) { "Failed to prepare rejoin attempt" }
+                    scheduleRejoin()
+                }
+            }
+        }
+    }
+
+    private fun giveUpRejoining() {
+        stopRejoining()
+        stopService(context)
+        sendRoomEvent(Disconnected)
+    }
+
+    private fun stopRejoining() {
+        rejoinJob?.cancel()
+        rejoinJob = null
+        rejoiningRoom?.disconnect()
+        rejoiningRoom = null
+        rejoinAttempt = 0
+        reconnectMetrics.onDisconnected()
+    }
+
     fun sendRoomEvent(roomEvent: RoomEvent) {
-        Timber.d("sendRoomEvent: $roomEvent")
+        AppLog.d { "sendRoomEvent: $roomEvent" }
+        flightRecorder?.recordRoomEvent(roomEvent)
         roomScope.launch { mutableRoomEvents.emit(roomEvent) }
     }
 
     private fun handleTokenException(e: Exception, error: AuthServiceError? = null): Room? {
-        Timber.e(e, "Failed to retrieve token")
+        AppLog.e(e) { "Failed to retrieve token" }
         sendRoomEvent(RoomEvent.TokenError(serviceError = error))
         return null
     }
@@ -136,9 +220,17 @@ class RoomManager(
 
     inner class RoomListener : Room.Listener {
         override fun onConnected(room: Room) {
-            Timber.i("onConnected -> room sid: %s",
-                    room.sid)
-
+            AppLog.i { "onConnected -> room sid: ${room.sid}" }
+
+            if (isRejoining) {
+                val duration = reconnectMetrics.onReconnected()
+                AppLog.i { "Rejoined room ${room.name} after $duration ms, $reconnectMetrics" }
+                rejoinJob = null
+                rejoiningRoom = null
+                rejoinAttempt = 0
+            } else {
+                reconnectMetrics.reset()
+            }
             startService(context, room.name)
 
             setupParticipants(room)
@@ -148,26 +240,42 @@ class RoomManager(
         }
 
         override fun onDisconnected(room: Room, twilioException: TwilioException?) {
-            Timber.i("Disconnected from room -> sid: %s, state: %s",
-                    room.sid, room.state)
-
-            stopService(context)
-
-            sendRoomEvent(Disconnected)
+            AppLog.i { "Disconnected from room -> sid: ${room.sid}, state: ${room.state}" }
 
             localParticipantManager.localParticipant = null
+            this@RoomManager.room = null
 
             statsScheduler?.stop()
             statsScheduler = null
+
+            /*
+             * A non-null exception means the room was lost rather than left, so rejoin if enabled.
+             * The ViewModel treats the rejoin like a reconnect and keeps its participant state.
+             */
+            if (twilioException != null && appSettingsRepository.currentSettings.enableAutoRejoin) {
+                AppLog.w(twilioException) { "Unexpectedly disconnected, rejoining room" }
+                reconnectMetrics.onReconnecting()
+                sendRoomEvent(Reconnecting)
+                scheduleRejoin()
+            } else {
+                stopService(context)
+
+                reconnectMetrics.onDisconnected()
+                sendRoomEvent(Disconnected)
+            }
         }
 
         override fun onConnectFailure(room: Room, twilioException: TwilioException) {
-            Timber.e(
-                    "Failed to connect to room -> sid: %s, state: %s, code: %d, error: %s",
-                    room.sid,
-                    room.state,
-                    twilioException.code,
-                    twilioException.message)
+            AppLog.e {
+                "Failed to connect to room -> sid: ${room.sid}, state: ${room.state}, " +
+                        "code: ${twilioException.code}, error: ${twilioException.message}"
+            }
+
+            if (isRejoining) {
+                rejoiningRoom = null
+                scheduleRejoin()
+                return
+            }
 
             if (twilioException.code == ROOM_MAX_PARTICIPANTS_EXCEEDED_EXCEPTION) {
                 sendRoomEvent(MaxParticipantFailure)
@@ -177,23 +285,29 @@ class RoomManager(
         }
 
         override fun onParticipantConnected(room: Room, remoteParticipant: RemoteParticipant) {
-            Timber.i("RemoteParticipant connected -> room sid: %s, remoteParticipant: %s",
-                    room.sid, remoteParticipant.sid)
+            AppLog.i {
+                "RemoteParticipant connected -> room sid: ${room.sid}, " +
+                        "remoteParticipant: ${remoteParticipant.sid}"
+            }
 
             remoteParticipant.setListener(RemoteParticipantListener(this@RoomManager))
             sendRoomEvent(RemoteParticipantConnected(remoteParticipant))
         }
 
         override fun onParticipantDisconnected(room: Room, remoteParticipant: RemoteParticipant) {
-            Timber.i("RemoteParticipant disconnected -> room sid: %s, remoteParticipant: %s",
-                    room.sid, remoteParticipant.sid)
+            AppLog.i {
+                "RemoteParticipant disconnected -> room sid: ${room.sid}, " +
+                        "remoteParticipant: ${remoteParticipant.sid}"
+            }
 
             sendRoomEvent(RemoteParticipantDisconnected(remoteParticipant.sid))
         }
 
         override fun onDominantSpeakerChanged(room: Room, remoteParticipant: RemoteParticipant?) {
-            Timber.i("DominantSpeakerChanged -> room sid: %s, remoteParticipant: %s",
-                    room.sid, remoteParticipant?.sid)
+            AppLog.i {
+                "DominantSpeakerChanged -> room sid: ${room.sid}, " +
+                        "remoteParticipant: ${remoteParticipant?.sid}"
+            }
 
             sendRoomEvent(DominantSpeakerChanged(remoteParticipant?.sid))
         }
@@ -203,11 +317,23 @@ class RoomManager(
         override fun onRecordingStopped(room: Room) = sendRoomEvent(RecordingStopped)
 
         override fun onReconnected(room: Room) {
-            Timber.i("onReconnected: %s", room.name)
+            val duration = reconnectMetrics.onReconnected()
+            AppLog.i { "onReconnected: ${room.name} after $duration ms, $reconnectMetrics" }
+
+            // Participants that joined while the signaling connection was down have no listener
+            room.remoteParticipants.forEach {
+                it.setListener(RemoteParticipantListener(this@RoomManager))
+            }
+            sendRoomEvent(Reconnected(room.remoteParticipants))
+            statsScheduler?.start()
         }
 
         override fun onReconnecting(room: Room, twilioException: TwilioException) {
-            Timber.i("onReconnecting: %s", room.name)
+            AppLog.i { "onReconnecting: ${room.name}, code: ${twilioException.code}" }
+
+            reconnectMetrics.onReconnecting()
+            statsScheduler?.stop()
+            sendRoomEvent(Reconnecting)
         }
 
         private fun setupParticipants(room: Room) {
@@ -0,0 +1,168 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.util.AppLog
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+
+/*
+ * Caps of a screen share for the motion of its content. Slides, documents and typing change little
+ * and rarely, so they keep a resolution that leaves text legible at a low frame rate. Scrolling and
+ * video change most of the screen on most frames, so they trade resolution for frame rate.
+ */
+enum class ScreenMotion(val maxFps: Int, val maxDimension: Int) {
+    LOW(5, 1920),
+    HIGH(15, 1280);
+
+    /*
+     * Returns the even width and height of a frame scaled down so that its longest side fits
+     * maxDimension, or the size itself if it already fits.
+     */
+    fun fit(width: Int, height: Int): Pair<Int, Int> {
+        val longestSide = maxOf(width, height)
+        if (longestSide <= maxDimension) return width to height
+        return evenSize(width, longestSide) to evenSize(height, longestSide)
+    }
+
+    private fun evenSize(size: Int, longestSide: Int) = maxOf(size * maxDimension / longestSide and 1.inv(), 2)
+}
+
+/*
+ * Decides which screen share frames are encoded. Frames over the rate of the current motion wait
+ * until they are due. Every pixel of the luma of due frames is hashed per tile and compared with
+ * the last forwarded frame, so unchanged frames are dropped too. The screen sends no frames while
+ * it is still, so the capturer forwards the last dropped frame once keepAliveDelayNs elapses. The
+ * motion follows how many of the last compared frames changed a large share of the tiles. Frames
+ * are delivered on a single capturer thread.
+ */
+class ScreenContentFilter {
+
+    private val frameIntervalNs get() = TimeUnit.SECONDS.toNanos(1) / motion.maxFps
+    private var lastComparedNs = Long.MIN_VALUE
+    private var lastForwardedNs = Long.MIN_VALUE
+    private var forwardedTiles: IntArray? = null
+    private val largeChanges = BooleanArray(MOTION_WINDOW)
+    private var largeChangeIndex = 0
+    private var tileColumns = IntArray(0)
+
+    @Volatile
+    var motion = ScreenMotion.LOW
+        private set
+
+    @Volatile
+    var forwardedFrames = 0L
+        private set
+
+    @Volatile
+    var droppedFrames = 0L
+        private set
+
+    /*
+     * Returns how long the frame at timestampNs has to wait until it is due under the rate of the
+     * current motion, or 0 if its content can be compared now. A quarter of the frame interval is
+     * tolerated for timestamp jitter.
+     */
+    fun delayNs(timestampNs: Long): Long {
+        if (lastComparedNs == Long.MIN_VALUE) return 0
+        val intervalNs = frameIntervalNs
+        return maxOf(lastComparedNs + intervalNs - intervalNs / 4 - timestampNs, 0)
+    }
+
+    /*
+     * Counts a frame that was superseded before it was due.
+     */
+    fun onDropped() {
+        droppedFrames++
+    }
+
+    /*
+     * Compares the luma plane of a due frame with the last forwarded frame and returns whether the
+     * frame is forwarded.
+     */
+    fun onContent(timestampNs: Long, luma: ByteBuffer, stride: Int, width: Int, height: Int): Boolean {
+        lastComparedNs = timestampNs
+        val tiles = hashTiles(luma, stride, width, height)
+        val previousTiles = forwardedTiles
+        val changedTiles = previousTiles?.let { tiles.indices.count { tiles[it] != previousTiles[it] } }
+                ?: tiles.size
+        updateMotion(changedTiles * LARGE_CHANGE_DIVISOR >= tiles.size)
+
+        val isKeepAlive = lastForwardedNs == Long.MIN_VALUE || timestampNs - lastForwardedNs >= KEEP_ALIVE_NS
+        if (changedTiles == 0 && !isKeepAlive) {
+            droppedFrames++
+            return false
+        }
+        forwardedTiles = tiles
+        lastForwardedNs = timestampNs
+        forwardedFrames++
+        return true
+    }
+
+    /*
+     * Returns how long after the dropped frame at timestampNs the keep alive interval since the
+     * last forwarded frame expires.
+     */
+    fun keepAliveDelayNs(timestampNs: Long): Long = maxOf(lastForwardedNs + KEEP_ALIVE_NS - timestampNs, 0)
+
+    /*
+     * Counts the last dropped frame as forwarded at timestampNs, once its keep alive expired.
+     */
+    fun onKeepAlive(timestampNs: Long) {
+        lastForwardedNs = timestampNs
+        droppedFrames--
+        forwardedFrames++
+    }
+
+    /*
+     * Starts over when the capture restarts, the first frame is always forwarded.
+     */
+    fun reset() {
+        lastComparedNs = Long.MIN_VALUE
+        lastForwardedNs = Long.MIN_VALUE
+        forwardedTiles = null
+        largeChanges.fill(false)
+        largeChangeIndex = 0
+        motion = ScreenMotion.LOW
+    }
+
+    private fun updateMotion(isLargeChange: Boolean) {
+        largeChanges[largeChangeIndex] = isLargeChange
+        largeChangeIndex = (largeChangeIndex + 1) % MOTION_WINDOW
+        val count = largeChanges.count { it }
+        val newMotion = when {
+            count >= HIGH_MOTION_CHANGES -> ScreenMotion.HIGH
+            count <= LOW_MOTION_CHANGES -> ScreenMotion.LOW
+            else -> motion
+        }
+        if (newMotion != motion) {
+            motion = newMotion
+            AppLog.d { "Screen share motion is $newMotion, $forwardedFrames forwarded, $droppedFrames dropped" }
+        }
+    }
+
+    /*
+     * Hashes every pixel, so that a typed character or a moved cursor changes its tile.
+     */
+    private fun hashTiles(luma: ByteBuffer, stride: Int, width: Int, height: Int): IntArray {
+        if (tileColumns.size != width) tileColumns = IntArray(width) { it * TILES_PER_SIDE / width }
+        val columns = tileColumns
+        val tiles = IntArray(TILES_PER_SIDE * TILES_PER_SIDE) { 1 }
+        for (y in 0 until height) {
+            val row = y * stride
+            val tileRow = y * TILES_PER_SIDE / height * TILES_PER_SIDE
+            for (x in 0 until width) {
+                val tile = tileRow + columns[x]
+                tiles[tile] = 31 * tiles[tile] + luma.get(row + x)
+            }
+        }
+        return tiles
+    }
+
+    companion object {
+        const val TILES_PER_SIDE = 8
+        private const val LARGE_CHANGE_DIVISOR = 4
+        private const val MOTION_WINDOW = 10
+        private const val HIGH_MOTION_CHANGES = 8
+        private const val LOW_MOTION_CHANGES = 3
+        private val KEEP_ALIVE_NS = TimeUnit.SECONDS.toNanos(1)
+    }
+}
@@ -0,0 +1,60 @@
+package com.twilio.video.app.sdk
+
+import java.util.concurrent.TimeUnit
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+const val THUMBNAIL_MAX_FPS = 15
+
+/*
+ * Forwards frames to sink at no more than maxFps, based on the frame timestamps. Frames over the
+ * rate are dropped before the sink does any render work. An eighth of the frame interval is
+ * tolerated so that timestamp jitter does not halve the rate of a source running at a multiple of
+ * maxFps, while a source only slightly faster than maxFps is still throttled. Frames are delivered
+ * on a single capturer or decoder thread.
+ */
+class ThrottledVideoSink(
+    val sink: VideoSink,
+    val maxFps: Int = THUMBNAIL_MAX_FPS
+) : VideoSink {
+
+    private val frameIntervalNs = TimeUnit.SECONDS.toNanos(1) / maxFps
+    private val toleranceNs = frameIntervalNs / 8
+    private var nextFrameNs = Long.MIN_VALUE
+
+    @Volatile
+    var renderedFrames = 0L
+        private set
+
+    @Volatile
+    var droppedFrames = 0L
+        private set
+
+    /*
+     * Restarts the counters along with the meter behind this sink, called by VideoSinkRouter
+     * whenever the sink is attached to a track.
+     */
+    fun onAttached() {
+        renderedFrames = 0
+        droppedFrames = 0
+    }
+
+    override fun onFrame(frame: VideoFrame) {
+        val timestampNs = frame.timestampNs
+        if (nextFrameNs != Long.MIN_VALUE && timestampNs + toleranceNs < nextFrameNs) {
+            droppedFrames++
+            return
+        }
+        // Restart the schedule after a pause instead of forwarding a burst of frames
+        nextFrameNs = if (nextFrameNs == Long.MIN_VALUE || timestampNs - nextFrameNs >= frameIntervalNs) {
+            timestampNs + frameIntervalNs
+        } else {
+            nextFrameNs + frameIntervalNs
+        }
+        renderedFrames++
+        sink.onFrame(frame)
+    }
+
+    override fun toString() =
+            "ThrottledVideoSink($maxFps fps, $renderedFrames rendered, $droppedFrames dropped)"
+}
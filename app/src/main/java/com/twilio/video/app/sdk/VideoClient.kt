@@ -1,10 +1,11 @@
 package com.twilio.video.app.sdk
 
 import android.content.Context
+import com.twilio.video.ConnectOptions
 import com.twilio.video.Room
 import com.twilio.video.Video
 
-class VideoClient(
+open class VideoClient(
     private val context: Context,
     private val connectOptionsFactory: ConnectOptionsFactory
 ) {
@@ -15,9 +16,16 @@ class VideoClient(
         roomListener: Room.Listener
     ): Room {
 
-            return Video.connect(
-                    context,
-                    connectOptionsFactory.newInstance(identity, roomName),
-                    roomListener)
+        return connect(createConnectOptions(identity, roomName), roomListener)
     }
+
+    /*
+     * Fetches the access token and builds the options for a connection attempt. This is split from
+     * connect so the token can be fetched ahead of time.
+     */
+    open suspend fun createConnectOptions(identity: String, roomName: String): ConnectOptions =
+            connectOptionsFactory.newInstance(identity, roomName)
+
+    open fun connect(connectOptions: ConnectOptions, roomListener: Room.Listener): Room =
+            Video.connect(context, connectOptions, roomListener)
 }
@@ -0,0 +1,118 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoContentPreferences
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.util.AppLog
+import java.util.WeakHashMap
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+
+/*
+ * Tells the media server how large each remote video track is rendered, so that it forwards a
+ * layer that fits instead of the one meant for the primary view. Views report their track and
+ * their size, and a track rendered in several views asks for the largest of them.
+ *
+ * Size changes are debounced because a single layout pass resizes every view. When a track moves
+ * into a larger view, as on a primary and thumbnail swap, the view size is already known and the
+ * update is sent right away so the new primary participant does not stay blurry. Requires
+ * VideoContentPreferencesMode.MANUAL, otherwise the SDK ignores the preferences.
+ *
+ * Views stop counting once they report a null track. They are held weakly, so views dropped by a
+ * RecyclerView or a torn down grid page do not have to be removed.
+ */
+class VideoContentPreferencesController(
+    private val coroutineScope: CoroutineScope,
+    private val debounceMs: Long = DEFAULT_DEBOUNCE_MS
+) {
+
+    private val renderTargets = WeakHashMap<Any, RenderTarget>()
+    private val sentSizes = HashMap<RemoteVideoTrack, RenderSize>()
+    private var flushJob: Job? = null
+
+    var isEnabled = true
+
+    /*
+     * Caps the size requested for every track while set, keeping its aspect ratio. Used while the
+     * video is shown in a small window, where the layout may not settle for a while.
+     */
+    var maxSize: VideoDimensions? = null
+        set(value) {
+            field = value
+            flush()
+        }
+
+    fun onTrackChanged(view: Any, videoTrack: VideoTrack?) {
+        val target = renderTargets.getOrPut(view) { RenderTarget() }
+        val track = videoTrack as? RemoteVideoTrack
+        if (target.track === track) return
+        target.track = track
+        val sentSize = track?.let { sentSizes[it] }
+        if (track != null && target.size.isValid && (sentSize == null || target.size.area > sentSize.area)) {
+            flush()
+        } else {
+            scheduleFlush()
+        }
+    }
+
+    fun onSizeChanged(view: Any, width: Int, height: Int) {
+        val target = renderTargets.getOrPut(view) { RenderTarget() }
+        val size = RenderSize(width, height)
+        if (target.size == size) return
+        target.size = size
+        scheduleFlush()
+    }
+
+    fun flush() {
+        flushJob?.cancel()
+        flushJob = null
+        if (!isEnabled) return
+
+        val desiredSizes = HashMap<RemoteVideoTrack, RenderSize>()
+        for (target in renderTargets.values) {
+            val track = target.track ?: continue
+            if (!target.size.isValid) continue
+            val size = maxSize?.let { target.size.fitInto(it.width, it.height) } ?: target.size
+            val current = desiredSizes[track]
+            if (current == null || size.area > current.area) desiredSizes[track] = size
+        }
+        for ((track, size) in desiredSizes) {
+            if (sentSizes[track] != size) {
+                AppLog.d { "Render dimensions of ${track.sid}: ${size.width}x${size.height}" }
+                track.setContentPreferences(VideoContentPreferences(VideoDimensions(size.width, size.height)))
+                sentSizes[track] = size
+            }
+        }
+        // Forget tracks that are no longer rendered, they are switched off or unsubscribed
+        sentSizes.keys.retainAll(desiredSizes.keys)
+    }
+
+    private fun scheduleFlush() {
+        if (!isEnabled) return
+        flushJob?.cancel()
+        flushJob = coroutineScope.launch {
+            delay(debounceMs)
+            flush()
+        }
+    }
+
+    private class RenderTarget(var track: RemoteVideoTrack? = null, var size: RenderSize = RenderSize(0, 0))
+
+    private data class RenderSize(val width: Int, val height: Int) {
+        val isValid get() = width > 0 && height > 0
+        val area get() = width.toLong() * height
+
+        fun fitInto(maxWidth: Int, maxHeight: Int): RenderSize {
+            if (width <= maxWidth && height <= maxHeight) return this
+            val scale = minOf(maxWidth.toDouble() / width, maxHeight.toDouble() / height)
+            return RenderSize(maxOf((width * scale).toInt(), 1), maxOf((height * scale).toInt(), 1))
+        }
+    }
+
+    companion object {
+        const val DEFAULT_DEBOUNCE_MS = 250L
+    }
+}
@@ -1,8 +1,9 @@
 package com.twilio.video.app.sdk
 
 import android.app.Application
-import android.content.SharedPreferences
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.data.api.TokenService
+import com.twilio.video.app.diagnostics.FlightRecorder
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -17,11 +18,12 @@ class VideoSdkModule {
     @Singleton
     fun providesRoomManager(
         application: Application,
-        sharedPreferences: SharedPreferences,
-        tokenService: TokenService
+        appSettingsRepository: AppSettingsRepository,
+        tokenService: TokenService,
+        flightRecorder: FlightRecorder
     ): RoomManager {
-        val connectOptionsFactory = ConnectOptionsFactory(application, sharedPreferences, tokenService)
+        val connectOptionsFactory = ConnectOptionsFactory(application, appSettingsRepository, tokenService)
         val videoClient = VideoClient(application, connectOptionsFactory)
-        return RoomManager(application, videoClient, sharedPreferences)
+        return RoomManager(application, videoClient, appSettingsRepository, flightRecorder = flightRecorder)
     }
 }
@@ -0,0 +1,89 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.util.AppLog
+import tvi.webrtc.VideoSink
+
+/*
+ * Owns every binding of a video track to the sink that renders it. A sink renders at most one
+ * track, so binding it to another track moves it in the same call, and the sinks attached to each
+ * track are counted. While stopped the bindings are kept but no sink is attached. Disabled tracks
+ * are bound without attaching a sink. Must be used from the main thread.
+ */
+class VideoSinkRouter {
+
+    private val bindings = HashMap<VideoSink, VideoTrack>()
+    private val attachedSinks = HashMap<VideoTrack, MutableSet<VideoSink>>()
+
+    var isStarted = true
+        private set
+
+    /*
+     * Renders track on sink, or nothing if track is null.
+     */
+    fun bind(sink: VideoSink, track: VideoTrack?) {
+        val oldTrack = bindings[sink]
+        if (oldTrack === track) return
+        oldTrack?.let {
+            bindings.remove(sink)
+            detach(sink, it)
+        }
+        track?.let {
+            bindings[sink] = it
+            sink.meteredSink?.onBound()
+            if (isStarted && it.isEnabled) attach(sink, it)
+        }
+    }
+
+    fun unbind(sink: VideoSink) = bind(sink, null)
+
+    fun start() {
+        if (isStarted) return
+        isStarted = true
+        bindings.forEach { (sink, track) -> if (track.isEnabled) attach(sink, track) }
+    }
+
+    fun stop() {
+        if (!isStarted) return
+        isStarted = false
+        bindings.forEach { (sink, track) -> detach(sink, track) }
+    }
+
+    fun sinkCount(track: VideoTrack): Int = attachedSinks[track]?.size ?: 0
+
+    fun sinkCounts(): Map<VideoTrack, Int> = attachedSinks.mapValues { it.value.size }
+
+    /*
+     * The frames a ThrottledVideoSink dropped before its meter since the sink was attached are
+     * reported separately from what the meter measured.
+     */
+    fun renderMetrics(): List<Pair<VideoTrack, RenderMetrics>> =
+            bindings.mapNotNull { (sink, track) ->
+                sink.meteredSink?.let { meteredSink ->
+                    val throttledFrames = (sink as? ThrottledVideoSink)?.droppedFrames ?: 0
+                    track to meteredSink.metrics().copy(throttledFrames = throttledFrames)
+                }
+            }
+
+    private fun attach(sink: VideoSink, track: VideoTrack) {
+        val sinks = attachedSinks.getOrPut(track) { HashSet() }
+        if (sinks.add(sink)) {
+            (sink as? ThrottledVideoSink)?.onAttached()
+            sink.meteredSink?.onAttached()
+            track.addSink(sink)
+            AppLog.d { "Attached $sink to ${track.name}, ${sinks.size} active" }
+        }
+    }
+
+    private val VideoSink.meteredSink: MeteredVideoSink?
+        get() = ((this as? ThrottledVideoSink)?.sink ?: this) as? MeteredVideoSink
+
+    private fun detach(sink: VideoSink, track: VideoTrack) {
+        val sinks = attachedSinks[track] ?: return
+        if (sinks.remove(sink)) {
+            track.removeSink(sink)
+            if (sinks.isEmpty()) attachedSinks.remove(track)
+            AppLog.d { "Detached $sink from ${track.name}, ${sinks.size} active" }
+        }
+    }
+}
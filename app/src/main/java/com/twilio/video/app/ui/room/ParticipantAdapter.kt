@@ -6,19 +6,34 @@ import androidx.lifecycle.MutableLiveData
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.ListAdapter
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoContentPreferencesController
+import com.twilio.video.app.sdk.VideoSinkRouter
 
-internal class ParticipantAdapter : ListAdapter<ParticipantViewState, ParticipantViewHolder>(
-        ParticipantDiffCallback()) {
+internal class ParticipantAdapter(
+    private val sinkRouter: VideoSinkRouter,
+    private val contentPreferences: VideoContentPreferencesController? = null
+) : ListAdapter<ParticipantViewState, ParticipantViewHolder>(ParticipantDiffCallback()) {
 
     private val mutableViewHolderEvents = MutableLiveData<RoomViewEvent>()
     val viewHolderEvents: LiveData<RoomViewEvent> = mutableViewHolderEvents
 
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder =
-            ParticipantViewHolder(ParticipantThumbView(parent.context))
+            ParticipantViewHolder(ParticipantThumbView(parent.context), sinkRouter, contentPreferences)
 
     override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) =
             holder.bind(getItem(position)) { mutableViewHolderEvents.value = it }
 
+    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position)
+        } else {
+            val changes = payloads.fold(0) { changes, payload -> changes or payload as Int }
+            holder.bindChanges(getItem(position), changes)
+        }
+    }
+
+    override fun onViewRecycled(holder: ParticipantViewHolder) = holder.onRecycled()
+
     class ParticipantDiffCallback : DiffUtil.ItemCallback<ParticipantViewState>() {
         override fun areItemsTheSame(
             oldItem: ParticipantViewState,
@@ -33,7 +48,7 @@ internal class ParticipantAdapter : ListAdapter<ParticipantViewState, Participan
                 oldItem == newItem
 
         override fun getChangePayload(oldItem: ParticipantViewState, newItem: ParticipantViewState): Any? {
-            return newItem
+            return ParticipantChanges.of(oldItem, newItem)
         }
     }
 }
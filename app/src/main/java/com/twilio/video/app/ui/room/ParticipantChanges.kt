@@ -0,0 +1,28 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.participant.ParticipantViewState
+
+/*
+ * Bit flags of the thumbnail fields that differ between two states of the same participant. They
+ * are used as the change payload of the participant list, so that an update only touches the views
+ * of the fields that changed.
+ */
+internal object ParticipantChanges {
+    const val IDENTITY = 1
+    const val MUTED = 1 shl 1
+    const val PINNED = 1 shl 2
+    const val VIDEO = 1 shl 3
+    const val NETWORK_QUALITY = 1 shl 4
+    const val ALL = IDENTITY or MUTED or PINNED or VIDEO or NETWORK_QUALITY
+
+    fun of(oldItem: ParticipantViewState, newItem: ParticipantViewState): Int {
+        var changes = 0
+        if (oldItem.identity != newItem.identity ||
+                oldItem.isLocalParticipant != newItem.isLocalParticipant) changes = changes or IDENTITY
+        if (oldItem.isMuted != newItem.isMuted) changes = changes or MUTED
+        if (oldItem.isPinned != newItem.isPinned) changes = changes or PINNED
+        if (oldItem.videoTrack != newItem.videoTrack) changes = changes or VIDEO
+        if (oldItem.networkQualityLevel != newItem.networkQualityLevel) changes = changes or NETWORK_QUALITY
+        return changes
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import android.view.ViewGroup
+import android.widget.GridLayout
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.PagerSnapHelper
+import androidx.recyclerview.widget.RecyclerView
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.RemoteVideoTrackSwitcher
+import com.twilio.video.app.sdk.VideoContentPreferencesController
+import com.twilio.video.app.sdk.VideoSinkRouter
+import com.twilio.video.app.util.AppLog
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+internal data class ParticipantGridPage(
+    val index: Int,
+    val participants: List<ParticipantViewState>
+)
+
+/*
+ * Shows participants in pages of at most tilesPerPage tiles. Only the tiles of the current page
+ * hold video sinks, the other pages show placeholders and their remote tracks are switched off.
+ * ParticipantManager keeps recent dominant speakers at the front of the list, so they land on the
+ * first page.
+ */
+internal class ParticipantGridController(
+    private val recyclerView: RecyclerView,
+    private val trackSwitcher: RemoteVideoTrackSwitcher,
+    sinkRouter: VideoSinkRouter,
+    private val tilesPerPage: Int,
+    contentPreferences: VideoContentPreferencesController? = null,
+    viewEventAction: (RoomViewEvent) -> Unit,
+    private val onVisibleParticipantsChanged: (Set<String>) -> Unit = {}
+) : RecyclerView.OnScrollListener() {
+
+    private val adapter = GridPageAdapter(tilesPerPage, sinkRouter, contentPreferences, viewEventAction)
+    private var participants = emptyList<ParticipantViewState>()
+    private var visibleSids = emptySet<String>()
+    private var isStarted = false
+
+    init {
+        recyclerView.layoutManager =
+                LinearLayoutManager(recyclerView.context, LinearLayoutManager.HORIZONTAL, false)
+        recyclerView.adapter = adapter
+        PagerSnapHelper().attachToRecyclerView(recyclerView)
+    }
+
+    fun start() {
+        if (isStarted) return
+        isStarted = true
+        recyclerView.addOnScrollListener(this)
+    }
+
+    fun stop() {
+        if (handOver()) trackSwitcher.switchAllOn()
+    }
+
+    /*
+     * Stops without switching the tracks back on, see ThumbnailVisibilityTracker.handOver.
+     */
+    fun handOver(): Boolean {
+        if (!isStarted) return false
+        isStarted = false
+        recyclerView.removeOnScrollListener(this)
+        submit(null)
+        return true
+    }
+
+    fun submit(participants: List<ParticipantViewState>?) {
+        this.participants = participants ?: emptyList()
+        val pages = this.participants.chunked(tilesPerPage).mapIndexed { index, page ->
+            ParticipantGridPage(index, page)
+        }
+        if (adapter.activePage >= pages.size) adapter.setActivePage(maxOf(pages.size - 1, 0))
+        adapter.submitList(pages) { update() }
+    }
+
+    override fun onScrollStateChanged(recyclerView: RecyclerView, newState: Int) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE) return
+        val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+        val page = layoutManager.findFirstCompletelyVisibleItemPosition()
+        if (page != RecyclerView.NO_POSITION && page != adapter.activePage) {
+            AppLog.d { "Grid page $page is now active" }
+            adapter.setActivePage(page)
+            update()
+        }
+    }
+
+    private fun update() {
+        val start = adapter.activePage * tilesPerPage
+        val range = start until minOf(start + tilesPerPage, participants.size)
+        trackSwitcher.update(participants.map { it.getRemoteVideoTrack() }, range)
+
+        val sids = participants.filterIndexed { index, _ -> index in range }.mapNotNullTo(HashSet()) { it.sid }
+        if (sids != visibleSids) {
+            visibleSids = sids
+            onVisibleParticipantsChanged(sids)
+        }
+    }
+
+    private class GridPageAdapter(
+        private val tilesPerPage: Int,
+        private val sinkRouter: VideoSinkRouter,
+        private val contentPreferences: VideoContentPreferencesController?,
+        private val viewEventAction: (RoomViewEvent) -> Unit
+    ) : ListAdapter<ParticipantGridPage, GridPageViewHolder>(GridPageDiffCallback()) {
+
+        var activePage = 0
+            private set
+
+        fun setActivePage(page: Int) {
+            val old = activePage
+            activePage = page
+            if (old < itemCount) notifyItemChanged(old)
+            if (page < itemCount) notifyItemChanged(page)
+        }
+
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): GridPageViewHolder =
+                GridPageViewHolder(GridLayout(parent.context), tilesPerPage, sinkRouter, contentPreferences)
+
+        override fun onBindViewHolder(holder: GridPageViewHolder, position: Int) =
+                holder.bind(getItem(position), position == activePage, viewEventAction)
+
+        override fun onViewRecycled(holder: GridPageViewHolder) = holder.onRecycled()
+    }
+
+    private class GridPageViewHolder(
+        grid: GridLayout,
+        tilesPerPage: Int,
+        sinkRouter: VideoSinkRouter,
+        contentPreferences: VideoContentPreferencesController?
+    ) : RecyclerView.ViewHolder(grid) {
+
+        private val tiles: List<ParticipantViewHolder>
+
+        init {
+            val columns = ceil(sqrt(tilesPerPage.toDouble())).toInt()
+            grid.columnCount = columns
+            grid.rowCount = (tilesPerPage + columns - 1) / columns
+            grid.layoutParams = RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT)
+            tiles = List(tilesPerPage) {
+                val thumb = ParticipantThumbView(grid.context).apply { fillParent() }
+                grid.addView(thumb, GridLayout.LayoutParams(
+                        GridLayout.spec(GridLayout.UNDEFINED, 1f),
+                        GridLayout.spec(GridLayout.UNDEFINED, 1f)).apply {
+                    width = 0
+                    height = 0
+                })
+                ParticipantViewHolder(thumb, sinkRouter, contentPreferences)
+            }
+        }
+
+        fun bind(page: ParticipantGridPage, isActive: Boolean, viewEventAction: (RoomViewEvent) -> Unit) {
+            tiles.forEachIndexed { index, tile ->
+                val participant = page.participants.getOrNull(index)
+                if (participant != null) {
+                    tile.isVideoActive = isActive
+                    tile.bind(participant, viewEventAction)
+                    tile.thumb.visibility = View.VISIBLE
+                } else {
+                    tile.onRecycled()
+                    tile.thumb.visibility = View.INVISIBLE
+                }
+            }
+        }
+
+        fun onRecycled() = tiles.forEach { it.onRecycled() }
+    }
+
+    private class GridPageDiffCallback : DiffUtil.ItemCallback<ParticipantGridPage>() {
+        override fun areItemsTheSame(oldItem: ParticipantGridPage, newItem: ParticipantGridPage) =
+                oldItem.index == newItem.index
+
+        override fun areContentsTheSame(oldItem: ParticipantGridPage, newItem: ParticipantGridPage) =
+                oldItem == newItem
+    }
+}
@@ -68,6 +68,15 @@ public class ParticipantThumbView extends ParticipantView {
         setScaleType(scaleType);
     }
 
+    /*
+     * Stretches the thumbnail over its parent instead of the fixed thumbnail size, for grid tiles.
+     */
+    public void fillParent() {
+        binding.getRoot()
+                .setLayoutParams(
+                        new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+    }
+
     @Override
     public void setState(int state) {
         super.setState(state);
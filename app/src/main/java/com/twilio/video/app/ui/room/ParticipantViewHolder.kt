@@ -10,54 +10,102 @@ import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
 import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
 import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
 import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ZERO
-import com.twilio.video.VideoTrack
 import com.twilio.video.app.R
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.MeteredVideoSink
+import com.twilio.video.app.sdk.THUMBNAIL_MAX_FPS
+import com.twilio.video.app.sdk.ThrottledVideoSink
+import com.twilio.video.app.sdk.VideoContentPreferencesController
+import com.twilio.video.app.sdk.VideoSinkRouter
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
-import timber.log.Timber
+import com.twilio.video.app.util.AppLog
 
-internal class ParticipantViewHolder(internal val thumb: ParticipantThumbView) :
-        RecyclerView.ViewHolder(thumb) {
+internal class ParticipantViewHolder(
+    internal val thumb: ParticipantThumbView,
+    private val sinkRouter: VideoSinkRouter,
+    private val contentPreferences: VideoContentPreferencesController? = null,
+    maxFps: Int = THUMBNAIL_MAX_FPS
+) : RecyclerView.ViewHolder(thumb) {
 
     private val localParticipantIdentity = thumb.context.getString(R.string.you)
 
+    // Thumbnails are too small to benefit from the full frame rate
+    internal val videoSink = ThrottledVideoSink(MeteredVideoSink(thumb.videoTextureView), maxFps)
+
+    /*
+     * Inactive holders show the participant without attaching a sink to their video track.
+     */
+    var isVideoActive = true
+
+    init {
+        contentPreferences?.let { contentPreferences ->
+            thumb.videoTextureView.addOnLayoutChangeListener { view, _, _, _, _, _, _, _, _ ->
+                contentPreferences.onSizeChanged(view, view.width, view.height)
+            }
+        }
+    }
+
     fun bind(participantViewState: ParticipantViewState, viewEventAction: (RoomViewEvent) -> Unit) {
-        Timber.d("bind ParticipantViewHolder with data item: %s", participantViewState)
-        Timber.d("thumb: %s", thumb)
+        AppLog.d { "bind ParticipantViewHolder with data item: $participantViewState" }
+        AppLog.d { "thumb: $thumb" }
+
+        participantViewState.sid?.let { sid ->
+            thumb.setOnClickListener {
+                viewEventAction(PinParticipant(sid))
+            }
+        }
+        bindChanges(participantViewState, ParticipantChanges.ALL)
+    }
 
+    /*
+     * Only updates the views of the fields flagged in changes. The sid of the participant does not
+     * change, so neither does the click listener.
+     */
+    fun bindChanges(participantViewState: ParticipantViewState, changes: Int) {
         thumb.run {
-            participantViewState.sid?.let { sid ->
-                setOnClickListener {
-                    viewEventAction(PinParticipant(sid))
-                }
+            if (changes and ParticipantChanges.IDENTITY != 0) {
+                val identity = if (participantViewState.isLocalParticipant)
+                    localParticipantIdentity else participantViewState.identity
+                setIdentity(identity)
             }
-            val identity = if (participantViewState.isLocalParticipant)
-                localParticipantIdentity else participantViewState.identity
-            setIdentity(identity)
-            setMuted(participantViewState.isMuted)
-            setPinned(participantViewState.isPinned)
+            if (changes and ParticipantChanges.MUTED != 0) setMuted(participantViewState.isMuted)
+            if (changes and ParticipantChanges.PINNED != 0) setPinned(participantViewState.isPinned)
 
-            updateVideoTrack(participantViewState)
+            if (changes and ParticipantChanges.VIDEO != 0) {
+                updateVideoTrack(participantViewState)
+                contentPreferences?.onTrackChanged(videoTextureView, videoTrack)
+            }
 
-            networkQualityLevelImg?.let {
-                setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
+            if (changes and ParticipantChanges.NETWORK_QUALITY != 0) {
+                networkQualityLevelImg?.let {
+                    setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
+                }
             }
         }
     }
 
+    /*
+     * Recycled thumbnails release their sink, which is attached again when they are bound.
+     */
+    fun onRecycled() {
+        thumb.run {
+            sinkRouter.unbind(videoSink)
+            videoTrack = null
+        }
+        contentPreferences?.onTrackChanged(thumb.videoTextureView, null)
+    }
+
     private fun updateVideoTrack(participantViewState: ParticipantViewState) {
         thumb.run {
             val videoTrackViewState = participantViewState.videoTrack
-            val newVideoTrack = videoTrackViewState?.let { it.videoTrack }
+            val newVideoTrack = if (isVideoActive) videoTrackViewState?.videoTrack else null
             if (videoTrack !== newVideoTrack) {
-                removeSink(videoTrack, this)
                 videoTrack = newVideoTrack
-                videoTrack?.let { videoTrack ->
-                    setVideoState(videoTrackViewState)
-                    if (videoTrack.isEnabled) videoTrack.addSink(this.videoTextureView)
-                } ?: setState(ParticipantView.State.NO_VIDEO)
-            } else {
+                sinkRouter.bind(videoSink, newVideoTrack)
+                newVideoTrack?.let { setVideoState(videoTrackViewState) }
+                        ?: setState(ParticipantView.State.NO_VIDEO)
+            } else if (isVideoActive) {
                 setVideoState(videoTrackViewState)
             }
         }
@@ -72,11 +120,6 @@ internal class ParticipantViewHolder(internal val thumb: ParticipantThumbView) :
         }
     }
 
-    private fun removeSink(videoTrack: VideoTrack?, view: ParticipantView) {
-        if (videoTrack == null || !videoTrack.sinks.contains(view.videoTextureView)) return
-        videoTrack.removeSink(view.videoTextureView)
-    }
-
     private fun setNetworkQualityLevelImage(
         networkQualityImage: ImageView,
         networkQualityLevel: NetworkQualityLevel?
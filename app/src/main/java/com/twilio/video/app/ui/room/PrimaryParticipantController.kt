@@ -16,12 +16,26 @@
 package com.twilio.video.app.ui.room
 
 import com.twilio.video.VideoTrack
+import com.twilio.video.app.sdk.MeteredVideoSink
+import com.twilio.video.app.sdk.VideoContentPreferencesController
+import com.twilio.video.app.sdk.VideoSinkRouter
 import com.twilio.video.app.sdk.VideoTrackViewState
 
 internal class PrimaryParticipantController(
-    private val primaryView: ParticipantPrimaryView
+    private val primaryView: ParticipantPrimaryView,
+    private val sinkRouter: VideoSinkRouter,
+    private val contentPreferences: VideoContentPreferencesController? = null
 ) {
     private var primaryItem: Item? = null
+    private val videoSink = MeteredVideoSink(primaryView.videoTextureView)
+
+    init {
+        contentPreferences?.let { contentPreferences ->
+            primaryView.videoTextureView.addOnLayoutChangeListener { view, _, _, _, _, _, _, _, _ ->
+                contentPreferences.onSizeChanged(view, view.width, view.height)
+            }
+        }
+    }
 
     fun renderAsPrimary(
         identity: String?,
@@ -45,8 +59,8 @@ internal class PrimaryParticipantController(
 
         // Only update sink for a new video track
         if (newVideoTrack != old?.videoTrack) {
-            old?.let { removeSink(it.videoTrack, primaryView) }
-            newVideoTrack?.let { if (it.isEnabled) it.addSink(primaryView.videoTextureView) }
+            sinkRouter.bind(videoSink, newVideoTrack)
+            contentPreferences?.onTrackChanged(primaryView.videoTextureView, newVideoTrack)
         }
 
         newVideoTrack?.let {
@@ -54,9 +68,14 @@ internal class PrimaryParticipantController(
         } ?: primaryView.setState(ParticipantView.State.NO_VIDEO)
     }
 
-    private fun removeSink(videoTrack: VideoTrack?, view: ParticipantView) {
-        if (videoTrack == null || !videoTrack.sinks.contains(view.videoTextureView)) return
-        videoTrack.removeSink(view.videoTextureView)
+    /*
+     * Releases the sink of the primary view while it is hidden. The next renderAsPrimary attaches
+     * it again.
+     */
+    fun release() {
+        sinkRouter.unbind(videoSink)
+        primaryItem = null
+        contentPreferences?.onTrackChanged(primaryView.videoTextureView, null)
     }
 
     internal class Item(
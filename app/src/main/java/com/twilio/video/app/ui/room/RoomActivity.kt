@@ -22,25 +22,30 @@ import android.animation.ValueAnimator
 import android.annotation.TargetApi
 import android.app.Activity
 import android.app.AlertDialog
+import android.app.PictureInPictureParams
 import android.content.Context
 import android.content.DialogInterface
 import android.content.Intent
-import android.content.SharedPreferences
 import android.content.pm.PackageManager
+import android.content.res.Configuration
 import android.media.AudioManager
 import android.media.projection.MediaProjectionManager
 import android.net.Uri
 import android.os.Build
 import android.os.Bundle
 import android.text.TextUtils
+import android.util.Rational
 import android.view.Menu
 import android.view.MenuItem
 import android.view.View
 import android.view.WindowManager
 import androidx.activity.viewModels
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.VisibleForTesting.PRIVATE
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.ContextCompat
 import androidx.core.widget.doOnTextChanged
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
 import com.google.android.material.snackbar.BaseTransientBottomBar
 import com.google.android.material.snackbar.Snackbar
@@ -48,12 +53,21 @@ import com.twilio.audioswitch.AudioDevice
 import com.twilio.audioswitch.AudioDevice.BluetoothHeadset
 import com.twilio.audioswitch.AudioDevice.Speakerphone
 import com.twilio.audioswitch.AudioDevice.WiredHeadset
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoContentPreferencesMode
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BuildConfig
 import com.twilio.video.app.R
+import com.twilio.video.app.StartupTrace
 import com.twilio.video.app.adapter.StatsListAdapter
-import com.twilio.video.app.data.Preferences
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.data.api.AuthServiceError
+import com.twilio.video.app.data.api.TokenService
 import com.twilio.video.app.databinding.RoomActivityBinding
 import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.RemoteVideoTrackSwitcher
+import com.twilio.video.app.sdk.VideoContentPreferencesController
+import com.twilio.video.app.sdk.VideoSinkRouter
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Connecting
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.Connected
@@ -76,14 +90,17 @@ import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
+import com.twilio.video.app.ui.room.RoomViewEvent.ThumbnailsVisible
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalVideo
 import com.twilio.video.app.ui.settings.SettingsActivity
 import com.twilio.video.app.util.InputUtils
+import com.twilio.video.app.util.PerformanceClass
 import dagger.hilt.android.AndroidEntryPoint
 import io.uniflow.android.livedata.onEvents
 import io.uniflow.android.livedata.onStates
 import javax.inject.Inject
+import kotlinx.coroutines.delay
 import timber.log.Timber
 
 @AndroidEntryPoint
@@ -95,22 +112,40 @@ class RoomActivity : AppCompatActivity() {
     private lateinit var screenCaptureMenuItem: MenuItem
     private lateinit var settingsMenuItem: MenuItem
     private lateinit var deviceMenuItem: MenuItem
+    private lateinit var gridViewMenuItem: MenuItem
     private var savedVolumeControlStream = 0
     private var displayName: String? = null
     private var localParticipantSid = LOCAL_PARTICIPANT_STUB_SID
     private lateinit var statsListAdapter: StatsListAdapter
 
     @Inject
-    lateinit var sharedPreferences: SharedPreferences
+    lateinit var appSettingsRepository: AppSettingsRepository
+
+    @Inject
+    lateinit var tokenService: TokenService
+
+    @Inject
+    lateinit var trackSwitcher: RemoteVideoTrackSwitcher
+    private var isInLobby = false
 
     /** Coordinates participant thumbs and primary participant rendering.  */
     private lateinit var primaryParticipantController: PrimaryParticipantController
     private lateinit var participantAdapter: ParticipantAdapter
+    private lateinit var thumbnailVisibilityTracker: ThumbnailVisibilityTracker
+    private lateinit var participantGridController: ParticipantGridController
+    private var isGridMode = false
+    private var isInPictureInPicture = false
+    @VisibleForTesting(otherwise = PRIVATE)
+    internal var roomViewState: RoomViewState? = null
+        private set
+    private lateinit var contentPreferences: VideoContentPreferencesController
+    private val sinkRouter = VideoSinkRouter()
     private lateinit var recordingAnimation: ObjectAnimator
     private val roomViewModel: RoomViewModel by viewModels()
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        StartupTrace.onRoomActivityCreate(this)
         binding = RoomActivityBinding.inflate(layoutInflater)
         setContentView(binding.root)
         binding.joinRoom.roomName.doOnTextChanged { text: CharSequence?, _, _, _ ->
@@ -126,6 +161,11 @@ class RoomActivity : AppCompatActivity() {
         window.addFlags(WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED)
         window.addFlags(WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON)
 
+        contentPreferences = VideoContentPreferencesController(lifecycleScope).apply {
+            isEnabled = appSettingsRepository.currentSettings.videoContentPreferencesMode !=
+                    VideoContentPreferencesMode.AUTO
+        }
+
         // Grab views
         setupThumbnailRecyclerView()
 
@@ -136,24 +176,64 @@ class RoomActivity : AppCompatActivity() {
         savedVolumeControlStream = volumeControlStream
 
         // Setup participant controller
-        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo)
+        primaryParticipantController =
+                PrimaryParticipantController(binding.room.primaryVideo, sinkRouter, contentPreferences)
+        if (savedInstanceState?.getBoolean(GRID_MODE) == true) setGridMode(true)
 
         setupRecordingAnimation()
+        if (BuildConfig.DEBUG) {
+            lifecycleScope.launchWhenStarted {
+                while (true) {
+                    updateRenderMetricsOverlay()
+                    delay(RENDER_METRICS_INTERVAL_MS)
+                }
+            }
+        }
     }
 
     override fun onDestroy() {
         super.onDestroy()
         recordingAnimation.cancel()
+        if (isFinishing) {
+            thumbnailVisibilityTracker.stop()
+            participantGridController.stop()
+        } else {
+            // The recreated activity shares the track switcher and switches the tracks on in onStart
+            thumbnailVisibilityTracker.handOver()
+            participantGridController.handOver()
+        }
     }
 
     override fun onStart() {
         super.onStart()
         checkIntentURI()
+        setBackgroundMode(false)
+    }
+
+    override fun onStop() {
+        super.onStop()
+        setBackgroundMode(true)
+    }
+
+    override fun onUserLeaveHint() {
+        super.onUserLeaveHint()
+        val isConnected = roomViewState?.configuration is RoomViewConfiguration.Connected
+        if (isConnected && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O &&
+                packageManager.hasSystemFeature(PackageManager.FEATURE_PICTURE_IN_PICTURE)) {
+            enterPictureInPictureMode(PictureInPictureParams.Builder()
+                    .setAspectRatio(Rational(PICTURE_IN_PICTURE_WIDTH, PICTURE_IN_PICTURE_HEIGHT))
+                    .build())
+        }
+    }
+
+    override fun onPictureInPictureModeChanged(isInPictureInPictureMode: Boolean, newConfig: Configuration) {
+        super.onPictureInPictureModeChanged(isInPictureInPictureMode, newConfig)
+        setPictureInPictureMode(isInPictureInPictureMode)
     }
 
     override fun onResume() {
         super.onResume()
-        displayName = sharedPreferences.getString(Preferences.DISPLAY_NAME, null)
+        displayName = appSettingsRepository.currentSettings.displayName
         setTitle(displayName)
         roomViewModel.processInput(OnResume)
     }
@@ -165,6 +245,7 @@ class RoomActivity : AppCompatActivity() {
 
     public override fun onSaveInstanceState(outState: Bundle) {
         super.onSaveInstanceState(outState)
+        outState.putBoolean(GRID_MODE, isGridMode)
     }
 
     override fun onRequestPermissionsResult(
@@ -192,6 +273,8 @@ class RoomActivity : AppCompatActivity() {
         pauseAudioMenuItem = menu.findItem(R.id.pause_audio_menu_item)
         screenCaptureMenuItem = menu.findItem(R.id.share_screen_menu_item)
         deviceMenuItem = menu.findItem(R.id.device_menu_item)
+        gridViewMenuItem = menu.findItem(R.id.grid_view_menu_item)
+        gridViewMenuItem.isChecked = isGridMode
 
         onStates(roomViewModel) { state ->
             if (state is RoomViewState) bindRoomViewState(state)
@@ -220,6 +303,11 @@ class RoomActivity : AppCompatActivity() {
                 displayAudioDeviceList()
                 true
             }
+            R.id.grid_view_menu_item -> {
+                setGridMode(!isGridMode)
+                item.isChecked = isGridMode
+                true
+            }
             R.id.pause_audio_menu_item -> {
                 if (item.title == getString(R.string.pause_audio))
                     roomViewModel.processInput(DisableLocalAudio)
@@ -293,11 +381,90 @@ class RoomActivity : AppCompatActivity() {
     private fun setupThumbnailRecyclerView() {
         val layoutManager = LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false)
         binding.room.remoteVideoThumbnails.layoutManager = layoutManager
-        participantAdapter = ParticipantAdapter()
+        participantAdapter = ParticipantAdapter(sinkRouter, contentPreferences)
         participantAdapter
                 .viewHolderEvents
                 .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
         binding.room.remoteVideoThumbnails.adapter = participantAdapter
+
+        thumbnailVisibilityTracker = ThumbnailVisibilityTracker(
+                binding.room.remoteVideoThumbnails,
+                participantAdapter,
+                trackSwitcher,
+                onVisibleParticipantsChanged = { roomViewModel.processInput(ThumbnailsVisible(it)) })
+        thumbnailVisibilityTracker.start()
+
+        participantGridController = ParticipantGridController(
+                binding.room.participantGrid,
+                trackSwitcher,
+                sinkRouter,
+                PerformanceClass.of(this).maxGridTiles,
+                contentPreferences,
+                { roomViewModel.processInput(it) },
+                { roomViewModel.processInput(ThumbnailsVisible(it)) })
+    }
+
+    /*
+     * While the activity is stopped VideoService keeps the call and its audio running, but no
+     * video is visible. All sinks are detached and every remote video track is switched off. The
+     * views and track priorities are left as they are, so returning only attaches the sinks again
+     * and switches the visible tracks back on before the next frame is drawn.
+     */
+    private fun setBackgroundMode(isInBackground: Boolean) {
+        if (isInBackground) sinkRouter.stop() else sinkRouter.start()
+        trackSwitcher.isInBackground = isInBackground
+    }
+
+    /*
+     * The grid replaces the primary view and the thumbnails, whose sinks are released while it is
+     * shown.
+     */
+    private fun setGridMode(isGridMode: Boolean) {
+        if (this.isGridMode == isGridMode) return
+        this.isGridMode = isGridMode
+        updateParticipantViews()
+    }
+
+    /*
+     * Picture in picture only renders the primary participant through a single sink, at a low
+     * resolution, and every other remote video track is switched off. Thumbnails, the grid and the
+     * stats stay detached until full screen is restored.
+     */
+    private fun setPictureInPictureMode(isInPictureInPicture: Boolean) {
+        if (this.isInPictureInPicture == isInPictureInPicture) return
+        this.isInPictureInPicture = isInPictureInPicture
+        val controlsVisibility = if (isInPictureInPicture) View.GONE else View.VISIBLE
+        binding.lobbyToolbar.visibility = controlsVisibility
+        binding.roomControls.visibility = controlsVisibility
+        if (isInPictureInPicture) {
+            binding.recordingIndicator.visibility = View.GONE
+            binding.joinStatusLayout.visibility = View.GONE
+            binding.navigationDrawer.closeDrawers()
+        }
+        contentPreferences.maxSize = if (isInPictureInPicture)
+            VideoDimensions(PICTURE_IN_PICTURE_WIDTH, PICTURE_IN_PICTURE_HEIGHT) else null
+        updateParticipantViews()
+        if (!isInPictureInPicture) roomViewState?.let { bindRoomViewState(it) }
+    }
+
+    private fun updateParticipantViews() {
+        val showsGrid = isGridMode && !isInPictureInPicture
+        val showsThumbnails = !isGridMode && !isInPictureInPicture
+        binding.room.participantGrid.visibility = if (showsGrid) View.VISIBLE else View.GONE
+        binding.room.primaryVideo.visibility = if (showsGrid) View.GONE else View.VISIBLE
+        binding.room.remoteVideoThumbnails.visibility = if (showsThumbnails) View.VISIBLE else View.GONE
+        // The views that take over switch the tracks they need, so none are switched on in between
+        if (!showsThumbnails) {
+            thumbnailVisibilityTracker.handOver()
+            participantAdapter.submitList(null)
+        }
+        if (!showsGrid) participantGridController.handOver()
+        if (showsGrid) {
+            primaryParticipantController.release()
+            participantGridController.start()
+        }
+        if (showsThumbnails) thumbnailVisibilityTracker.start()
+        roomViewState?.let { renderParticipants(it) }
     }
 
     private fun roomNameTextChanged(text: CharSequence?) {
@@ -375,6 +542,10 @@ class RoomActivity : AppCompatActivity() {
                 roomName = roomViewState.title
                 toolbarTitle = roomName
                 joinStatus = ""
+                if (roomViewState.isReconnecting) {
+                    joinStatusLayoutState = View.VISIBLE
+                    joinStatus = "Reconnecting..."
+                }
                 binding.recordingIndicator.visibility =
                         if (roomViewState.isRecording) View.VISIBLE else View.GONE
             }
@@ -453,12 +624,10 @@ class RoomActivity : AppCompatActivity() {
     }
 
     private fun updateStatsUI(roomViewState: RoomViewState) {
-        val enableStats = sharedPreferences.getBoolean(
-                Preferences.ENABLE_STATS, Preferences.ENABLE_STATS_DEFAULT)
-        if (enableStats) {
+        if (appSettingsRepository.currentSettings.enableStats) {
             when (roomViewState.configuration) {
                 RoomViewConfiguration.Connected -> {
-                    statsListAdapter.updateStatsData(roomViewState.roomStats)
+                    statsListAdapter.updateStatsData(roomViewState.roomStats, remoteRenderMetrics())
                     binding.statsRecyclerView.visibility = View.VISIBLE
                     binding.statsDisabled.visibility = View.GONE
 
@@ -488,6 +657,28 @@ class RoomActivity : AppCompatActivity() {
         }
     }
 
+    private fun remoteRenderMetrics(): Map<String, String> =
+            sinkRouter.renderMetrics()
+                    .mapNotNull { (track, metrics) ->
+                        (track as? RemoteVideoTrack)?.let { it.sid to metrics.format() }
+                    }
+                    .groupBy({ it.first }, { it.second })
+                    .mapValues { it.value.joinToString("\n\n") }
+
+    /*
+     * Debug builds overlay the render metrics of every sink on the video while stats are enabled.
+     */
+    private fun updateRenderMetricsOverlay() {
+        val renderMetrics = if (appSettingsRepository.currentSettings.enableStats && !isInPictureInPicture)
+            sinkRouter.renderMetrics() else emptyList()
+        binding.room.renderMetricsOverlay.run {
+            visibility = if (renderMetrics.isEmpty()) View.GONE else View.VISIBLE
+            text = renderMetrics.joinToString("\n\n") { (track, metrics) ->
+                "${track.name}\n${metrics.format()}"
+            }
+        }
+    }
+
     private fun toggleAudioDevice(enableAudioDevice: Boolean) {
         setVolumeControl(enableAudioDevice)
         val viewEvent = if (enableAudioDevice) ActivateAudioDevice else DeactivateAudioDevice
@@ -496,13 +687,25 @@ class RoomActivity : AppCompatActivity() {
 
     private fun bindRoomViewState(roomViewState: RoomViewState) {
         deviceMenuItem.isVisible = roomViewState.availableAudioDevices?.isNotEmpty() ?: false
-        renderPrimaryView(roomViewState.primaryParticipant)
-        renderThumbnails(roomViewState)
+        this.roomViewState = roomViewState
+        renderParticipants(roomViewState)
+        preconnectInLobby(roomViewState)
+        if (isInPictureInPicture) return
         updateLayout(roomViewState)
         updateAudioDeviceIcon(roomViewState.selectedDevice)
         updateStatsUI(roomViewState)
     }
 
+    /*
+     * Warm up the connection to the token endpoint while the user is entering a room name, so
+     * joining does not pay for DNS and TLS setup.
+     */
+    private fun preconnectInLobby(roomViewState: RoomViewState) {
+        val isInLobby = roomViewState.configuration == Lobby
+        if (isInLobby && !this.isInLobby) tokenService.preconnect()
+        this.isInLobby = isInLobby
+    }
+
     private fun bindRoomViewEffects(roomViewEffect: RoomViewEffect) {
         when (roomViewEffect) {
             is Connected -> {
@@ -547,6 +750,28 @@ class RoomActivity : AppCompatActivity() {
         this.deviceMenuItem.setIcon(audioDeviceMenuIcon)
     }
 
+    private fun renderParticipants(roomViewState: RoomViewState) {
+        val participants = if (roomViewState.configuration is RoomViewConfiguration.Connected)
+            roomViewState.participantThumbnails else null
+        when {
+            isInPictureInPicture -> {
+                renderPrimaryView(roomViewState.primaryParticipant)
+                trackSwitcher.showOnly(
+                        participants.orEmpty().flatMap {
+                            listOfNotNull(it.getRemoteVideoTrack(), it.getRemoteScreenTrack())
+                        },
+                        roomViewState.primaryParticipant.getRenderedRemoteTrack())
+            }
+            isGridMode -> participantGridController.submit(participants)
+            else -> {
+                renderPrimaryView(roomViewState.primaryParticipant)
+                renderThumbnails(roomViewState)
+            }
+        }
+        // Only the primary view renders screen shares, after it has picked the track it renders
+        trackSwitcher.setUnlistedTracks(participants.orEmpty().mapNotNull { it.getRemoteScreenTrack() })
+    }
+
     private fun renderPrimaryView(primaryParticipant: ParticipantViewState) {
         primaryParticipant.run {
             primaryParticipantController.renderAsPrimary(
@@ -556,6 +781,7 @@ class RoomActivity : AppCompatActivity() {
                     isMuted,
                     isMirrored)
             binding.room.primaryVideo.showIdentityBadge(!primaryParticipant.isLocalParticipant)
+            thumbnailVisibilityTracker.setAlwaysOnTrack(getRenderedRemoteTrack())
         }
     }
 
@@ -616,6 +842,10 @@ class RoomActivity : AppCompatActivity() {
     companion object {
         private const val PERMISSIONS_REQUEST_CODE = 100
         private const val MEDIA_PROJECTION_REQUEST_CODE = 101
+        private const val GRID_MODE = "GRID_MODE"
+        private const val RENDER_METRICS_INTERVAL_MS = 1000L
+        private const val PICTURE_IN_PICTURE_WIDTH = 320
+        private const val PICTURE_IN_PICTURE_HEIGHT = 180
 
         // This will be used instead of real local participant sid,
         // because that information is unknown until room connection is fully established
@@ -0,0 +1,28 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.ClientTrackSwitchOffControl
+import com.twilio.video.app.data.AppSettingsRepository
+import com.twilio.video.app.sdk.RemoteVideoTrackSwitcher
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.android.components.ActivityRetainedComponent
+import dagger.hilt.android.scopes.ActivityRetainedScoped
+
+@Module
+@InstallIn(ActivityRetainedComponent::class)
+class RoomActivityModule {
+
+    /*
+     * Survives configuration changes, so that a recreated RoomActivity knows which tracks the
+     * previous one left switched off. Off screen thumbnails are switched off by the app, which the
+     * SDK only allows in manual mode.
+     */
+    @Provides
+    @ActivityRetainedScoped
+    fun providesRemoteVideoTrackSwitcher(appSettingsRepository: AppSettingsRepository) =
+        RemoteVideoTrackSwitcher().apply {
+            isEnabled = appSettingsRepository.currentSettings.clientTrackSwitchOffControl !=
+                    ClientTrackSwitchOffControl.AUTO
+        }
+}
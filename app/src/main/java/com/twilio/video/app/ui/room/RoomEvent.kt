@@ -16,6 +16,8 @@ sealed class RoomEvent {
         val roomName: String
     ) : RoomEvent()
     object Disconnected : RoomEvent()
+    object Reconnecting : RoomEvent()
+    data class Reconnected(val remoteParticipants: List<Participant>) : RoomEvent()
     object ConnectFailure : RoomEvent()
     object MaxParticipantFailure : RoomEvent()
     object RecordingStarted : RoomEvent()
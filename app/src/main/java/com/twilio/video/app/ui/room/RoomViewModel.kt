@@ -9,6 +9,7 @@ import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
 import com.twilio.audioswitch.AudioSwitch
 import com.twilio.video.Participant
+import com.twilio.video.app.diagnostics.FlightRecorder
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.buildParticipantViewState
 import com.twilio.video.app.sdk.RoomManager
@@ -28,6 +29,8 @@ import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.ScreenCaptur
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoDisabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.Reconnected
+import com.twilio.video.app.ui.room.RoomEvent.Reconnecting
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent
@@ -60,9 +63,11 @@ import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
+import com.twilio.video.app.ui.room.RoomViewEvent.ThumbnailsVisible
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalVideo
 import com.twilio.video.app.ui.room.RoomViewEvent.VideoTrackRemoved
+import com.twilio.video.app.util.AppLog
 import com.twilio.video.app.util.PermissionUtil
 import dagger.hilt.android.lifecycle.HiltViewModel
 import io.uniflow.android.AndroidDataFlow
@@ -70,15 +75,16 @@ import io.uniflow.core.flow.data.UIState
 import io.uniflow.core.flow.onState
 import javax.inject.Inject
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.collect
 import kotlinx.coroutines.launch
-import timber.log.Timber
 
 @HiltViewModel
 class RoomViewModel @Inject constructor(
     private val roomManager: RoomManager,
     private val audioSwitch: AudioSwitch,
     private val permissionUtil: PermissionUtil,
+    private val flightRecorder: FlightRecorder,
     private val participantManager: ParticipantManager = ParticipantManager(),
     initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant)
 ) : AndroidDataFlow(defaultState = initialViewState) {
@@ -86,6 +92,7 @@ class RoomViewModel @Inject constructor(
     private var permissionCheckRetry = false
     @VisibleForTesting(otherwise = PRIVATE)
     internal var roomManagerJob: Job? = null
+    private var dominantSpeakerJob: Job? = null
 
     init {
         audioSwitch.start { audioDevices, selectedDevice ->
@@ -107,7 +114,8 @@ class RoomViewModel @Inject constructor(
     }
 
     fun processInput(viewEvent: RoomViewEvent) {
-        Timber.d("View Event: $viewEvent")
+        AppLog.d { "View Event: $viewEvent" }
+        flightRecorder.recordViewEvent(viewEvent)
 
         when (viewEvent) {
             OnResume -> checkPermissions()
@@ -124,6 +132,7 @@ class RoomViewModel @Inject constructor(
                 participantManager.changePinnedParticipant(viewEvent.sid)
                 updateParticipantViewState()
             }
+            is ThumbnailsVisible -> participantManager.updateVisibleParticipants(viewEvent.sids)
             ToggleLocalVideo -> roomManager.toggleLocalVideo()
             EnableLocalVideo -> roomManager.enableLocalVideo()
             DisableLocalVideo -> roomManager.disableLocalVideo()
@@ -149,7 +158,7 @@ class RoomViewModel @Inject constructor(
     private fun subscribeToRoomEvents() {
         roomManager.roomEvents.let { sharedFlow ->
             roomManagerJob = viewModelScope.launch {
-                Timber.d("Listening for RoomEvents")
+                AppLog.d { "Listening for RoomEvents" }
                 sharedFlow.collect { observeRoomEvents(it) }
             }
         }
@@ -177,7 +186,7 @@ class RoomViewModel @Inject constructor(
     }
 
     private fun observeRoomEvents(roomEvent: RoomEvent) {
-        Timber.d("observeRoomEvents: %s", roomEvent)
+        AppLog.d { "observeRoomEvents: $roomEvent" }
         when (roomEvent) {
             is Connecting -> {
                 showConnectingViewState()
@@ -188,9 +197,18 @@ class RoomViewModel @Inject constructor(
                 action { sendEvent { RoomViewEffect.Connected(roomEvent.room) } }
             }
             is Disconnected -> showLobbyViewState()
+            // Participant state and sinks are kept so the last frames stay on screen
+            is Reconnecting -> updateState { currentState -> currentState.copy(isReconnecting = true) }
+            is Reconnected -> {
+                participantManager.reconcileRemoteParticipants(
+                        roomEvent.remoteParticipants.map { buildParticipantViewState(it) })
+                updateParticipantViewState()
+                updateState { currentState -> currentState.copy(isReconnecting = false) }
+            }
             is DominantSpeakerChanged -> {
-                participantManager.changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
+                val delayMs = participantManager.changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
                 updateParticipantViewState()
+                scheduleDominantSpeakerEvaluation(delayMs)
             }
             is ConnectFailure -> action {
                 sendEvent {
@@ -280,7 +298,7 @@ class RoomViewModel @Inject constructor(
     private fun showLobbyViewState() {
         action { sendEvent { RoomViewEffect.Disconnected } }
         updateState { currentState ->
-            currentState.copy(configuration = Lobby)
+            currentState.copy(configuration = Lobby, isReconnecting = false)
         }
         participantManager.clearRemoteParticipants()
         updateParticipantViewState()
@@ -294,21 +312,30 @@ class RoomViewModel @Inject constructor(
 
     private fun showConnectedViewState(roomName: String) {
         updateState { currentState ->
-            currentState.copy(configuration = RoomViewConfiguration.Connected, title = roomName)
+            currentState.copy(configuration = RoomViewConfiguration.Connected, title = roomName,
+                    isReconnecting = false)
         }
     }
 
     private fun checkParticipants(participants: List<Participant>) {
-        for ((index, participant) in participants.withIndex()) {
-            if (index == 0) { // local participant
-                participantManager.updateLocalParticipantSid(participant.sid)
-            } else {
-                participantManager.addParticipant(buildParticipantViewState(participant))
-            }
-        }
+        participantManager.updateLocalParticipantSid(participants.first().sid)
+        // Reconciling keeps the existing state when the room was rejoined after a disconnect
+        participantManager.reconcileRemoteParticipants(
+                participants.drop(1).map { buildParticipantViewState(it) })
         updateParticipantViewState()
     }
 
+    private fun scheduleDominantSpeakerEvaluation(delayMs: Long?) {
+        dominantSpeakerJob?.cancel()
+        delayMs ?: return
+        dominantSpeakerJob = viewModelScope.launch {
+            delay(delayMs)
+            val nextDelayMs = participantManager.evaluateDominantSpeaker()
+            updateParticipantViewState()
+            scheduleDominantSpeakerEvaluation(nextDelayMs)
+        }
+    }
+
     private fun updateParticipantViewState() {
         updateState { currentState ->
             currentState.copy(
@@ -332,11 +359,12 @@ class RoomViewModel @Inject constructor(
     class RoomViewModelFactory(
         private val roomManager: RoomManager,
         private val audioDeviceSelector: AudioSwitch,
-        private val permissionUtil: PermissionUtil
+        private val permissionUtil: PermissionUtil,
+        private val flightRecorder: FlightRecorder
     ) : ViewModelProvider.Factory {
 
         override fun <T : ViewModel> create(modelClass: Class<T>): T {
-            return RoomViewModel(roomManager, audioDeviceSelector, permissionUtil) as T
+            return RoomViewModel(roomManager, audioDeviceSelector, permissionUtil, flightRecorder) as T
         }
     }
 }
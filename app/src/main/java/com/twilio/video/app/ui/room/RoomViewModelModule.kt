@@ -3,7 +3,10 @@ package com.twilio.video.app.ui.room
 import android.app.Application
 import com.twilio.audioswitch.AudioDevice
 import com.twilio.audioswitch.AudioSwitch
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.participant.ParticipantManager
+import com.twilio.video.app.participant.TrackPriorityManager
+import com.twilio.video.app.participant.TrackPriorityPolicy
 import com.twilio.video.app.util.PermissionUtil
 import dagger.Module
 import dagger.Provides
@@ -21,7 +24,11 @@ class RoomViewModelModule {
 
     @Provides
     @ViewModelScoped
-    fun providesParticipantManager() = ParticipantManager()
+    fun providesParticipantManager(appSettingsRepository: AppSettingsRepository): ParticipantManager {
+        // The subscription bitrate limit doubles as the budget for track priorities
+        val budgetKbps = appSettingsRepository.currentSettings.maxSubscriptionBitrate.toInt()
+        return ParticipantManager(TrackPriorityManager(TrackPriorityPolicy(budgetKbps = budgetKbps)))
+    }
 
     @Provides
     @ViewModelScoped
@@ -14,6 +14,7 @@ data class RoomViewState(
     val selectedDevice: AudioDevice? = null,
     val availableAudioDevices: List<AudioDevice>? = null,
     val configuration: RoomViewConfiguration = Lobby,
+    val isReconnecting: Boolean = false,
     val isCameraEnabled: Boolean = false,
     val localVideoTrack: VideoTrackViewState? = null,
     val isMicEnabled: Boolean = false,
@@ -0,0 +1,132 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.sdk.RemoteVideoTrackSwitcher
+
+/*
+ * Keeps only the video tracks of thumbnails on screen switched on. The visible range is taken from
+ * the layout manager whenever children are attached or detached, the list scrolls or its contents
+ * change. It is widened by a few items in the scroll direction so that tracks are switched back on
+ * before their thumbnails scroll into view.
+ */
+internal class ThumbnailVisibilityTracker(
+    private val recyclerView: RecyclerView,
+    private val adapter: ParticipantAdapter,
+    private val trackSwitcher: RemoteVideoTrackSwitcher,
+    private val prefetchItems: Int = 1,
+    private val scrollPrefetchItems: Int = 3,
+    private val onVisibleParticipantsChanged: (Set<String>) -> Unit = {}
+) : RecyclerView.OnScrollListener(), RecyclerView.OnChildAttachStateChangeListener {
+
+    private val updateRunnable = Runnable { update() }
+    // List updates are evaluated after the next layout pass, once the positions are settled
+    private val dataObserver = object : RecyclerView.AdapterDataObserver() {
+        override fun onChanged() = postUpdate()
+        override fun onItemRangeChanged(positionStart: Int, itemCount: Int) = postUpdate()
+        override fun onItemRangeInserted(positionStart: Int, itemCount: Int) = postUpdate()
+        override fun onItemRangeRemoved(positionStart: Int, itemCount: Int) = postUpdate()
+        override fun onItemRangeMoved(fromPosition: Int, toPosition: Int, itemCount: Int) = postUpdate()
+    }
+    private var scrollDirection = 0
+    private var lastRange = IntRange.EMPTY
+    private var isListChanged = true
+    private var alwaysOnTrack: RemoteVideoTrack? = null
+    private var visibleSids = emptySet<String>()
+    private var isStarted = false
+
+    fun start() {
+        if (isStarted) return
+        isStarted = true
+        recyclerView.addOnScrollListener(this)
+        recyclerView.addOnChildAttachStateChangeListener(this)
+        adapter.registerAdapterDataObserver(dataObserver)
+    }
+
+    fun stop() {
+        if (handOver()) trackSwitcher.switchAllOn()
+    }
+
+    /*
+     * Stops without switching the tracks back on, for when the grid or picture in picture takes
+     * over the track switcher and switches the tracks it needs itself. Returns false if the
+     * tracker was not started.
+     */
+    fun handOver(): Boolean {
+        if (!isStarted) return false
+        isStarted = false
+        recyclerView.removeOnScrollListener(this)
+        recyclerView.removeOnChildAttachStateChangeListener(this)
+        adapter.unregisterAdapterDataObserver(dataObserver)
+        recyclerView.removeCallbacks(updateRunnable)
+        lastRange = IntRange.EMPTY
+        isListChanged = true
+        return true
+    }
+
+    /*
+     * The primary participant is rendered outside of the list, so its track stays on regardless of
+     * where its thumbnail is.
+     */
+    fun setAlwaysOnTrack(track: RemoteVideoTrack?) {
+        if (alwaysOnTrack !== track) {
+            alwaysOnTrack = track
+            isListChanged = true
+            update()
+        }
+    }
+
+    override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+        scrollDirection = Integer.signum(dx + dy)
+        evaluate()
+    }
+
+    override fun onScrollStateChanged(recyclerView: RecyclerView, newState: Int) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            scrollDirection = 0
+            evaluate()
+        }
+    }
+
+    override fun onChildViewAttachedToWindow(view: View) = evaluate()
+
+    override fun onChildViewDetachedFromWindow(view: View) = evaluate()
+
+    private fun postUpdate() {
+        recyclerView.removeCallbacks(updateRunnable)
+        recyclerView.post(updateRunnable)
+    }
+
+    private fun update() {
+        isListChanged = true
+        evaluate()
+    }
+
+    private fun evaluate() {
+        if (!isStarted) return
+        val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+        val first = layoutManager.findFirstVisibleItemPosition()
+        val last = layoutManager.findLastVisibleItemPosition()
+        val range = if (first == RecyclerView.NO_POSITION) {
+            IntRange.EMPTY
+        } else {
+            val before = if (scrollDirection < 0) scrollPrefetchItems else prefetchItems
+            val after = if (scrollDirection > 0) scrollPrefetchItems else prefetchItems
+            (first - before)..(last + after)
+        }
+        // Scrolling within the same items is the common case and needs no work
+        if (range == lastRange && !isListChanged) return
+        lastRange = range
+        isListChanged = false
+        val participants = adapter.currentList
+        trackSwitcher.update(participants.map { it.getRemoteVideoTrack() }, range, alwaysOnTrack)
+
+        val sids = participants.filterIndexed { index, _ -> index in range }.mapNotNullTo(HashSet()) { it.sid }
+        if (sids != visibleSids) {
+            visibleSids = sids
+            onVisibleParticipantsChanged(sids)
+        }
+    }
+}
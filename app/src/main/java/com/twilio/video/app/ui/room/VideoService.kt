@@ -5,6 +5,7 @@ import android.content.Context
 import android.content.Intent
 import android.os.Build
 import android.os.IBinder
+import com.twilio.video.app.diagnostics.FlightRecorder
 import com.twilio.video.app.sdk.RoomManager
 import dagger.hilt.android.AndroidEntryPoint
 import io.reactivex.disposables.CompositeDisposable
@@ -36,6 +37,7 @@ class VideoService(
     }
 
     @Inject lateinit var roomManager: RoomManager
+    @Inject lateinit var flightRecorder: FlightRecorder
 
     override fun onStartCommand(intent: Intent?, flags: Int, startId: Int): Int {
         super.onStartCommand(intent, flags, startId)
@@ -50,6 +52,12 @@ class VideoService(
         rxDisposables.clear()
     }
 
+    override fun onTaskRemoved(rootIntent: Intent?) {
+        super.onTaskRemoved(rootIntent)
+        // Swiping the task away ends the call on purpose, it is not an unexpected termination
+        flightRecorder.recordTaskRemoved()
+    }
+
     override fun onBind(intent: Intent?): IBinder? {
         return null
     }
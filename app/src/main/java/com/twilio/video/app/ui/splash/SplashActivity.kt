@@ -22,6 +22,7 @@ import androidx.appcompat.app.AppCompatActivity
 import com.twilio.video.app.auth.Authenticator
 import com.twilio.video.app.ui.ScreenSelector
 import com.twilio.video.app.ui.room.RoomActivity
+import dagger.Lazy
 import dagger.hilt.android.AndroidEntryPoint
 import javax.inject.Inject
 
@@ -29,14 +30,15 @@ import javax.inject.Inject
 class SplashActivity : AppCompatActivity() {
 
     @Inject lateinit var authenticator: Authenticator
-    @Inject lateinit var screenSelector: ScreenSelector
+    // Only needed when the user has to log in
+    @Inject lateinit var screenSelector: Lazy<ScreenSelector>
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         val newIntent = if (authenticator.loggedIn())
             Intent(this, RoomActivity::class.java)
         else
-            Intent(this, screenSelector.loginScreen)
+            Intent(this, screenSelector.get().loginScreen)
         startActivity(newIntent.apply { data = intent.data })
         finish()
     }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.util
+
+import android.util.Log
+import com.twilio.video.app.BuildConfig
+import timber.log.Timber
+
+/*
+ * Logging facade for hot paths. Messages are supplied by inline lambdas, so a disabled level costs
+ * a single comparison: the message is never built, and no vararg array or boxed arguments are
+ * allocated. The enabled levels are decided once per build type. Debug builds and the internal
+ * flavor log everything, while other builds only keep INFO and above.
+ */
+object AppLog {
+
+    @PublishedApi
+    @Volatile
+    internal var minPriority: Int =
+            if (BuildConfig.DEBUG || isInternalFlavor) Log.VERBOSE else Log.INFO
+
+    fun isLoggable(priority: Int) = priority >= minPriority
+
+    inline fun v(message: () -> String) {
+        if (Log.VERBOSE >= minPriority) Timber.v(message())
+    }
+
+    inline fun d(message: () -> String) {
+        if (Log.DEBUG >= minPriority) Timber.d(message())
+    }
+
+    inline fun i(message: () -> String) {
+        if (Log.INFO >= minPriority) Timber.i(message())
+    }
+
+    inline fun w(message: () -> String) {
+        if (Log.WARN >= minPriority) Timber.w(message())
+    }
+
+    inline fun w(throwable: Throwable, message: () -> String) {
+        if (Log.WARN >= minPriority) Timber.w(throwable, message())
+    }
+
+    inline fun e(message: () -> String) {
+        if (Log.ERROR >= minPriority) Timber.e(message())
+    }
+
+    inline fun e(throwable: Throwable, message: () -> String) {
+        if (Log.ERROR >= minPriority) Timber.e(throwable, message())
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.util;
+
+import android.util.Log;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import timber.log.Timber;
+
+/*
+ * Forwards log messages to a TreeRanger from a background thread. The calling thread only applies
+ * the per-tag rate limit and sampling, which run before Timber formats the message, and then
+ * writes into a lock-free ring buffer. VERBOSE, DEBUG and INFO messages are sent to the ranger in
+ * batches. Warnings and errors are forwarded on the calling thread right after the messages
+ * buffered before them, so they reach the ranger even if the process dies next.
+ */
+public class AsyncLoggingTree extends Timber.Tree {
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long RATE_LIMIT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_MESSAGES_PER_TAG = 20;
+    // Keep one in this many VERBOSE and DEBUG messages
+    private static final int DEBUG_SAMPLE_INTERVAL = 4;
+    private static final String UNTAGGED = "";
+    private static final String TIMBER_PACKAGE = "timber.log.";
+    private static final Pattern ANONYMOUS_CLASS = Pattern.compile("(\\$\\d+)+$");
+
+    private final TreeRanger treeRanger;
+    private final LogRingBuffer buffer;
+    private final int maxMessagesPerTag;
+    private final int debugSampleInterval;
+    private final ConcurrentHashMap<String, RateLimitWindow> rateLimitWindows =
+            new ConcurrentHashMap<>();
+    private final AtomicLong debugMessageCount = new AtomicLong();
+    private final StringBuilder batch = new StringBuilder();
+    private final LogRingBuffer.Consumer forwarder =
+            entry -> forward(entry.priority, entry.message, entry.throwable);
+    private final Thread worker;
+
+    public AsyncLoggingTree(TreeRanger treeRanger) {
+        this(treeRanger, BUFFER_CAPACITY, MAX_MESSAGES_PER_TAG, DEBUG_SAMPLE_INTERVAL, true);
+    }
+
+    AsyncLoggingTree(
+            TreeRanger treeRanger,
+            int bufferCapacity,
+            int maxMessagesPerTag,
+            int debugSampleInterval,
+            boolean startWorker) {
+        this.treeRanger = treeRanger;
+        this.buffer = new LogRingBuffer(bufferCapacity);
+        this.maxMessagesPerTag = maxMessagesPerTag;
+        this.debugSampleInterval = debugSampleInterval;
+        if (startWorker) {
+            worker = new Thread(this::run, "AsyncLoggingTree");
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MIN_PRIORITY);
+            worker.start();
+        } else {
+            worker = null;
+        }
+    }
+
+    @Override
+    protected boolean isLoggable(String tag, int priority) {
+        if (priority >= Log.WARN) {
+            return true;
+        }
+        if (priority <= Log.DEBUG
+                && debugMessageCount.getAndIncrement() % debugSampleInterval != 0) {
+            return false;
+        }
+        return tryAcquire(tag != null ? tag : callerTag());
+    }
+
+    @Override
+    protected void log(int priority, String tag, @NotNull String message, Throwable throwable) {
+        if (priority >= Log.WARN) {
+            synchronized (this) {
+                flush();
+                forward(priority, message, throwable);
+            }
+        } else if (buffer.offer(priority, tag, message, throwable)
+                && buffer.size() >= buffer.capacity() / 2
+                && worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /*
+     * Forwards everything buffered so far to the ranger on the calling thread.
+     */
+    public synchronized void flush() {
+        while (buffer.drain(forwarder, MAX_BATCH_SIZE) > 0) {
+            sendBatch();
+        }
+        long dropped = buffer.takeDropped();
+        if (dropped > 0) {
+            treeRanger.caution("Dropped " + dropped + " log messages, the log buffer was full");
+        }
+    }
+
+    /*
+     * Chains an uncaught exception handler that flushes the buffer before the handler installed
+     * so far, the crash reporter's, records the crash.
+     */
+    public void flushOnUncaughtException() {
+        Thread.UncaughtExceptionHandler defaultHandler =
+                Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(
+                (thread, throwable) -> {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        Log.e("AsyncLoggingTree", "Failed to flush log messages on crash", e);
+                    }
+                    if (defaultHandler != null) {
+                        defaultHandler.uncaughtException(thread, throwable);
+                    }
+                });
+    }
+
+    private void run() {
+        while (true) {
+            LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // Logging must never take the app down
+                Log.e("AsyncLoggingTree", "Failed to forward log messages", e);
+            }
+        }
+    }
+
+    private void forward(int priority, String message, Throwable throwable) {
+        switch (priority) {
+            case Log.VERBOSE:
+            case Log.DEBUG:
+            case Log.INFO:
+                if (batch.length() > 0) {
+                    batch.append('\n');
+                }
+                batch.append(message);
+                break;
+            case Log.WARN:
+                sendBatch();
+                treeRanger.caution(message);
+                break;
+            case Log.ERROR:
+            case Log.ASSERT:
+                sendBatch();
+                if (throwable == null) {
+                    treeRanger.alert(new Exception(message));
+                } else {
+                    treeRanger.alert(throwable);
+                }
+                break;
+        }
+    }
+
+    private void sendBatch() {
+        if (batch.length() > 0) {
+            treeRanger.inform(batch.toString());
+            batch.setLength(0);
+        }
+    }
+
+    /*
+     * Timber only passes a tag that was set explicitly, so untagged messages are limited per
+     * calling class, which is the tag DebugTree would have used.
+     */
+    private static String callerTag() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.startsWith(TIMBER_PACKAGE)
+                    && !className.equals(AsyncLoggingTree.class.getName())) {
+                return ANONYMOUS_CLASS.matcher(className).replaceAll("");
+            }
+        }
+        return UNTAGGED;
+    }
+
+    private boolean tryAcquire(String tag) {
+        RateLimitWindow window = rateLimitWindows.get(tag);
+        if (window == null) {
+            RateLimitWindow created = new RateLimitWindow();
+            window = rateLimitWindows.putIfAbsent(tag, created);
+            if (window == null) {
+                window = created;
+            }
+        }
+        return window.tryAcquire(maxMessagesPerTag);
+    }
+
+    /*
+     * Fixed window counter. Resetting the window is not atomic with counting, so a few extra
+     * messages may pass when a window rolls over, which is acceptable for logging.
+     */
+    private static final class RateLimitWindow {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile long startNanos = System.nanoTime();
+
+        boolean tryAcquire(int maxMessages) {
+            long now = System.nanoTime();
+            if (now - startNanos >= RATE_LIMIT_WINDOW_NANOS) {
+                startNanos = now;
+                count.set(0);
+            }
+            return count.incrementAndGet() <= maxMessages;
+        }
+    }
+}
@@ -16,15 +16,14 @@
 
 package com.twilio.video.app.util;
 
-import android.util.Log;
 import org.jetbrains.annotations.NotNull;
 import timber.log.Timber;
 
 public class DebugTree extends Timber.DebugTree {
-    private final TreeRanger treeRanger;
+    private final AsyncLoggingTree rangerTree;
 
-    public DebugTree(TreeRanger treeRanger) {
-        this.treeRanger = treeRanger;
+    public DebugTree(AsyncLoggingTree rangerTree) {
+        this.rangerTree = rangerTree;
     }
 
     @Override
@@ -32,24 +31,9 @@ public class DebugTree extends Timber.DebugTree {
         // Always log in debug
         super.log(priority, tag, message, throwable);
 
-        // Allow the ranger to act accordingly
-        switch (priority) {
-            case Log.VERBOSE:
-            case Log.DEBUG:
-            case Log.INFO:
-                treeRanger.inform(message);
-                break;
-            case Log.WARN:
-                treeRanger.caution(message);
-                break;
-            case Log.ERROR:
-            case Log.ASSERT:
-                if (throwable == null) {
-                    treeRanger.alert(new Exception(message));
-                } else {
-                    treeRanger.alert(throwable);
-                }
-                break;
+        // Allow the ranger to act accordingly, subject to its rate limits
+        if (rangerTree.isLoggable(tag, priority)) {
+            rangerTree.log(priority, tag, message, throwable);
         }
     }
 }
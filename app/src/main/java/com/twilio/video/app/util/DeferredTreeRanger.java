@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.util;
+
+import dagger.Lazy;
+import java.util.ArrayDeque;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/*
+ * Defers creating the Crashlytics ranger, and with it FirebaseCrashlytics, until attach is called
+ * once the app is idle after startup. Messages logged before then are buffered and replayed, while
+ * an alert attaches right away so that errors are never lost.
+ */
+@Singleton
+public class DeferredTreeRanger implements TreeRanger {
+    private static final int MAX_BUFFERED_MESSAGES = 100;
+
+    private final Lazy<CrashlyticsTreeRanger> treeRanger;
+    private final ArrayDeque<BufferedMessage> bufferedMessages = new ArrayDeque<>();
+    private volatile TreeRanger delegate;
+
+    @Inject
+    public DeferredTreeRanger(Lazy<CrashlyticsTreeRanger> treeRanger) {
+        this.treeRanger = treeRanger;
+    }
+
+    public void attach() {
+        attachedDelegate();
+    }
+
+    @Override
+    public void inform(String message) {
+        if (!buffer(false, message)) {
+            delegate.inform(message);
+        }
+    }
+
+    @Override
+    public void caution(String message) {
+        if (!buffer(true, message)) {
+            delegate.caution(message);
+        }
+    }
+
+    @Override
+    public void alert(Throwable throwable) {
+        attachedDelegate().alert(throwable);
+    }
+
+    private TreeRanger attachedDelegate() {
+        TreeRanger attached = delegate;
+        if (attached != null) {
+            return attached;
+        }
+        synchronized (bufferedMessages) {
+            if (delegate == null) {
+                TreeRanger created = treeRanger.get();
+                for (BufferedMessage bufferedMessage : bufferedMessages) {
+                    if (bufferedMessage.isCaution) {
+                        created.caution(bufferedMessage.message);
+                    } else {
+                        created.inform(bufferedMessage.message);
+                    }
+                }
+                bufferedMessages.clear();
+                delegate = created;
+            }
+            return delegate;
+        }
+    }
+
+    private boolean buffer(boolean isCaution, String message) {
+        if (delegate != null) {
+            return false;
+        }
+        synchronized (bufferedMessages) {
+            if (delegate != null) {
+                return false;
+            }
+            if (bufferedMessages.size() == MAX_BUFFERED_MESSAGES) {
+                bufferedMessages.pollFirst();
+            }
+            bufferedMessages.addLast(new BufferedMessage(isCaution, message));
+            return true;
+        }
+    }
+
+    private static class BufferedMessage {
+        final boolean isCaution;
+        final String message;
+
+        BufferedMessage(boolean isCaution, String message) {
+            this.isCaution = isCaution;
+            this.message = message;
+        }
+    }
+}
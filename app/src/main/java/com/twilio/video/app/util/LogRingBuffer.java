@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2021 Twilio, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.twilio.video.app.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Bounded multi-producer, single-consumer ring buffer of log entries. Producers claim a slot with
+ * a compare-and-set and never block; when the buffer is full the entry is dropped and counted.
+ * Entries are allocated up front and reused so that logging does not allocate.
+ */
+final class LogRingBuffer {
+
+    static final class Entry {
+        int priority;
+        String tag;
+        String message;
+        Throwable throwable;
+
+        private void clear() {
+            tag = null;
+            message = null;
+            throwable = null;
+        }
+    }
+
+    interface Consumer {
+        void accept(Entry entry);
+    }
+
+    private final int mask;
+    private final Entry[] entries;
+    /*
+     * A slot is free for the producer at position p when its sequence is p, and readable by the
+     * consumer at position p when its sequence is p + 1.
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head;
+
+    LogRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        mask = capacity - 1;
+        entries = new Entry[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(int priority, String tag, String message, Throwable throwable) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Entry entry = entries[index];
+                    entry.priority = priority;
+                    entry.tag = tag;
+                    entry.message = message;
+                    entry.throwable = throwable;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            position = tail.get();
+        }
+    }
+
+    /*
+     * Passes up to maxEntries entries to the consumer in the order they were offered. Entries are
+     * only valid for the duration of the accept call.
+     */
+    synchronized int drain(Consumer consumer, int maxEntries) {
+        long position = head;
+        int count = 0;
+        while (count < maxEntries) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            Entry entry = entries[index];
+            consumer.accept(entry);
+            entry.clear();
+            sequences.set(index, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        return count;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+}
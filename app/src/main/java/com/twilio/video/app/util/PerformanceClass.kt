@@ -0,0 +1,31 @@
+package com.twilio.video.app.util
+
+import android.app.ActivityManager
+import android.content.Context
+
+/*
+ * Coarse performance class of the device, used to bound how many remote videos are decoded and
+ * rendered at once. Media performance classes need API 31, so the class is derived from the memory
+ * class and the number of cores instead.
+ */
+enum class PerformanceClass(val maxGridTiles: Int) {
+    LOW(4),
+    MEDIUM(6),
+    HIGH(9);
+
+    companion object {
+        fun of(context: Context): PerformanceClass {
+            val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+            return classify(
+                    activityManager.isLowRamDevice,
+                    activityManager.memoryClass,
+                    Runtime.getRuntime().availableProcessors())
+        }
+
+        fun classify(isLowRamDevice: Boolean, memoryClassMb: Int, processorCount: Int) = when {
+            isLowRamDevice || memoryClassMb < 192 || processorCount < 4 -> LOW
+            memoryClassMb >= 256 && processorCount >= 8 -> HIGH
+            else -> MEDIUM
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.twilio.video.app.data
+
+import android.content.SharedPreferences
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class AppSettingsRepositoryTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val sharedPreferences = FakeSharedPreferences()
+
+    @Test
+    fun `it should load the stored preferences into the settings snapshot`() {
+        sharedPreferences.values[Preferences.DISPLAY_NAME] = "John"
+        sharedPreferences.values[Preferences.ENABLE_STATS] = false
+
+        val settings = AppSettingsRepository(sharedPreferences, testDispatcher).settings.value
+
+        assertThat(settings.displayName, equalTo("John"))
+        assertThat(settings.enableStats, equalTo(false))
+        assertThat(settings.topology, equalTo(Preferences.TOPOLOGY_DEFAULT))
+    }
+
+    @Test
+    fun `it should only re-read the changed preference`() {
+        val repository = AppSettingsRepository(sharedPreferences, testDispatcher)
+        val readsAfterLoad = sharedPreferences.readCount
+
+        sharedPreferences.put(Preferences.ENVIRONMENT, "stage")
+
+        assertThat(repository.settings.value.environment, equalTo("stage"))
+        assertThat(sharedPreferences.readCount - readsAfterLoad, equalTo(1))
+    }
+
+    @Test
+    fun `it should reload every preference when the preferences are cleared`() {
+        sharedPreferences.values[Preferences.DISPLAY_NAME] = "John"
+        val repository = AppSettingsRepository(sharedPreferences, testDispatcher)
+
+        sharedPreferences.clearAndNotify()
+
+        assertThat(repository.settings.value.displayName, nullValue())
+    }
+
+    @Test
+    fun `it should apply changes made before the initial load completes`() {
+        testDispatcher.pauseDispatcher()
+        val repository = AppSettingsRepository(sharedPreferences, testDispatcher)
+
+        sharedPreferences.values[Preferences.DISPLAY_NAME] = "John"
+        testDispatcher.resumeDispatcher()
+
+        assertThat(repository.settings.value.displayName, equalTo("John"))
+    }
+
+    @Test
+    fun `currentSettings should read the preferences if the initial load has not completed`() {
+        testDispatcher.pauseDispatcher()
+        sharedPreferences.values[Preferences.DISPLAY_NAME] = "John"
+
+        val repository = AppSettingsRepository(sharedPreferences, testDispatcher)
+
+        assertThat(repository.currentSettings.displayName, equalTo("John"))
+    }
+
+    private class FakeSharedPreferences : SharedPreferences {
+        val values = mutableMapOf<String, Any?>()
+        var readCount = 0
+        private val listeners = mutableSetOf<SharedPreferences.OnSharedPreferenceChangeListener>()
+
+        fun put(key: String, value: Any?) {
+            values[key] = value
+            listeners.forEach { it.onSharedPreferenceChanged(this, key) }
+        }
+
+        fun clearAndNotify() {
+            values.clear()
+            listeners.forEach { it.onSharedPreferenceChanged(this, null) }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun <T> read(key: String?, defaultValue: T): T {
+            readCount++
+            return if (values.containsKey(key)) values[key] as T else defaultValue
+        }
+
+        override fun getAll(): Map<String, *> = values
+        override fun getString(key: String?, defValue: String?) = read(key, defValue)
+        override fun getStringSet(key: String?, defValues: Set<String>?) = read(key, defValues)
+        override fun getInt(key: String?, defValue: Int) = read(key, defValue)
+        override fun getLong(key: String?, defValue: Long) = read(key, defValue)
+        override fun getFloat(key: String?, defValue: Float) = read(key, defValue)
+        override fun getBoolean(key: String?, defValue: Boolean) = read(key, defValue)
+        override fun contains(key: String?) = values.containsKey(key)
+        override fun edit(): SharedPreferences.Editor = throw UnsupportedOperationException()
+
+        override fun registerOnSharedPreferenceChangeListener(
+            listener: SharedPreferences.OnSharedPreferenceChangeListener
+        ) {
+            listeners.add(listener)
+        }
+
+        override fun unregisterOnSharedPreferenceChangeListener(
+            listener: SharedPreferences.OnSharedPreferenceChangeListener
+        ) {
+            listeners.remove(listener)
+        }
+    }
+}
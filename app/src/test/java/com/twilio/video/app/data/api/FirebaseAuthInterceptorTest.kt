@@ -0,0 +1,158 @@
+package com.twilio.video.app.data.api
+
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+private const val USER_ID = "user"
+
+class FirebaseAuthInterceptorTest : BaseUnitTest() {
+
+    private val server = MockWebServer()
+    private var now = 0L
+    private val tokenSource = FakeIdTokenSource()
+    private val tokenCache = IdTokenCache(tokenSource) { now }
+    private val client = OkHttpClient.Builder()
+            .addInterceptor(FirebaseAuthInterceptor(tokenCache))
+            .build()
+
+    @Before
+    fun setUp() {
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun `it should reuse an unexpired token across requests`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+
+        execute()
+        execute()
+
+        assertThat(tokenSource.requestCount, equalTo(1))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-1"))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-1"))
+    }
+
+    @Test
+    fun `it should refresh the token once and retry the request on a 401`() {
+        server.enqueue(MockResponse().setResponseCode(401))
+        server.enqueue(MockResponse())
+
+        val responseCode = execute()
+
+        assertThat(responseCode, equalTo(200))
+        assertThat(tokenSource.requestCount, equalTo(2))
+        assertThat(server.requestCount, equalTo(2))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-1"))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-2"))
+    }
+
+    @Test
+    fun `it should only retry the request once on repeated 401s`() {
+        server.enqueue(MockResponse().setResponseCode(401))
+        server.enqueue(MockResponse().setResponseCode(401))
+
+        val responseCode = execute()
+
+        assertThat(responseCode, equalTo(401))
+        assertThat(tokenSource.requestCount, equalTo(2))
+        assertThat(server.requestCount, equalTo(2))
+    }
+
+    @Test
+    fun `it should keep using the cached token while refreshing it ahead of expiry`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        execute()
+        tokenSource.completeSynchronously = false
+
+        now = tokenSource.expiresInMs - TimeUnit.MINUTES.toMillis(1)
+        execute()
+        tokenSource.completePending()
+        execute()
+
+        assertThat(tokenSource.requestCount, equalTo(2))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-1"))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-1"))
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-2"))
+    }
+
+    @Test
+    fun `it should fetch a new token when the cached token has expired`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        execute()
+
+        now = tokenSource.expiresInMs
+        execute()
+
+        assertThat(tokenSource.requestCount, equalTo(2))
+        server.takeRequest()
+        assertThat(server.takeRequest().getHeader("Authorization"), equalTo("token-2"))
+    }
+
+    @Test
+    fun `it should fetch a new token when the signed in user changes`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        execute()
+
+        tokenSource.userId = "other user"
+        execute()
+
+        assertThat(tokenSource.requestCount, equalTo(2))
+    }
+
+    @Test
+    fun `it should not reuse the token after the user signs out`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        execute()
+
+        tokenSource.userId = null
+        execute()
+
+        assertThat(tokenSource.requestCount, equalTo(2))
+    }
+
+    private fun execute(): Int =
+            client.newCall(Request.Builder().url(server.url("/")).build()).execute().use { it.code() }
+
+    private inner class FakeIdTokenSource : IdTokenSource {
+        val expiresInMs = TimeUnit.HOURS.toMillis(1)
+        var userId: String? = USER_ID
+        var requestCount = 0
+        var completeSynchronously = true
+        private var pendingCallback: IdTokenSource.Callback? = null
+
+        override fun getUserId() = userId
+
+        override fun getIdToken(forceRefresh: Boolean, callback: IdTokenSource.Callback) {
+            requestCount++
+            if (completeSynchronously) complete(callback) else pendingCallback = callback
+        }
+
+        fun completePending() {
+            pendingCallback?.let { complete(it) }
+            pendingCallback = null
+        }
+
+        private fun complete(callback: IdTokenSource.Callback) =
+                callback.onSuccess("token-$requestCount", now + expiresInMs)
+    }
+}
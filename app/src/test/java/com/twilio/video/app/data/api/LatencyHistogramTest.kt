@@ -0,0 +1,33 @@
+package com.twilio.video.app.data.api
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class LatencyHistogramTest {
+
+    private val histogram = LatencyHistogram(longArrayOf(100, 200, 500))
+
+    @Test
+    fun `percentile should be null without samples`() {
+        assertThat(histogram.percentile(0.95), nullValue())
+    }
+
+    @Test
+    fun `percentile should resolve to the upper bound of the containing bucket`() {
+        repeat(94) { histogram.record(50) }
+        repeat(6) { histogram.record(150) }
+
+        assertThat(histogram.percentile(0.5), equalTo(100L))
+        assertThat(histogram.percentile(0.95), equalTo(200L))
+    }
+
+    @Test
+    fun `latencies above the largest bound should resolve to the largest bound`() {
+        histogram.record(10_000)
+
+        assertThat(histogram.snapshot().last(), equalTo(1L))
+        assertThat(histogram.percentile(0.95), equalTo(500L))
+    }
+}
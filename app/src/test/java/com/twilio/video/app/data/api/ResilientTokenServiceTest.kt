@@ -0,0 +1,164 @@
+package com.twilio.video.app.data.api
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.util.MainCoroutineScopeRule
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.runBlockingTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assert.fail
+import org.junit.Rule
+import org.junit.Test
+
+private const val identity = "John"
+private const val roomName = "room"
+private const val token = "token"
+
+class ResilientTokenServiceTest : BaseUnitTest() {
+
+    @get:Rule
+    val coroutineScope = MainCoroutineScopeRule()
+
+    private val policy = TokenRequestPolicy()
+    private val stats = TokenRequestStats(policy) { coroutineScope.currentTime }
+    private var environment = TWILIO_API_DEV_ENV
+    private val tokenService = FakeTokenService()
+    private val resilientTokenService = ResilientTokenService(
+            tokenService, { environment }, stats, policy) { coroutineScope.currentTime }
+
+    @Test
+    fun `getToken should not hedge a request that completes before the hedge delay`() {
+        coroutineScope.runBlockingTest {
+            tokenService.latenciesMs += policy.defaultHedgeDelayMs - 1
+
+            assertThat(resilientTokenService.getToken(identity, roomName), equalTo(token))
+
+            assertThat(tokenService.requestCount, equalTo(1))
+            assertThat(devStats().count(TokenRequestOutcome.SUCCESS), equalTo(1L))
+            assertThat(devStats().latency.count, equalTo(1L))
+        }
+    }
+
+    @Test
+    fun `getToken should send a hedged request once the hedge delay elapses`() {
+        coroutineScope.runBlockingTest {
+            tokenService.latenciesMs += listOf(policy.deadlineMs - 1, 100)
+
+            assertThat(resilientTokenService.getToken(identity, roomName), equalTo(token))
+
+            assertThat(tokenService.requestCount, equalTo(2))
+            assertThat(currentTime, equalTo(policy.defaultHedgeDelayMs + 100))
+            assertThat(devStats().count(TokenRequestOutcome.HEDGED_SUCCESS), equalTo(1L))
+        }
+    }
+
+    @Test
+    fun `getToken should not hedge a request that is not idempotent`() {
+        coroutineScope.runBlockingTest {
+            tokenService.isIdempotent = false
+            tokenService.latenciesMs += policy.defaultHedgeDelayMs + 100
+
+            assertThat(resilientTokenService.getToken(identity, roomName), equalTo(token))
+
+            assertThat(tokenService.requestCount, equalTo(1))
+            assertThat(devStats().count(TokenRequestOutcome.SUCCESS), equalTo(1L))
+            assertThat(devStats().latency.count, equalTo(1L))
+        }
+    }
+
+    @Test
+    fun `the hedge delay should follow the observed p95 latency`() {
+        coroutineScope.runBlockingTest {
+            repeat(policy.minHedgeSamples) { devStats().latency.record(300) }
+            tokenService.latenciesMs += listOf(policy.deadlineMs - 1, 100)
+
+            resilientTokenService.getToken(identity, roomName)
+
+            assertThat(currentTime, equalTo(400L))
+        }
+    }
+
+    @Test
+    fun `getToken should fail once the deadline is exceeded`() {
+        coroutineScope.runBlockingTest {
+            tokenService.latenciesMs += listOf(policy.deadlineMs + 1, policy.deadlineMs + 1)
+
+            try {
+                resilientTokenService.getToken(identity, roomName)
+                fail("Expected an AuthServiceException")
+            } catch (e: AuthServiceException) {
+                assertThat(currentTime, equalTo(policy.deadlineMs))
+                assertThat(devStats().count(TokenRequestOutcome.TIMEOUT), equalTo(1L))
+            }
+        }
+    }
+
+    @Test
+    fun `getToken should fail fast after repeated failures until the circuit reopens`() {
+        coroutineScope.runBlockingTest {
+            tokenService.error = IllegalStateException()
+            repeat(policy.failureThreshold) { getTokenIgnoringErrors() }
+
+            getTokenIgnoringErrors()
+
+            assertThat(tokenService.requestCount, equalTo(policy.failureThreshold))
+            assertThat(devStats().count(TokenRequestOutcome.CIRCUIT_OPEN), equalTo(1L))
+
+            advanceTimeBy(policy.openDurationMs)
+            tokenService.error = null
+
+            assertThat(resilientTokenService.getToken(identity, roomName), equalTo(token))
+            assertThat(devStats().circuitBreaker.state, equalTo(CircuitBreaker.State.CLOSED))
+        }
+    }
+
+    @Test
+    fun `client errors should not open the circuit`() {
+        coroutineScope.runBlockingTest {
+            tokenService.error = AuthServiceException(error = AuthServiceError.INVALID_PASSCODE_ERROR)
+            repeat(policy.failureThreshold) { getTokenIgnoringErrors() }
+
+            assertThat(devStats().circuitBreaker.state, equalTo(CircuitBreaker.State.CLOSED))
+            assertThat(devStats().count(TokenRequestOutcome.CLIENT_ERROR),
+                    equalTo(policy.failureThreshold.toLong()))
+        }
+    }
+
+    @Test
+    fun `failures in one environment should not open the circuit of another`() {
+        coroutineScope.runBlockingTest {
+            tokenService.error = IllegalStateException()
+            repeat(policy.failureThreshold) { getTokenIgnoringErrors() }
+            tokenService.error = null
+            environment = TWILIO_API_STAGE_ENV
+
+            assertThat(resilientTokenService.getToken(identity, roomName), equalTo(token))
+            assertThat(devStats().circuitBreaker.state, equalTo(CircuitBreaker.State.OPEN))
+        }
+    }
+
+    private suspend fun getTokenIgnoringErrors() {
+        try {
+            resilientTokenService.getToken(identity, roomName)
+        } catch (e: Exception) {
+        }
+    }
+
+    private fun devStats() = stats.forEnvironment(TWILIO_API_DEV_ENV)
+
+    private class FakeTokenService : TokenService {
+        val latenciesMs = mutableListOf<Long>()
+        var error: Exception? = null
+        var requestCount = 0
+        var isIdempotent = true
+
+        override suspend fun getToken(identity: String?, roomName: String?): String {
+            requestCount++
+            delay(latenciesMs.removeFirstOrNull() ?: 0)
+            error?.let { throw it }
+            return token
+        }
+
+        override fun isIdempotent(roomName: String?) = isIdempotent
+    }
+}
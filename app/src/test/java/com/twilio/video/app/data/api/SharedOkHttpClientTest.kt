@@ -0,0 +1,109 @@
+package com.twilio.video.app.data.api
+
+import com.twilio.video.app.BaseUnitTest
+import java.net.InetAddress
+import okhttp3.Dns
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class SharedOkHttpClientTest : BaseUnitTest() {
+
+    private val server = MockWebServer()
+    private val dns = CountingDns()
+    private val sharedOkHttpClient = buildSharedOkHttpClient(CachingDns(dns))
+    private val preconnector = HttpPreconnector(sharedOkHttpClient) { it.run() }
+
+    @Before
+    fun setUp() {
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun `a request after a preconnect should reuse the preconnected connection`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        val serviceClient = sharedOkHttpClient.newBuilder().build()
+
+        preconnector.preconnect { server.url("/token").toString() }
+        execute(serviceClient)
+
+        val preconnectRequest = server.takeRequest()
+        val tokenRequest = server.takeRequest()
+        assertThat(preconnectRequest.method, equalTo("HEAD"))
+        assertThat(preconnectRequest.sequenceNumber, equalTo(0))
+        assertThat(tokenRequest.sequenceNumber, equalTo(1))
+        assertThat(sharedOkHttpClient.connectionPool().connectionCount(), equalTo(1))
+    }
+
+    @Test
+    fun `clients derived from the shared client should share connections`() {
+        server.enqueue(MockResponse())
+        server.enqueue(MockResponse())
+        val authClient = sharedOkHttpClient.newBuilder().addInterceptor { it.proceed(it.request()) }.build()
+        val tokenClient = sharedOkHttpClient.newBuilder().build()
+
+        execute(authClient)
+        execute(tokenClient)
+
+        assertThat(server.takeRequest().sequenceNumber, equalTo(0))
+        assertThat(server.takeRequest().sequenceNumber, equalTo(1))
+        assertThat(sharedOkHttpClient.connectionPool().connectionCount(), equalTo(1))
+    }
+
+    @Test
+    fun `a preconnect should be skipped when there is no URL to connect to`() {
+        preconnector.preconnect { null }
+
+        assertThat(server.requestCount, equalTo(0))
+    }
+
+    @Test
+    fun `CachingDns should reuse lookups until they expire`() {
+        var now = 0L
+        val cachingDns = CachingDns(dns, ttlMs = 1000) { now }
+
+        cachingDns.lookup("localhost")
+        now = 999
+        cachingDns.lookup("localhost")
+        assertThat(dns.lookupCount, equalTo(1))
+
+        now = 1000
+        cachingDns.lookup("localhost")
+        assertThat(dns.lookupCount, equalTo(2))
+    }
+
+    @Test
+    fun `CachingDns should cache lookups per host`() {
+        val cachingDns = CachingDns(dns)
+
+        cachingDns.lookup("localhost")
+        cachingDns.lookup("127.0.0.1")
+        cachingDns.lookup("localhost")
+
+        assertThat(dns.lookupCount, equalTo(2))
+    }
+
+    private fun execute(client: OkHttpClient) =
+            client.newCall(Request.Builder().url(server.url("/token")).build()).execute().close()
+
+    private class CountingDns : Dns {
+        var lookupCount = 0
+
+        override fun lookup(hostname: String): List<InetAddress> {
+            lookupCount++
+            return Dns.SYSTEM.lookup(hostname)
+        }
+    }
+}
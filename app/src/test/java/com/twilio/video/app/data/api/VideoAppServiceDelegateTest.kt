@@ -1,11 +1,9 @@
 package com.twilio.video.app.data.api
 
-import android.content.SharedPreferences
 import com.twilio.video.app.BaseUnitTest
-import com.twilio.video.app.data.Preferences
-import com.twilio.video.app.data.Preferences.RECORD_PARTICIPANTS_ON_CONNECT
+import com.twilio.video.app.data.AppSettings
+import com.twilio.video.app.data.AppSettingsRepository
 import com.twilio.video.app.data.Preferences.RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT
-import com.twilio.video.app.data.Preferences.TOPOLOGY
 import com.twilio.video.app.data.Preferences.TOPOLOGY_DEFAULT
 import com.twilio.video.app.util.MainCoroutineScopeRule
 import kotlinx.coroutines.test.runBlockingTest
@@ -27,11 +25,7 @@ class VideoAppServiceDelegateTest : BaseUnitTest() {
     @get:Rule
     val coroutineScope = MainCoroutineScopeRule()
 
-    private val sharedPreferences: SharedPreferences = mock {
-        whenever(mock.getString(TOPOLOGY, TOPOLOGY_DEFAULT)).thenReturn(TOPOLOGY_DEFAULT)
-        whenever(mock.getBoolean(RECORD_PARTICIPANTS_ON_CONNECT, Preferences
-            .RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT)).thenReturn(RECORD_PARTICIPANTS_ON_CONNECT_DEFAULT)
-    }
+    private val appSettingsRepository: AppSettingsRepository = mock()
     private val videoAppServiceDev: VideoAppService = mock()
     private val videoAppServiceStage: VideoAppService = mock()
     private val videoAppServiceProd: VideoAppService = mock()
@@ -40,9 +34,9 @@ class VideoAppServiceDelegateTest : BaseUnitTest() {
     fun `getToken should retrieve production environment token successfully`() {
         coroutineScope.runBlockingTest {
             mockService(videoAppServiceProd, prodTestToken)
-            val videoAppServiceDelegate = VideoAppServiceDelegate(sharedPreferences, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
-            whenever(sharedPreferences.getString(Preferences.ENVIRONMENT, Preferences.ENVIRONMENT_DEFAULT))
-                    .thenReturn("production")
+            val videoAppServiceDelegate = VideoAppServiceDelegate(appSettingsRepository, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
+            whenever(appSettingsRepository.getSettings())
+                    .thenReturn(AppSettings(environment = "production"))
 
             val token = videoAppServiceDelegate.getToken(identity, roomName)
 
@@ -54,9 +48,9 @@ class VideoAppServiceDelegateTest : BaseUnitTest() {
     fun `getToken should retrieve stage environment token successfully`() {
         coroutineScope.runBlockingTest {
             mockService(videoAppServiceStage, stageTestToken)
-            val videoAppServiceDelegate = VideoAppServiceDelegate(sharedPreferences, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
-            whenever(sharedPreferences.getString(Preferences.ENVIRONMENT, Preferences.ENVIRONMENT_DEFAULT))
-                    .thenReturn(TWILIO_API_STAGE_ENV)
+            val videoAppServiceDelegate = VideoAppServiceDelegate(appSettingsRepository, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
+            whenever(appSettingsRepository.getSettings())
+                    .thenReturn(AppSettings(environment = TWILIO_API_STAGE_ENV))
 
             val token = videoAppServiceDelegate.getToken(identity, roomName)
 
@@ -68,9 +62,9 @@ class VideoAppServiceDelegateTest : BaseUnitTest() {
     fun `getToken should retrieve dev environment token successfully`() {
         coroutineScope.runBlockingTest {
             mockService(videoAppServiceDev, devTestToken)
-            val videoAppServiceDelegate = VideoAppServiceDelegate(sharedPreferences, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
-            whenever(sharedPreferences.getString(Preferences.ENVIRONMENT, Preferences.ENVIRONMENT_DEFAULT))
-                    .thenReturn(TWILIO_API_DEV_ENV)
+            val videoAppServiceDelegate = VideoAppServiceDelegate(appSettingsRepository, videoAppServiceDev, videoAppServiceStage, videoAppServiceProd)
+            whenever(appSettingsRepository.getSettings())
+                    .thenReturn(AppSettings(environment = TWILIO_API_DEV_ENV))
 
             val token = videoAppServiceDelegate.getToken(identity, roomName)
 
@@ -0,0 +1,105 @@
+package com.twilio.video.app.diagnostics
+
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomViewEvent
+import kotlinx.coroutines.Dispatchers
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class FlightRecorderTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private var now = 1000L
+
+    private fun newRecorder(capacity: Int = 8) =
+            FlightRecorder(temporaryFolder.root.resolve("flight_recorder.bin"), capacity, Dispatchers.Unconfined) {
+                now++
+            }
+
+    @Test
+    fun `records of the previous process should be decoded in order`() {
+        newRecorder().apply {
+            recordViewEvent(RoomViewEvent.OnResume)
+            recordRoomEvent(RoomEvent.Connecting)
+            recordRoomEvent(RoomEvent.Reconnecting)
+        }
+
+        val records = FlightRecordDecoder.decode(newRecorder().takePreviousSession()!!)
+
+        assertThat(records.map { it.name },
+                equalTo(listOf("SessionStart", "OnResume", "Connecting", "Reconnecting")))
+        assertThat(records.map { it.timestampMs }, equalTo(listOf(1001L, 1002L, 1003L, 1004L)))
+        assertThat(FlightRecordDecoder.endedInCall(records), equalTo(true))
+    }
+
+    @Test
+    fun `only the most recent records should be kept once the ring wraps`() {
+        newRecorder(capacity = 4).apply {
+            repeat(5) { recordRoomEvent(RoomEvent.RecordingStarted) }
+            recordRoomEvent(RoomEvent.Disconnected)
+        }
+
+        val records = FlightRecordDecoder.decode(newRecorder(capacity = 4).takePreviousSession()!!)
+
+        assertThat(records.map { it.name }, equalTo(listOf(
+                "RecordingStarted", "RecordingStarted", "RecordingStarted", "Disconnected")))
+        assertThat(FlightRecordDecoder.endedInCall(records), equalTo(false))
+    }
+
+    @Test
+    fun `a crash marker should not be reported as ending in a call`() {
+        newRecorder().apply {
+            recordRoomEvent(RoomEvent.Reconnecting)
+            recordCrash()
+        }
+
+        val records = FlightRecordDecoder.decode(newRecorder().takePreviousSession()!!)
+
+        assertThat(records.last().name, equalTo("Crash"))
+        assertThat(FlightRecordDecoder.endedInCall(records), equalTo(false))
+    }
+
+    @Test
+    fun `a call ended by removing the task should not be reported as ending in a call`() {
+        newRecorder().apply {
+            recordRoomEvent(RoomEvent.Reconnecting)
+            recordTaskRemoved()
+        }
+
+        val records = FlightRecordDecoder.decode(newRecorder().takePreviousSession()!!)
+
+        assertThat(records.last().name, equalTo("TaskRemoved"))
+        assertThat(FlightRecordDecoder.endedInCall(records), equalTo(false))
+    }
+
+    @Test
+    fun `the file should be opened when the recorder is created`() {
+        val file = temporaryFolder.root.resolve("flight_recorder.bin")
+
+        newRecorder()
+
+        val size = FlightRecordFormat.HEADER_SIZE + 8 * FlightRecordFormat.RECORD_SIZE
+        assertThat(file.length(), equalTo(size.toLong()))
+    }
+
+    @Test
+    fun `the previous session should only be taken once`() {
+        newRecorder().recordRoomEvent(RoomEvent.Connecting)
+        val recorder = newRecorder()
+
+        recorder.takePreviousSession()
+
+        assertThat(recorder.takePreviousSession(), nullValue())
+    }
+
+    @Test
+    fun `a new file should not have a previous session`() {
+        assertThat(newRecorder().takePreviousSession(), nullValue())
+    }
+}
@@ -3,6 +3,7 @@ package com.twilio.video.app.participant
 import com.twilio.video.LocalVideoTrack
 import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.BaseUnitTest
 import com.twilio.video.app.sdk.VideoTrackViewState
@@ -219,7 +220,7 @@ class ParticipantManagerTest : BaseUnitTest() {
     }
 
     @Test
-    fun `the old primary participant VideoTrack priority should be reset to null when a new participant is assigned`() {
+    fun `the old primary participant VideoTrack priority should be lowered when a new participant is assigned`() {
         val participant3 = setupThreeParticipantScenario()
 
         participantManager.changePinnedParticipant(participant3.sid!!)
@@ -228,12 +229,12 @@ class ParticipantManagerTest : BaseUnitTest() {
         val videoTrack = participant3.videoTrack!!.videoTrack as RemoteVideoTrack
         inOrder(videoTrack).run {
             verify(videoTrack).priority = HIGH
-            verify(videoTrack).priority = null
+            verify(videoTrack).priority = LOW
         }
     }
 
     @Test
-    fun `the old primary participant screen track priority should be reset to null when a new participant is assigned`() {
+    fun `the old primary participant screen track priority should be lowered when a new participant is assigned`() {
         val participant3 = setupThreeParticipantScenario()
         val screenTrack = mock<RemoteVideoTrack>()
 
@@ -243,12 +244,12 @@ class ParticipantManagerTest : BaseUnitTest() {
 
         inOrder(screenTrack).run {
             verify(screenTrack).priority = HIGH
-            verify(screenTrack).priority = null
+            verify(screenTrack).priority = LOW
         }
     }
 
     @Test
-    fun `the old primary participant VideoTrack priority should be reset to null when the local participant is assigned`() {
+    fun `the old primary participant VideoTrack priority should be lowered when the local participant is assigned`() {
         val participant3 = setupThreeParticipantScenario()
 
         participantManager.changePinnedParticipant(participant3.sid!!)
@@ -257,12 +258,12 @@ class ParticipantManagerTest : BaseUnitTest() {
         val videoTrack = participant3.videoTrack!!.videoTrack as RemoteVideoTrack
         inOrder(videoTrack).run {
             verify(videoTrack).priority = HIGH
-            verify(videoTrack).priority = null
+            verify(videoTrack).priority = LOW
         }
     }
 
     @Test
-    fun `the old primary participant screen track priority should be reset to null when the local participant is assigned`() {
+    fun `the old primary participant screen track priority should be lowered when the local participant is assigned`() {
         setupThreeParticipantScenario()
         val screenTrack = mock<RemoteVideoTrack>()
 
@@ -272,10 +273,60 @@ class ParticipantManagerTest : BaseUnitTest() {
 
         inOrder(screenTrack).run {
             verify(screenTrack).priority = HIGH
-            verify(screenTrack).priority = null
+            verify(screenTrack).priority = LOW
         }
     }
 
+    @Test
+    fun `reconcileRemoteParticipants should remove participants that are no longer in the room`() {
+        setupThreeParticipantScenario()
+        val participant3 = participantManager.getParticipant("3")!!
+
+        participantManager.reconcileRemoteParticipants(listOf(participant3))
+
+        assertThat(participantManager.participantThumbnails.map { it.sid }, equalTo(listOf("1", "3")))
+    }
+
+    @Test
+    fun `reconcileRemoteParticipants should add participants that joined while reconnecting`() {
+        setupThreeParticipantScenario()
+        val participants = participantManager.participantThumbnails.filter { !it.isLocalParticipant }
+        val participant4 = ParticipantViewState("4", "Participant 4")
+
+        participantManager.reconcileRemoteParticipants(participants + participant4)
+
+        assertThat(participantManager.participantThumbnails.map { it.sid },
+                equalTo(listOf("1", "2", "3", "4")))
+    }
+
+    @Test
+    fun `reconcileRemoteParticipants should keep the existing state of unchanged participants`() {
+        val participant3 = setupThreeParticipantScenario()
+        participantManager.changePinnedParticipant("3")
+        participantManager.updateParticipantVideoTrack("3",
+                VideoTrackViewState(participant3.videoTrack!!.videoTrack, isSwitchedOff = true))
+        val expectedParticipant = participantManager.getParticipant("3")
+        val participants = participantManager.participantThumbnails.filter { !it.isLocalParticipant }
+
+        participantManager.reconcileRemoteParticipants(participants.map {
+            it.copy(isPinned = false, videoTrack = it.videoTrack?.copy(isSwitchedOff = false))
+        })
+
+        assertThat(participantManager.getParticipant("3"), equalTo(expectedParticipant))
+        assertThat(participantManager.primaryParticipant, equalTo(expectedParticipant))
+    }
+
+    @Test
+    fun `reconcileRemoteParticipants should update the muted state of existing participants`() {
+        setupThreeParticipantScenario()
+        val participants = participantManager.participantThumbnails.filter { !it.isLocalParticipant }
+
+        participantManager.reconcileRemoteParticipants(participants.map { it.copy(isMuted = true) })
+
+        assertThat(participantManager.getParticipant("2")!!.isMuted, equalTo(true))
+        assertThat(participantManager.getParticipant("3")!!.isMuted, equalTo(true))
+    }
+
     private fun setupExistingDominantSpeakerScenario() {
         val participant2 = ParticipantViewState("2", "Participant 2",
                 isDominantSpeaker = true)
@@ -0,0 +1,146 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.SpeakerOrderingEngine.Decision
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import timber.log.Timber
+
+class SpeakerOrderingEngineTest : BaseUnitTest() {
+
+    private var now = 0L
+    private val engine = SpeakerOrderingEngine(
+            SpeakerOrderingPolicy(minDominanceMs = 1000, minHoldMs = 3000, recentSpeakerCount = 2)) { now }
+
+    @Test
+    fun `the first dominant speaker should be promoted right away`() {
+        engine.onDominantSpeakerChanged("2")
+
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Promoted("2", moveToFront = true)))
+    }
+
+    @Test
+    fun `a new speaker should wait for the hold and dominance times`() {
+        promote("2")
+        now += 1500
+
+        engine.onDominantSpeakerChanged("3")
+
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Pending(1500)))
+        now += 1000
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Pending(500)))
+        now += 500
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Promoted("3", moveToFront = true)))
+    }
+
+    @Test
+    fun `a brief interjection should be coalesced`() {
+        promote("2")
+        now += 500
+
+        engine.onDominantSpeakerChanged("3")
+        now += 300
+        engine.onDominantSpeakerChanged("2")
+
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Unchanged))
+        assertThat(engine.promotedSpeaker, equalTo("2"))
+    }
+
+    @Test
+    fun `a recent speaker should not be moved to the front again`() {
+        promote("2")
+        now += 5000
+        promote("3")
+        now += 5000
+
+        assertThat(promote("2"), equalTo<Decision>(Decision.Promoted("2", moveToFront = false)))
+    }
+
+    @Test
+    fun `the least recent speaker should be evicted`() {
+        promote("2")
+        now += 5000
+        promote("3")
+        now += 5000
+        promote("4")
+
+        assertThat(engine.isRecentSpeaker("2"), equalTo(false))
+        assertThat(engine.isRecentSpeaker("3"), equalTo(true))
+        assertThat(engine.isRecentSpeaker("4"), equalTo(true))
+    }
+
+    @Test
+    fun `no dominant speaker should be promoted like any other change`() {
+        promote("2")
+        now += 5000
+
+        engine.onDominantSpeakerChanged(null)
+        now += 1000
+
+        assertThat(engine.evaluate(), equalTo<Decision>(Decision.Promoted(null, moveToFront = false)))
+        assertThat(engine.promotedSpeaker, nullValue())
+    }
+
+    @Test
+    fun `replaying a recorded discussion should reorder thumbnails far less often`() {
+        val events = loadReplay()
+        val baseline = replay(events, SpeakerOrderingPolicy(
+                minDominanceMs = 0, minHoldMs = 0, recentSpeakerCount = 0))
+        val smoothed = replay(events, SpeakerOrderingPolicy())
+
+        Timber.i("Replayed %d speaker changes: %d reorders before, %d after",
+                events.size, baseline, smoothed)
+        assertThat("reorders before: $baseline, after: $smoothed", smoothed * 4 <= baseline, equalTo(true))
+    }
+
+    // Keeps the speaker dominant for the minimum dominance time before evaluating
+    private fun promote(sid: String): Decision {
+        engine.onDominantSpeakerChanged(sid)
+        now += 1000
+        return engine.evaluate().also { assertThat(engine.promotedSpeaker, equalTo(sid)) }
+    }
+
+    private fun loadReplay(): List<Pair<Long, String?>> =
+            javaClass.classLoader!!.getResourceAsStream("dominant_speaker_replay.csv")!!
+                    .bufferedReader()
+                    .readLines()
+                    .filter { it.isNotBlank() && !it.startsWith("#") }
+                    .map { line ->
+                        val (time, sid) = line.split(",")
+                        time.toLong() to sid.ifEmpty { null }
+                    }
+
+    /*
+     * Feeds the events through a ParticipantManager the way RoomViewModel does, running pending
+     * evaluations when they are due, and counts how often the thumbnail order changed.
+     */
+    private fun replay(events: List<Pair<Long, String?>>, policy: SpeakerOrderingPolicy): Int {
+        var clock = 0L
+        val participantManager = ParticipantManager(
+                speakerOrdering = SpeakerOrderingEngine(policy) { clock })
+        (2..7).forEach { participantManager.addParticipant(ParticipantViewState("$it", "Participant $it")) }
+        var order = participantManager.participantThumbnails.map { it.sid }
+        var reorders = 0
+        var evaluateAt: Long? = null
+
+        fun countReorder() {
+            val newOrder = participantManager.participantThumbnails.map { it.sid }
+            if (newOrder != order) reorders++
+            order = newOrder
+        }
+
+        for ((time, sid) in events) {
+            while (evaluateAt?.let { it <= time } == true) {
+                clock = evaluateAt!!
+                evaluateAt = participantManager.evaluateDominantSpeaker()?.let { clock + it }
+                countReorder()
+            }
+            clock = time
+            evaluateAt = participantManager.changeDominantSpeaker(sid)?.let { clock + it }
+            countReorder()
+        }
+        return reorders
+    }
+}
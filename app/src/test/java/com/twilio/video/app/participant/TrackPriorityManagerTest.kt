@@ -0,0 +1,107 @@
+package com.twilio.video.app.participant
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.TrackPriority.LOW
+import com.twilio.video.TrackPriority.STANDARD
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.clearInvocations
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyZeroInteractions
+
+class TrackPriorityManagerTest : BaseUnitTest() {
+
+    private val localParticipant = ParticipantViewState("0", "Local", isLocalParticipant = true)
+    private val participants = (1..5).map {
+        ParticipantViewState("$it", "Participant $it", VideoTrackViewState(mock<RemoteVideoTrack>()))
+    }
+    private val tracks = participants.map { it.getRemoteVideoTrack()!! }
+    private val allParticipants = listOf(localParticipant) + participants
+
+    @Test
+    fun `tracks should be assigned tiers by importance`() {
+        val manager = TrackPriorityManager()
+        manager.onVisibleParticipantsChanged(setOf("0", "1", "2", "3"))
+        val pinned = participants[1].copy(isPinned = true)
+
+        manager.update(
+                listOf(localParticipant, participants[0], pinned) + participants.drop(2), pinned, listOf("3"))
+
+        assertThat(manager.tierOf(tracks[1]), equalTo(TrackTier.PRIMARY))
+        assertThat(manager.tierOf(tracks[2]), equalTo(TrackTier.RECENT_SPEAKER))
+        assertThat(manager.tierOf(tracks[0]), equalTo(TrackTier.VISIBLE))
+        assertThat(manager.tierOf(tracks[3]), equalTo(TrackTier.HIDDEN))
+        verify(tracks[1]).priority = HIGH
+        verify(tracks[2]).priority = STANDARD
+        verify(tracks[0]).priority = LOW
+        verify(tracks[3]).priority = LOW
+    }
+
+    @Test
+    fun `tracks should be demoted once the budget is spent`() {
+        val manager = TrackPriorityManager(TrackPriorityPolicy(
+                budgetKbps = 1600, highCostKbps = 1000, standardCostKbps = 500, lowCostKbps = 100))
+
+        manager.update(allParticipants, participants[0], listOf("3", "4", "5"))
+
+        verify(tracks[0]).priority = HIGH
+        // The most recent speaker is served first
+        verify(tracks[2]).priority = STANDARD
+        verify(tracks[3]).priority = LOW
+        verify(tracks[4]).priority = LOW
+    }
+
+    @Test
+    fun `priorities should only be sent when they change`() {
+        val manager = TrackPriorityManager()
+        manager.update(allParticipants, participants[0], emptyList())
+        tracks.forEach { clearInvocations(it) }
+
+        manager.onVisibleParticipantsChanged(setOf("1"))
+        manager.update(allParticipants, participants[0], emptyList())
+
+        assertThat(manager.tierOf(tracks[4]), equalTo(TrackTier.HIDDEN))
+        tracks.forEach { verifyZeroInteractions(it) }
+    }
+
+    @Test
+    fun `a dominant speaker shown as primary should keep the bandwidth profile priority`() {
+        val manager = TrackPriorityManager()
+        val dominantSpeaker = participants[2].copy(isDominantSpeaker = true)
+
+        manager.update(listOf(localParticipant, dominantSpeaker), dominantSpeaker, listOf(dominantSpeaker.sid))
+
+        assertThat(manager.tierOf(tracks[2]), equalTo(TrackTier.PRIMARY))
+        verify(tracks[2]).priority = null
+    }
+
+    @Test
+    fun `only the recent speakers passed in should be ranked as recent speakers`() {
+        val manager = TrackPriorityManager()
+
+        manager.update(allParticipants, participants[0], listOf("4", "3"))
+
+        assertThat(manager.tierOf(tracks[1]), equalTo(TrackTier.VISIBLE))
+        assertThat(manager.tierOf(tracks[2]), equalTo(TrackTier.RECENT_SPEAKER))
+        assertThat(manager.tierOf(tracks[3]), equalTo(TrackTier.RECENT_SPEAKER))
+    }
+
+    @Test
+    fun `a track replaced by another should be forgotten`() {
+        val manager = TrackPriorityManager()
+        manager.update(allParticipants, participants[0], emptyList())
+        val newTrack = mock<RemoteVideoTrack>()
+        val replaced = participants[4].copy(videoTrack = VideoTrackViewState(newTrack))
+
+        manager.update(allParticipants.dropLast(1) + replaced, participants[0], emptyList())
+
+        assertThat(manager.tierOf(tracks[4]), nullValue())
+        assertThat(manager.tierOf(newTrack), equalTo(TrackTier.VISIBLE))
+    }
+}
@@ -0,0 +1,185 @@
+package com.twilio.video.app.sdk
+
+import android.os.Handler
+import com.twilio.video.ScreenCapturer
+import com.twilio.video.app.BaseUnitTest
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import tvi.webrtc.CapturerObserver
+import tvi.webrtc.SurfaceTextureHelper
+import tvi.webrtc.VideoFrame
+
+class AdaptiveScreenCapturerTest : BaseUnitTest() {
+
+    private val screenCapturer = mock<ScreenCapturer>()
+    private val handler = mock<Handler>()
+    private val surfaceTextureHelper = mock<SurfaceTextureHelper> {
+        whenever(mock.handler).thenReturn(handler)
+    }
+    private val observer = mock<CapturerObserver>()
+    private val capturer = AdaptiveScreenCapturer(screenCapturer)
+    private lateinit var filteringObserver: CapturerObserver
+
+    @Before
+    fun setUp() {
+        capturer.initialize(surfaceTextureHelper, mock(), observer)
+        filteringObserver = argumentCaptor<CapturerObserver>().run {
+            verify(screenCapturer).initialize(eq(surfaceTextureHelper), any(), capture())
+            firstValue
+        }
+    }
+
+    @Test
+    fun `changed frames are forwarded and unchanged frames are dropped`() {
+        val firstFrame = frameOf(timestampMs = 0, seed = 0)
+        val unchangedFrame = frameOf(timestampMs = 300, seed = 0)
+        val changedFrame = frameOf(timestampMs = 600, seed = 1)
+
+        filteringObserver.onFrameCaptured(firstFrame)
+        filteringObserver.onFrameCaptured(unchangedFrame)
+        filteringObserver.onFrameCaptured(changedFrame)
+
+        verify(observer).onFrameCaptured(firstFrame)
+        verify(observer, never()).onFrameCaptured(unchangedFrame)
+        verify(observer).onFrameCaptured(changedFrame)
+    }
+
+    @Test
+    fun `a frame that is not due yet is held and delivered once it is`() {
+        filteringObserver.onFrameCaptured(frameOf(timestampMs = 0, seed = 0))
+        val changedFrame = frameOf(timestampMs = 50, seed = 1)
+
+        filteringObserver.onFrameCaptured(changedFrame)
+
+        verify(changedFrame).retain()
+        verify(observer, never()).onFrameCaptured(changedFrame)
+        val delivery = argumentCaptor<Runnable>().run {
+            verify(handler).postDelayed(capture(), eq(100L))
+            firstValue
+        }
+
+        delivery.run()
+
+        verify(observer).onFrameCaptured(changedFrame)
+        verify(changedFrame).release()
+    }
+
+    @Test
+    fun `a newer frame replaces the held frame`() {
+        filteringObserver.onFrameCaptured(frameOf(timestampMs = 0, seed = 0))
+        val heldFrame = frameOf(timestampMs = 50, seed = 1)
+        val newerFrame = frameOf(timestampMs = 100, seed = 2)
+
+        filteringObserver.onFrameCaptured(heldFrame)
+        filteringObserver.onFrameCaptured(newerFrame)
+
+        verify(heldFrame).release()
+        verify(handler).removeCallbacks(any())
+        argumentCaptor<Runnable>().run {
+            verify(handler, times(2)).postDelayed(capture(), any())
+            lastValue.run()
+        }
+        verify(observer, never()).onFrameCaptured(heldFrame)
+        verify(observer).onFrameCaptured(newerFrame)
+        assertThat(capturer.filter.droppedFrames, equalTo(1L))
+    }
+
+    @Test
+    fun `stopping the capturer releases the held frame`() {
+        filteringObserver.onFrameCaptured(frameOf(timestampMs = 0, seed = 0))
+        val heldFrame = frameOf(timestampMs = 50, seed = 1)
+        filteringObserver.onFrameCaptured(heldFrame)
+
+        filteringObserver.onCapturerStopped()
+
+        verify(heldFrame).release()
+        verify(handler).removeCallbacks(any())
+        verify(observer).onCapturerStopped()
+    }
+
+    @Test
+    fun `the last dropped frame is forwarded once the keep alive interval expires`() {
+        val firstFrame = frameOf(timestampMs = 0, seed = 0)
+        val unchangedFrame = frameOf(timestampMs = 300, seed = 0)
+        filteringObserver.onFrameCaptured(firstFrame)
+
+        filteringObserver.onFrameCaptured(unchangedFrame)
+
+        verify(observer, never()).onFrameCaptured(unchangedFrame)
+        val keepAlive = argumentCaptor<Runnable>().run {
+            verify(handler).postDelayed(capture(), eq(700L))
+            firstValue
+        }
+        keepAlive.run()
+        argumentCaptor<VideoFrame>().run {
+            verify(observer, times(2)).onFrameCaptured(capture())
+            assertThat(lastValue.buffer, equalTo<VideoFrame.Buffer>(unchangedFrame.buffer.toI420()))
+            assertThat(lastValue.timestampNs, equalTo(TimeUnit.MILLISECONDS.toNanos(1000)))
+        }
+        assertThat(capturer.filter.droppedFrames, equalTo(0L))
+    }
+
+    @Test
+    fun `a newer frame cancels the keep alive of a dropped frame`() {
+        filteringObserver.onFrameCaptured(frameOf(timestampMs = 0, seed = 0))
+        val unchangedFrame = frameOf(timestampMs = 300, seed = 0)
+        filteringObserver.onFrameCaptured(unchangedFrame)
+
+        filteringObserver.onFrameCaptured(frameOf(timestampMs = 600, seed = 1))
+
+        verify(handler).removeCallbacks(any())
+        verify(unchangedFrame.buffer.toI420()!!).release()
+    }
+
+    @Test
+    fun `frames larger than the motion allows are scaled down`() {
+        val frame = frameOf(timestampMs = 0, seed = 0, width = 2400, height = 1080)
+
+        filteringObserver.onFrameCaptured(frame)
+
+        verify(frame.buffer).cropAndScale(0, 0, 2400, 1080, 1920, 864)
+        verify(observer).onFrameCaptured(any())
+        verify(observer, never()).onFrameCaptured(frame)
+    }
+
+    private fun frameOf(timestampMs: Long, seed: Int, width: Int = 1280, height: Int = 720): VideoFrame {
+        val luma = ByteBuffer.allocate(ANALYSIS_SIZE * ANALYSIS_SIZE)
+        for (i in 0 until luma.capacity()) luma.put(i, seed.toByte())
+        val i420Buffer = mock<VideoFrame.I420Buffer> {
+            whenever(mock.dataY).thenReturn(luma)
+            whenever(mock.strideY).thenReturn(ANALYSIS_SIZE)
+            whenever(mock.width).thenReturn(ANALYSIS_SIZE)
+            whenever(mock.height).thenReturn(ANALYSIS_SIZE)
+        }
+        val scaledBuffer = mock<VideoFrame.Buffer> {
+            whenever(mock.toI420()).thenReturn(i420Buffer)
+        }
+        val copy = mock<VideoFrame.I420Buffer>()
+        val buffer = mock<VideoFrame.Buffer> {
+            whenever(mock.width).thenReturn(width)
+            whenever(mock.height).thenReturn(height)
+            whenever(mock.cropAndScale(any(), any(), any(), any(), any(), any())).thenReturn(scaledBuffer)
+            whenever(mock.toI420()).thenReturn(copy)
+        }
+        return mock {
+            whenever(mock.buffer).thenReturn(buffer)
+            whenever(mock.timestampNs).thenReturn(TimeUnit.MILLISECONDS.toNanos(timestampMs))
+        }
+    }
+
+    companion object {
+        private const val ANALYSIS_SIZE = 64
+    }
+}
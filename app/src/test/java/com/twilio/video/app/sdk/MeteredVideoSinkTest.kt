@@ -0,0 +1,189 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+class MeteredVideoSinkTest : BaseUnitTest() {
+
+    private var nowMs = 0L
+    private val sink = mock<VideoSink>()
+    private val meteredSink = MeteredVideoSink(sink) { TimeUnit.MILLISECONDS.toNanos(nowMs) }
+    private val frame = frameOf(640, 480)
+
+    @Test
+    fun `frames are passed to the sink`() {
+        meteredSink.onFrame(frame)
+        meteredSink.onFrame(frame)
+
+        verify(sink, times(2)).onFrame(frame)
+    }
+
+    @Test
+    fun `time to first frame is measured from binding the sink`() {
+        nowMs = 1000
+        meteredSink.onBound()
+        nowMs = 1200
+        meteredSink.onAttached()
+
+        assertThat(meteredSink.metrics().timeToFirstFrameMs, nullValue())
+
+        nowMs = 1450
+        meteredSink.onFrame(frame)
+        nowMs = 1500
+        meteredSink.onFrame(frame)
+
+        assertThat(meteredSink.metrics().timeToFirstFrameMs, equalTo(450L))
+    }
+
+    @Test
+    fun `time to first frame is kept when the sink is attached again`() {
+        meteredSink.onBound()
+        meteredSink.onAttached()
+        nowMs = 300
+        meteredSink.onFrame(frame)
+
+        nowMs = 5000
+        meteredSink.onAttached()
+        nowMs = 5100
+        meteredSink.onFrame(frame)
+
+        assertThat(meteredSink.metrics().timeToFirstFrameMs, equalTo(300L))
+    }
+
+    @Test
+    fun `fps is measured over the last second`() {
+        sendFrames(count = 31, intervalMs = 40)
+
+        assertThat(meteredSink.metrics().fps, equalTo(25f))
+    }
+
+    @Test
+    fun `fps drops to zero once frames stop`() {
+        sendFrames(count = 31, intervalMs = 40)
+
+        nowMs += 1000
+
+        assertThat(meteredSink.metrics().fps, equalTo(0f))
+    }
+
+    @Test
+    fun `gaps between frames are counted in buckets`() {
+        sendFrames(count = 4, intervalMs = 33)
+        sendFrames(count = 1, intervalMs = 150)
+        sendFrames(count = 1, intervalMs = 900)
+
+        assertThat(meteredSink.metrics().frameGaps, equalTo(listOf(3, 0, 0, 1, 0, 1)))
+    }
+
+    @Test
+    fun `frame size changes are counted`() {
+        meteredSink.onFrame(frame)
+        meteredSink.onFrame(frameOf(320, 240))
+        meteredSink.onFrame(frameOf(320, 240))
+        meteredSink.onFrame(frame)
+
+        val metrics = meteredSink.metrics()
+        assertThat(metrics.frameSizeChanges, equalTo(2))
+        assertThat(metrics.width, equalTo(640))
+        assertThat(metrics.height, equalTo(480))
+    }
+
+    @Test
+    fun `attaching the sink starts a new measurement`() {
+        sendFrames(count = 31, intervalMs = 40)
+
+        meteredSink.onAttached()
+
+        val metrics = meteredSink.metrics()
+        assertThat(metrics.fps, equalTo(0f))
+        assertThat(metrics.frameGaps, equalTo(listOf(0, 0, 0, 0, 0, 0)))
+    }
+
+    @Test
+    fun `the sink router starts a measurement when it binds the sink`() {
+        val track = mock<RemoteVideoTrack> {
+            whenever(mock.isEnabled).thenReturn(true)
+        }
+        sendFrames(count = 31, intervalMs = 40)
+
+        VideoSinkRouter().bind(meteredSink, track)
+
+        assertThat(meteredSink.metrics().timeToFirstFrameMs, nullValue())
+    }
+
+    @Test
+    fun `a meter behind a throttle measures the rendered rate`() {
+        val throttledSink = ThrottledVideoSink(meteredSink, 15)
+
+        repeat(61) {
+            nowMs = it * 1000L / 30
+            throttledSink.onFrame(frameAt(TimeUnit.MILLISECONDS.toNanos(nowMs)))
+        }
+
+        assertThat(meteredSink.metrics().fps, equalTo(15f))
+    }
+
+    @Test
+    fun `the sink router reports the frames a throttle dropped separately`() {
+        val track = mock<RemoteVideoTrack> {
+            whenever(mock.isEnabled).thenReturn(true)
+        }
+        val throttledSink = ThrottledVideoSink(meteredSink, 15)
+        val router = VideoSinkRouter()
+        router.bind(throttledSink, track)
+
+        throttledSink.onFrame(frameAt(0))
+        throttledSink.onFrame(frameAt(TimeUnit.MILLISECONDS.toNanos(10)))
+
+        val (_, metrics) = router.renderMetrics().single()
+        assertThat(metrics.renderedFrames, equalTo(1L))
+        assertThat(metrics.throttledFrames, equalTo(1L))
+        assertThat(metrics.timeToFirstFrameMs, equalTo(0L))
+    }
+
+    @Test
+    fun `the frames a throttle dropped are counted from attaching the sink`() {
+        val track = mock<RemoteVideoTrack> {
+            whenever(mock.isEnabled).thenReturn(true)
+        }
+        val throttledSink = ThrottledVideoSink(meteredSink, 15)
+        val router = VideoSinkRouter()
+        router.bind(throttledSink, track)
+        throttledSink.onFrame(frameAt(0))
+        throttledSink.onFrame(frameAt(TimeUnit.MILLISECONDS.toNanos(10)))
+
+        router.stop()
+        router.start()
+        throttledSink.onFrame(frameAt(TimeUnit.MILLISECONDS.toNanos(1000)))
+
+        val (_, metrics) = router.renderMetrics().single()
+        assertThat(metrics.throttledFrames, equalTo(0L))
+    }
+
+    private fun sendFrames(count: Int, intervalMs: Long) {
+        repeat(count) {
+            nowMs += intervalMs
+            meteredSink.onFrame(frame)
+        }
+    }
+
+    private fun frameOf(width: Int, height: Int) = mock<VideoFrame> {
+        whenever(mock.rotatedWidth).thenReturn(width)
+        whenever(mock.rotatedHeight).thenReturn(height)
+    }
+
+    private fun frameAt(timestampNs: Long) = mock<VideoFrame> {
+        whenever(mock.timestampNs).thenReturn(timestampNs)
+    }
+}
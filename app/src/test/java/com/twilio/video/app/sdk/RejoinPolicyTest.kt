@@ -0,0 +1,28 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import kotlin.random.Random
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RejoinPolicyTest : BaseUnitTest() {
+
+    @Test
+    fun `delayFor should grow exponentially up to the maximum delay`() {
+        val rejoinPolicy = RejoinPolicy(initialDelayMs = 1000, maxDelayMs = 5000, jitter = 0.0)
+
+        val delays = (0..4).map { rejoinPolicy.delayFor(it) }
+
+        assertThat(delays, equalTo(listOf(1000L, 2000L, 4000L, 5000L, 5000L)))
+    }
+
+    @Test
+    fun `delayFor should stay within the jittered range`() {
+        val rejoinPolicy = RejoinPolicy(initialDelayMs = 1000, jitter = 0.5, random = Random(42))
+
+        repeat(100) {
+            assertThat(rejoinPolicy.delayFor(1) in 1000L..2000L, equalTo(true))
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.BaseUnitTest
+import org.junit.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+class RemoteVideoTrackSwitcherTest : BaseUnitTest() {
+
+    private val tracks = List(4) { mock<RemoteVideoTrack>() }
+    private val switcher = RemoteVideoTrackSwitcher()
+
+    @Test
+    fun `tracks outside the visible range should be switched off once`() {
+        switcher.update(tracks, 0..1)
+        switcher.update(tracks, 0..1)
+
+        verify(tracks[2], times(1)).switchOff()
+        verify(tracks[3], times(1)).switchOff()
+        verify(tracks[0], never()).switchOff()
+        verify(tracks[1], never()).switchOff()
+    }
+
+    @Test
+    fun `tracks scrolled back into view should be switched on`() {
+        switcher.update(tracks, 0..1)
+
+        switcher.update(tracks, 2..3)
+
+        verify(tracks[2]).switchOn()
+        verify(tracks[3]).switchOn()
+        verify(tracks[0]).switchOff()
+        verify(tracks[1]).switchOff()
+    }
+
+    @Test
+    fun `the always on track should not be switched off`() {
+        switcher.update(tracks, 0..1, alwaysOn = tracks[3])
+
+        verify(tracks[3], never()).switchOff()
+        verify(tracks[2]).switchOff()
+    }
+
+    @Test
+    fun `a rendered screen track should stay on while the cameras are switched off`() {
+        val screenTrack = mock<RemoteVideoTrack>()
+
+        switcher.update(tracks, IntRange.EMPTY, alwaysOn = screenTrack)
+        switcher.setUnlistedTracks(listOf(screenTrack))
+
+        verify(screenTrack, never()).switchOff()
+        tracks.forEach { verify(it).switchOff() }
+    }
+
+    @Test
+    fun `showing only the rendered track should switch off every other camera and screen track`() {
+        val screenTracks = List(2) { mock<RemoteVideoTrack>() }
+
+        switcher.showOnly(tracks + screenTracks, rendered = screenTracks[0])
+        switcher.setUnlistedTracks(screenTracks)
+
+        verify(screenTracks[0], never()).switchOff()
+        verify(screenTracks[1], times(1)).switchOff()
+        tracks.forEach { verify(it).switchOff() }
+    }
+
+    @Test
+    fun `showing only a camera track should switch off every screen track`() {
+        val screenTracks = List(2) { mock<RemoteVideoTrack>() }
+
+        switcher.showOnly(tracks + screenTracks, rendered = tracks[1])
+
+        screenTracks.forEach { verify(it).switchOff() }
+        verify(tracks[1], never()).switchOff()
+    }
+
+    @Test
+    fun `entries without a remote track should be ignored`() {
+        switcher.update(listOf(null, tracks[0]), IntRange.EMPTY)
+
+        verify(tracks[0]).switchOff()
+    }
+
+    @Test
+    fun `disabling the switcher should switch all tracks back on`() {
+        switcher.update(tracks, 0..0)
+
+        switcher.isEnabled = false
+        switcher.update(tracks, 0..0)
+
+        verify(tracks[1]).switchOn()
+        verify(tracks[2]).switchOn()
+        verify(tracks[3]).switchOn()
+        verify(tracks[1], times(1)).switchOff()
+    }
+
+    @Test
+    fun `the background should switch off the visible tracks only`() {
+        switcher.update(tracks, 0..1)
+
+        switcher.isInBackground = true
+
+        verify(tracks[0]).switchOff()
+        verify(tracks[1]).switchOff()
+        verify(tracks[2], times(1)).switchOff()
+        verify(tracks[3], times(1)).switchOff()
+    }
+
+    @Test
+    fun `leaving the background should switch on the visible tracks only`() {
+        switcher.update(tracks, 0..1)
+        switcher.isInBackground = true
+
+        switcher.isInBackground = false
+
+        verify(tracks[0]).switchOn()
+        verify(tracks[1]).switchOn()
+        verify(tracks[2], never()).switchOn()
+        verify(tracks[3], never()).switchOn()
+    }
+
+    @Test
+    fun `tracks scrolled into view in the background should stay off until it is left`() {
+        switcher.update(tracks, 0..1)
+        switcher.isInBackground = true
+
+        switcher.update(tracks, 1..2)
+
+        verify(tracks[2], never()).switchOn()
+
+        switcher.isInBackground = false
+
+        verify(tracks[1]).switchOn()
+        verify(tracks[2]).switchOn()
+        verify(tracks[0], never()).switchOn()
+    }
+
+    @Test
+    fun `unlisted tracks other than the always on track should be switched off`() {
+        val screenTracks = List(2) { mock<RemoteVideoTrack>() }
+        switcher.update(tracks, 0..3, alwaysOn = screenTracks[0])
+
+        switcher.setUnlistedTracks(screenTracks)
+
+        verify(screenTracks[0], never()).switchOff()
+        verify(screenTracks[1]).switchOff()
+    }
+
+    @Test
+    fun `an unlisted track should be switched on once it becomes the always on track`() {
+        val screenTrack = mock<RemoteVideoTrack>()
+        switcher.update(tracks, 0..3)
+        switcher.setUnlistedTracks(listOf(screenTrack))
+
+        switcher.update(tracks, 0..3, alwaysOn = screenTrack)
+
+        verify(screenTrack).switchOn()
+    }
+
+    @Test
+    fun `the rendered unlisted track should only be switched off in the background`() {
+        val screenTrack = mock<RemoteVideoTrack>()
+        switcher.update(tracks, 0..3, alwaysOn = screenTrack)
+        switcher.setUnlistedTracks(listOf(screenTrack))
+
+        verify(screenTrack, never()).switchOff()
+
+        switcher.isInBackground = true
+
+        verify(screenTrack).switchOff()
+
+        switcher.isInBackground = false
+
+        verify(screenTrack).switchOn()
+    }
+
+    @Test
+    fun `unlisted tracks added in the background should be switched off`() {
+        val screenTrack = mock<RemoteVideoTrack>()
+        switcher.isInBackground = true
+
+        switcher.setUnlistedTracks(listOf(screenTrack))
+        switcher.update(tracks, 0..3)
+
+        verify(screenTrack, times(1)).switchOff()
+    }
+
+    @Test
+    fun `tracks added in the background should be switched off`() {
+        switcher.isInBackground = true
+
+        switcher.update(tracks, 0..3)
+
+        tracks.forEach { verify(it).switchOff() }
+    }
+}
@@ -0,0 +1,220 @@
+package com.twilio.video.app.sdk
+
+import android.app.Application
+import androidx.test.core.app.ApplicationProvider
+import com.twilio.video.ConnectOptions
+import com.twilio.video.Room
+import com.twilio.video.TwilioException
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.data.AppSettings
+import com.twilio.video.app.data.AppSettingsRepository
+import com.twilio.video.app.data.api.AuthServiceError
+import com.twilio.video.app.data.api.AuthServiceException
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.Connecting
+import com.twilio.video.app.ui.room.RoomEvent.Disconnected
+import com.twilio.video.app.ui.room.RoomEvent.Reconnecting
+import com.twilio.video.app.ui.room.RoomEvent.TokenError
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import kotlinx.coroutines.test.runBlockingTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+private const val IDENTITY = "John"
+private const val ROOM_NAME = "room"
+
+@ExperimentalCoroutinesApi
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class RoomManagerTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private var settings = AppSettings(enableAutoRejoin = true)
+    private val appSettingsRepository: AppSettingsRepository = mock {
+        whenever(mock.currentSettings).thenAnswer { settings }
+    }
+    private val videoClient = FakeVideoClient()
+    private val rejoinPolicy = RejoinPolicy(
+            maxAttempts = 3, initialDelayMs = 1000, maxDelayMs = 4000, jitter = 0.0)
+    private val roomManager = RoomManager(ApplicationProvider.getApplicationContext(),
+            videoClient, appSettingsRepository, testDispatcher, rejoinPolicy,
+            mainDispatcher = testDispatcher).apply {
+        localParticipantManager = mock()
+    }
+    private val room: Room = mock()
+    private val roomEvents = mutableListOf<RoomEvent>()
+    private lateinit var roomEventsJob: Job
+
+    @Before
+    fun setUp() {
+        roomEventsJob = CoroutineScope(testDispatcher).launch {
+            roomManager.roomEvents.collect { roomEvents.add(it) }
+        }
+        testDispatcher.runBlockingTest { roomManager.connect(IDENTITY, ROOM_NAME) }
+    }
+
+    @After
+    fun tearDown() {
+        roomEventsJob.cancel()
+    }
+
+    @Test
+    fun `it should rejoin the room after the backoff delay when disconnected unexpectedly`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting)))
+        testDispatcher.advanceTimeBy(999)
+        assertThat(videoClient.connectCount, equalTo(1))
+        testDispatcher.advanceTimeBy(1)
+        assertThat(videoClient.connectCount, equalTo(2))
+        assertThat(videoClient.lastIdentity, equalTo(IDENTITY))
+        assertThat(videoClient.lastRoomName, equalTo(ROOM_NAME))
+    }
+
+    @Test
+    fun `it should fetch the token for a rejoin attempt while waiting for the backoff delay`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+
+        assertThat(videoClient.connectOptionsCount, equalTo(2))
+        assertThat(videoClient.connectCount, equalTo(1))
+    }
+
+    @Test
+    fun `it should retry with a longer delay when a rejoin attempt fails`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        testDispatcher.advanceTimeBy(1000)
+
+        videoClient.roomListener.onConnectFailure(room, mock())
+        testDispatcher.advanceTimeBy(1999)
+        assertThat(videoClient.connectCount, equalTo(2))
+        testDispatcher.advanceTimeBy(1)
+        assertThat(videoClient.connectCount, equalTo(3))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting)))
+    }
+
+    @Test
+    fun `it should retry when the token for a rejoin attempt cannot be fetched`() {
+        videoClient.connectOptionsError = IllegalStateException()
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        videoClient.connectOptionsError = null
+
+        testDispatcher.advanceTimeBy(1000)
+        assertThat(videoClient.connectCount, equalTo(1))
+        testDispatcher.advanceTimeBy(2000)
+        assertThat(videoClient.connectCount, equalTo(2))
+    }
+
+    @Test
+    fun `it should stop rejoining when the token for a rejoin attempt is refused`() {
+        videoClient.connectOptionsError = AuthServiceException(error = AuthServiceError.EXPIRED_PASSCODE_ERROR)
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        testDispatcher.advanceUntilIdle()
+
+        assertThat(videoClient.connectOptionsCount, equalTo(2))
+        assertThat(videoClient.connectCount, equalTo(1))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting, Disconnected,
+                TokenError(serviceError = AuthServiceError.EXPIRED_PASSCODE_ERROR))))
+    }
+
+    @Test
+    fun `it should keep rejoining when the token request fails transiently`() {
+        videoClient.connectOptionsError = AuthServiceException(message = "Token request exceeded the deadline")
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        videoClient.connectOptionsError = null
+
+        testDispatcher.advanceTimeBy(3000)
+
+        assertThat(videoClient.connectCount, equalTo(2))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting)))
+    }
+
+    @Test
+    fun `it should give up and disconnect after the maximum number of rejoin attempts`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        repeat(rejoinPolicy.maxAttempts) {
+            testDispatcher.advanceUntilIdle()
+            videoClient.roomListener.onConnectFailure(room, mock())
+        }
+
+        assertThat(videoClient.connectCount, equalTo(1 + rejoinPolicy.maxAttempts))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting, Disconnected)))
+    }
+
+    @Test
+    fun `it should record the reconnect when a rejoin attempt succeeds`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        testDispatcher.advanceTimeBy(1000)
+
+        videoClient.roomListener.onConnected(room)
+        videoClient.roomListener.onDisconnected(room, null)
+
+        assertThat(roomManager.reconnectMetrics.reconnectCount, equalTo(1))
+    }
+
+    @Test
+    fun `it should stop rejoining when the user disconnects`() {
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+
+        roomManager.disconnect()
+        testDispatcher.advanceUntilIdle()
+
+        assertThat(videoClient.connectCount, equalTo(1))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Reconnecting, Disconnected)))
+    }
+
+    @Test
+    fun `it should not rejoin when auto rejoin is disabled`() {
+        settings = AppSettings(enableAutoRejoin = false)
+
+        videoClient.roomListener.onDisconnected(room, mock<TwilioException>())
+        testDispatcher.advanceUntilIdle()
+
+        assertThat(videoClient.connectCount, equalTo(1))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Disconnected)))
+    }
+
+    @Test
+    fun `it should not rejoin when the room was left without an error`() {
+        videoClient.roomListener.onDisconnected(room, null)
+        testDispatcher.advanceUntilIdle()
+
+        assertThat(videoClient.connectCount, equalTo(1))
+        assertThat(roomEvents, equalTo(listOf(Connecting, Disconnected)))
+    }
+
+    private inner class FakeVideoClient : VideoClient(mock(), mock()) {
+        lateinit var roomListener: Room.Listener
+        var connectOptionsCount = 0
+        var connectCount = 0
+        var lastIdentity: String? = null
+        var lastRoomName: String? = null
+        var connectOptionsError: Exception? = null
+
+        override suspend fun createConnectOptions(identity: String, roomName: String): ConnectOptions {
+            connectOptionsCount++
+            lastIdentity = identity
+            lastRoomName = roomName
+            connectOptionsError?.let { throw it }
+            return mock()
+        }
+
+        override fun connect(connectOptions: ConnectOptions, roomListener: Room.Listener): Room {
+            connectCount++
+            this.roomListener = roomListener
+            return room
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class ScreenContentFilterTest : BaseUnitTest() {
+
+    private val filter = ScreenContentFilter()
+    private var nowNs = 0L
+
+    @Test
+    fun `the first frame is forwarded`() {
+        assertThat(sendFrame(screen()), equalTo(true))
+    }
+
+    @Test
+    fun `unchanged frames are dropped`() {
+        sendFrame(screen())
+
+        assertThat(sendFrame(screen(), afterMs = 200), equalTo(false))
+        assertThat(filter.droppedFrames, equalTo(1L))
+    }
+
+    @Test
+    fun `a change in a single tile is forwarded`() {
+        sendFrame(screen())
+
+        assertThat(sendFrame(screen(changedPixels = 1), afterMs = 200), equalTo(true))
+    }
+
+    @Test
+    fun `a change of a single pixel anywhere is forwarded`() {
+        sendFrame(screen())
+        val luma = screen()
+        luma.put(HEIGHT / 2 * STRIDE + WIDTH / 2 + 1, 1)
+
+        assertThat(sendFrame(luma, afterMs = 200), equalTo(true))
+    }
+
+    @Test
+    fun `the keep alive of a dropped frame expires one interval after the last forwarded frame`() {
+        sendFrame(screen())
+        sendFrame(screen(), afterMs = 300)
+
+        assertThat(filter.keepAliveDelayNs(nowNs), equalTo(TimeUnit.MILLISECONDS.toNanos(700)))
+
+        filter.onKeepAlive(nowNs + filter.keepAliveDelayNs(nowNs))
+
+        assertThat(filter.forwardedFrames, equalTo(2L))
+        assertThat(filter.droppedFrames, equalTo(0L))
+    }
+
+    @Test
+    fun `an unchanged frame is forwarded once per keep alive interval`() {
+        sendFrame(screen())
+        repeat(4) { sendFrame(screen(), afterMs = 200) }
+
+        assertThat(sendFrame(screen(), afterMs = 200), equalTo(true))
+        assertThat(filter.forwardedFrames, equalTo(2L))
+    }
+
+    @Test
+    fun `frames over the rate of low motion wait until they are due`() {
+        sendFrame(screen())
+
+        nowNs += TimeUnit.MILLISECONDS.toNanos(33)
+
+        assertThat(filter.delayNs(nowNs), equalTo(TimeUnit.MILLISECONDS.toNanos(117)))
+    }
+
+    @Test
+    fun `large changes on most frames switch to high motion`() {
+        repeat(10) { sendFrame(screen(seed = it), afterMs = 200) }
+
+        assertThat(filter.motion, equalTo(ScreenMotion.HIGH))
+        nowNs += TimeUnit.MILLISECONDS.toNanos(66)
+        assertThat(filter.delayNs(nowNs), equalTo(0L))
+    }
+
+    @Test
+    fun `static content switches back to low motion`() {
+        repeat(10) { sendFrame(screen(seed = it), afterMs = 200) }
+
+        repeat(7) { sendFrame(screen(seed = 9), afterMs = 66) }
+
+        assertThat(filter.motion, equalTo(ScreenMotion.LOW))
+    }
+
+    @Test
+    fun `small changes on every frame keep low motion`() {
+        repeat(10) { sendFrame(screen(changedPixels = it), afterMs = 200) }
+
+        assertThat(filter.motion, equalTo(ScreenMotion.LOW))
+    }
+
+    @Test
+    fun `reset forwards the next frame`() {
+        sendFrame(screen())
+
+        filter.reset()
+
+        assertThat(sendFrame(screen(), afterMs = 10), equalTo(true))
+    }
+
+    @Test
+    fun `frames are scaled down to the longest side of the motion`() {
+        assertThat(ScreenMotion.LOW.fit(2400, 1080), equalTo(1920 to 864))
+        assertThat(ScreenMotion.HIGH.fit(2400, 1080), equalTo(1280 to 576))
+        assertThat(ScreenMotion.HIGH.fit(1080, 2400), equalTo(576 to 1280))
+        assertThat(ScreenMotion.HIGH.fit(1280, 720), equalTo(1280 to 720))
+    }
+
+    private fun sendFrame(luma: ByteBuffer, afterMs: Long = 0): Boolean {
+        nowNs += TimeUnit.MILLISECONDS.toNanos(afterMs)
+        return filter.delayNs(nowNs) == 0L && filter.onContent(nowNs, luma, STRIDE, WIDTH, HEIGHT)
+    }
+
+    /*
+     * A plain screen, where seed fills every pixel and changedPixels changes the first pixels of the
+     * top left tile.
+     */
+    private fun screen(seed: Int = 0, changedPixels: Int = 0): ByteBuffer {
+        val luma = ByteBuffer.allocate(STRIDE * HEIGHT)
+        for (i in 0 until luma.capacity()) luma.put(i, seed.toByte())
+        for (i in 0 until changedPixels) luma.put(i, (seed + 1).toByte())
+        return luma
+    }
+
+    companion object {
+        private const val WIDTH = 64
+        private const val HEIGHT = 36
+        private const val STRIDE = 72
+    }
+}
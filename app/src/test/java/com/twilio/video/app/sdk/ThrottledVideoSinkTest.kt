@@ -0,0 +1,83 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import java.util.concurrent.TimeUnit
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import tvi.webrtc.VideoFrame
+import tvi.webrtc.VideoSink
+
+class ThrottledVideoSinkTest : BaseUnitTest() {
+
+    private val sink = mock<VideoSink>()
+    private val throttledSink = ThrottledVideoSink(sink, 15)
+
+    @Test
+    fun `a 30 fps source is rendered at 15 fps`() {
+        sendFrames(fps = 30, seconds = 2)
+
+        verify(sink, times(30)).onFrame(any())
+        assertThat(throttledSink.renderedFrames, equalTo(30L))
+        assertThat(throttledSink.droppedFrames, equalTo(30L))
+    }
+
+    @Test
+    fun `a 60 fps source is rendered at 15 fps`() {
+        sendFrames(fps = 60, seconds = 2)
+
+        assertThat(throttledSink.renderedFrames, equalTo(30L))
+        assertThat(throttledSink.droppedFrames, equalTo(90L))
+    }
+
+    @Test
+    fun `a source slightly above the limit is throttled`() {
+        sendFrames(fps = 20, seconds = 2)
+
+        assertThat(throttledSink.renderedFrames, equalTo(30L))
+        assertThat(throttledSink.droppedFrames, equalTo(10L))
+    }
+
+    @Test
+    fun `a source below the limit is not throttled`() {
+        sendFrames(fps = 10, seconds = 2)
+
+        assertThat(throttledSink.renderedFrames, equalTo(20L))
+        assertThat(throttledSink.droppedFrames, equalTo(0L))
+    }
+
+    @Test
+    fun `the first frame after a pause is rendered without a burst`() {
+        throttledSink.onFrame(frameAt(0))
+        throttledSink.onFrame(frameAt(TimeUnit.SECONDS.toNanos(5)))
+        throttledSink.onFrame(frameAt(TimeUnit.SECONDS.toNanos(5) + TimeUnit.MILLISECONDS.toNanos(33)))
+
+        assertThat(throttledSink.renderedFrames, equalTo(2L))
+        assertThat(throttledSink.droppedFrames, equalTo(1L))
+    }
+
+    @Test
+    fun `dropped frames are not passed to the sink`() {
+        throttledSink.onFrame(frameAt(0))
+        val droppedFrame = frameAt(TimeUnit.MILLISECONDS.toNanos(10))
+
+        throttledSink.onFrame(droppedFrame)
+
+        verify(sink, never()).onFrame(droppedFrame)
+    }
+
+    private fun sendFrames(fps: Int, seconds: Int) {
+        val intervalNs = TimeUnit.SECONDS.toNanos(1) / fps
+        repeat(fps * seconds) { throttledSink.onFrame(frameAt(it * intervalNs)) }
+    }
+
+    private fun frameAt(timestampNs: Long) = mock<VideoFrame> {
+        whenever(mock.timestampNs).thenReturn(timestampNs)
+    }
+}
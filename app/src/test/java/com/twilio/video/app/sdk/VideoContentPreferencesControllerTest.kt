@@ -0,0 +1,139 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoContentPreferences
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineScope
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+@ExperimentalCoroutinesApi
+class VideoContentPreferencesControllerTest : BaseUnitTest() {
+
+    private val testScope = TestCoroutineScope()
+    private val primaryView = Any()
+    private val thumbnailView = Any()
+    private val firstTrack = mock<RemoteVideoTrack>()
+    private val secondTrack = mock<RemoteVideoTrack>()
+    private val controller = VideoContentPreferencesController(testScope, debounceMs = 100)
+
+    @Test
+    fun `layout changes should be debounced into a single update`() {
+        controller.onTrackChanged(thumbnailView, firstTrack)
+        controller.onSizeChanged(thumbnailView, 100, 100)
+        testScope.advanceTimeBy(50)
+        controller.onSizeChanged(thumbnailView, 120, 120)
+        controller.onSizeChanged(thumbnailView, 160, 90)
+
+        testScope.advanceTimeBy(99)
+        verify(firstTrack, never()).setContentPreferences(any())
+
+        testScope.advanceTimeBy(1)
+        verify(firstTrack, times(1)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `unchanged sizes should not be sent again`() {
+        controller.onTrackChanged(thumbnailView, firstTrack)
+        controller.onSizeChanged(thumbnailView, 100, 100)
+        testScope.advanceUntilIdle()
+
+        controller.onSizeChanged(thumbnailView, 0, 0)
+        controller.onSizeChanged(thumbnailView, 100, 100)
+        testScope.advanceUntilIdle()
+
+        verify(firstTrack, times(1)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `a track moving into the primary view should be updated right away`() {
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        controller.onTrackChanged(thumbnailView, secondTrack)
+        controller.onSizeChanged(thumbnailView, 160, 90)
+        testScope.advanceUntilIdle()
+
+        controller.onTrackChanged(primaryView, secondTrack)
+        controller.onTrackChanged(thumbnailView, firstTrack)
+
+        verify(secondTrack, times(2)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `a track moving into a smaller view should be updated after the debounce`() {
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        controller.onSizeChanged(thumbnailView, 160, 90)
+        testScope.advanceUntilIdle()
+
+        controller.onTrackChanged(thumbnailView, firstTrack)
+        controller.onTrackChanged(primaryView, null)
+        verify(firstTrack, times(1)).setContentPreferences(any())
+
+        testScope.advanceUntilIdle()
+        verify(firstTrack, times(2)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `a track rendered twice should not be downgraded by the smaller view`() {
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        testScope.advanceUntilIdle()
+
+        controller.onTrackChanged(thumbnailView, firstTrack)
+        controller.onSizeChanged(thumbnailView, 160, 90)
+        testScope.advanceUntilIdle()
+
+        verify(firstTrack, times(1)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `nothing should be sent while disabled`() {
+        controller.isEnabled = false
+
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        controller.flush()
+        testScope.advanceUntilIdle()
+
+        verify(firstTrack, never()).setContentPreferences(any())
+    }
+
+    @Test
+    fun `a max size should cap the requested size`() {
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        testScope.advanceUntilIdle()
+
+        controller.maxSize = VideoDimensions(320, 240)
+
+        argumentCaptor<VideoContentPreferences>().apply {
+            verify(firstTrack, times(2)).setContentPreferences(capture())
+            assertThat(lastValue.renderDimensions.width, equalTo(320))
+            assertThat(lastValue.renderDimensions.height, equalTo(180))
+        }
+    }
+
+    @Test
+    fun `clearing the max size should restore the rendered size`() {
+        controller.onTrackChanged(primaryView, firstTrack)
+        controller.onSizeChanged(primaryView, 1280, 720)
+        controller.maxSize = VideoDimensions(320, 240)
+
+        controller.maxSize = null
+
+        argumentCaptor<VideoContentPreferences>().apply {
+            verify(firstTrack, times(2)).setContentPreferences(capture())
+            assertThat(lastValue.renderDimensions.width, equalTo(1280))
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+import tvi.webrtc.VideoSink
+
+class VideoSinkRouterTest : BaseUnitTest() {
+
+    private val primarySink = mock<VideoSink>()
+    private val thumbnailSink = mock<VideoSink>()
+    private val trackA = mockTrack()
+    private val trackB = mockTrack()
+    private val router = VideoSinkRouter()
+
+    @Test
+    fun `binding the same track twice attaches a single sink`() {
+        router.bind(primarySink, trackA)
+        router.bind(primarySink, trackA)
+
+        verify(trackA, times(1)).addSink(primarySink)
+        assertThat(router.sinkCount(trackA), equalTo(1))
+    }
+
+    @Test
+    fun `swapping the primary track moves both sinks`() {
+        router.bind(primarySink, trackA)
+        router.bind(thumbnailSink, trackB)
+
+        router.bind(primarySink, trackB)
+        router.bind(thumbnailSink, trackA)
+
+        inOrder(trackA) {
+            verify(trackA).addSink(primarySink)
+            verify(trackA).removeSink(primarySink)
+            verify(trackA).addSink(thumbnailSink)
+        }
+        inOrder(trackB) {
+            verify(trackB).addSink(thumbnailSink)
+            verify(trackB).addSink(primarySink)
+            verify(trackB).removeSink(thumbnailSink)
+        }
+        assertThat(router.sinkCounts(), equalTo(mapOf<VideoTrack, Int>(trackA to 1, trackB to 1)))
+    }
+
+    @Test
+    fun `a track rendered twice counts both sinks`() {
+        router.bind(primarySink, trackA)
+        router.bind(thumbnailSink, trackA)
+
+        assertThat(router.sinkCount(trackA), equalTo(2))
+
+        router.unbind(thumbnailSink)
+
+        verify(trackA).removeSink(thumbnailSink)
+        assertThat(router.sinkCount(trackA), equalTo(1))
+    }
+
+    @Test
+    fun `disabled tracks are bound without a sink`() {
+        whenever(trackA.isEnabled).thenReturn(false)
+
+        router.bind(primarySink, trackA)
+        router.unbind(primarySink)
+
+        verify(trackA, never()).addSink(primarySink)
+        verify(trackA, never()).removeSink(primarySink)
+        assertThat(router.sinkCount(trackA), equalTo(0))
+    }
+
+    @Test
+    fun `stop detaches every sink and start attaches them again`() {
+        router.bind(primarySink, trackA)
+        router.bind(thumbnailSink, trackB)
+
+        router.stop()
+
+        verify(trackA).removeSink(primarySink)
+        verify(trackB).removeSink(thumbnailSink)
+        assertThat(router.sinkCounts(), equalTo(emptyMap<VideoTrack, Int>()))
+
+        router.start()
+
+        verify(trackA, times(2)).addSink(primarySink)
+        verify(trackB, times(2)).addSink(thumbnailSink)
+        assertThat(router.sinkCounts(), equalTo(mapOf<VideoTrack, Int>(trackA to 1, trackB to 1)))
+    }
+
+    @Test
+    fun `tracks bound while stopped are attached on start`() {
+        router.stop()
+
+        router.bind(primarySink, trackA)
+
+        verify(trackA, never()).addSink(primarySink)
+
+        router.start()
+
+        verify(trackA).addSink(primarySink)
+    }
+
+    private fun mockTrack() = mock<RemoteVideoTrack> {
+        whenever(mock.isEnabled).thenReturn(true)
+    }
+}
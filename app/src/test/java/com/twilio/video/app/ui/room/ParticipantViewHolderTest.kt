@@ -0,0 +1,104 @@
+package com.twilio.video.app.ui.room
+
+import android.content.Context
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoTextureView
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.R
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoSinkRouter
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class ParticipantViewHolderTest : BaseUnitTest() {
+
+    private val videoTextureView = mock<VideoTextureView>()
+    private val context = mock<Context> {
+        whenever(mock.getString(R.string.you)).thenReturn("You")
+    }
+    private val thumb = mock<ParticipantThumbView> {
+        whenever(mock.context).thenReturn(context)
+        whenever(mock.videoTextureView).thenReturn(videoTextureView)
+    }
+    private val videoTrack = mockVideoTrack()
+    private val diffCallback = ParticipantAdapter.ParticipantDiffCallback()
+    private val viewHolder = ParticipantViewHolder(thumb, VideoSinkRouter())
+
+    @Test
+    fun `a burst of mute changes does not touch the video sink`() {
+        var participant = ParticipantViewState("1", "Alice", VideoTrackViewState(videoTrack))
+        viewHolder.bind(participant) {}
+
+        repeat(20) {
+            val mutedParticipant = participant.copy(isMuted = !participant.isMuted)
+            bindChanges(participant, mutedParticipant)
+            participant = mutedParticipant
+        }
+
+        verify(videoTrack, times(1)).addSink(viewHolder.videoSink)
+        verify(videoTrack, never()).removeSink(any())
+        verify(thumb, times(21)).setMuted(any())
+        verify(thumb, times(1)).setIdentity(any())
+        verify(thumb, times(1)).setPinned(any())
+    }
+
+    @Test
+    fun `a switched off track only updates the video state`() {
+        val participant = ParticipantViewState("1", "Alice", VideoTrackViewState(videoTrack))
+        viewHolder.bind(participant) {}
+
+        bindChanges(participant, participant.copy(videoTrack = VideoTrackViewState(videoTrack, true)))
+
+        verify(videoTrack, times(1)).addSink(viewHolder.videoSink)
+        verify(videoTrack, never()).removeSink(any())
+        verify(thumb).setState(ParticipantView.State.SWITCHED_OFF)
+    }
+
+    @Test
+    fun `a new video track moves the sink`() {
+        val newVideoTrack = mockVideoTrack()
+        val participant = ParticipantViewState("1", "Alice", VideoTrackViewState(videoTrack))
+        viewHolder.bind(participant) {}
+
+        bindChanges(participant, participant.copy(videoTrack = VideoTrackViewState(newVideoTrack)))
+
+        verify(videoTrack).removeSink(viewHolder.videoSink)
+        verify(newVideoTrack).addSink(viewHolder.videoSink)
+    }
+
+    @Test
+    fun `only the changed fields are flagged`() {
+        val participant = ParticipantViewState("1", "Alice", VideoTrackViewState(videoTrack))
+
+        val changes = diffCallback.getChangePayload(participant,
+                participant.copy(isMuted = true, networkQualityLevel = NETWORK_QUALITY_LEVEL_FOUR))
+
+        assertThat(changes, equalTo<Any>(ParticipantChanges.MUTED or ParticipantChanges.NETWORK_QUALITY))
+    }
+
+    @Test
+    fun `changes that are not shown on thumbnails are not flagged`() {
+        val participant = ParticipantViewState("1", "Alice", VideoTrackViewState(videoTrack))
+
+        val changes = diffCallback.getChangePayload(participant,
+                participant.copy(isDominantSpeaker = true, isMirrored = true))
+
+        assertThat(changes, equalTo<Any>(0))
+    }
+
+    private fun bindChanges(oldItem: ParticipantViewState, newItem: ParticipantViewState) =
+            viewHolder.bindChanges(newItem, diffCallback.getChangePayload(oldItem, newItem) as Int)
+
+    private fun mockVideoTrack() = mock<RemoteVideoTrack> {
+        whenever(mock.isEnabled).thenReturn(true)
+    }
+}
@@ -2,8 +2,11 @@ package com.twilio.video.app.ui.room
 
 import android.Manifest
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.RemoteParticipant
 import com.twilio.video.RemoteVideoTrack
 import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.diagnostics.FlightRecorder
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.ParticipantViewState
 import com.twilio.video.app.sdk.LocalParticipantManager
@@ -11,6 +14,8 @@ import com.twilio.video.app.sdk.RoomManager
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.Reconnected
+import com.twilio.video.app.ui.room.RoomEvent.Reconnecting
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
@@ -59,6 +64,7 @@ class RoomViewModelTest : BaseUnitTest() {
         addParticipant(participantViewState)
     }
     private val permissionUtil = mock<PermissionUtil>()
+    private val flightRecorder = mock<FlightRecorder>()
     private lateinit var testObserver: TestViewObserver
     private lateinit var viewModel: RoomViewModel
     private val localParticipantViewState = ParticipantViewState(isLocalParticipant = true)
@@ -70,6 +76,7 @@ class RoomViewModelTest : BaseUnitTest() {
                 roomManager,
                 mock(),
                 permissionUtil,
+                flightRecorder,
                 participantManager)
         testObserver = viewModel.createTestObserver()
     }
@@ -120,6 +127,7 @@ class RoomViewModelTest : BaseUnitTest() {
                 roomManager,
                 mock(),
                 permissionUtil,
+                flightRecorder,
                 participantManager,
                 initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.CAMERA))
@@ -150,6 +158,7 @@ class RoomViewModelTest : BaseUnitTest() {
                 roomManager,
                 mock(),
                 permissionUtil,
+                flightRecorder,
                 participantManager,
                 initialViewState = initialRoomViewState.copy(isCameraEnabled = true))
         whenever(permissionUtil.isPermissionGranted(Manifest.permission.RECORD_AUDIO))
@@ -175,6 +184,13 @@ class RoomViewModelTest : BaseUnitTest() {
         verify(localParticipantManager).onResume()
     }
 
+    @Test
+    fun `View events should be recorded by the flight recorder`() {
+        viewModel.processInput(OnResume)
+
+        verify(flightRecorder).recordViewEvent(OnResume)
+    }
+
     @Test
     fun `The ConnectFailure event should send a ShowConnectFailureDialog ViewEffect`() {
         connect()
@@ -227,6 +243,32 @@ class RoomViewModelTest : BaseUnitTest() {
                         isRecording = false))
     }
 
+    @Test
+    fun `The Reconnecting event should keep the existing participants`() {
+        connect()
+        roomManager.sendRoomEvent(Reconnecting)
+
+        val viewState = viewModel.getState() as RoomViewState
+        assertThat(viewState.isReconnecting, equalTo(true))
+        assertThat(participantManager.getParticipant(PARTICIPANT_SID), equalTo(participantViewState))
+    }
+
+    @Test
+    fun `The Reconnected event should reconcile the participants with the room`() {
+        connect()
+        val newParticipant = mock<RemoteParticipant> {
+            whenever(mock.sid).thenReturn("456")
+            whenever(mock.identity).thenReturn("New Participant")
+            whenever(mock.networkQualityLevel).thenReturn(NETWORK_QUALITY_LEVEL_FIVE)
+        }
+        roomManager.sendRoomEvent(Reconnecting)
+        roomManager.sendRoomEvent(Reconnected(listOf(newParticipant)))
+
+        val viewState = viewModel.getState() as RoomViewState
+        assertThat(viewState.isReconnecting, equalTo(false))
+        assertThat(viewState.participantThumbnails?.map { it.sid }, equalTo(listOf(null, "456")))
+    }
+
     @Test
     fun `OnCleared should cancel room manager job`() {
         assertThat(viewModel.roomManagerJob!!.isActive, equalTo(true))
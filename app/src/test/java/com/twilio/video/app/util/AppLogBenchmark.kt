@@ -0,0 +1,40 @@
+package com.twilio.video.app.util
+
+import android.util.Log
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import timber.log.Timber
+
+/*
+ * Compares eagerly built log messages against AppLog for a disabled level, using a message like
+ * the participant cache dump in ParticipantManager. Run with ./gradlew testInternalDebugUnitTest
+ * -PrunBenchmarks --tests '*AppLogBenchmark'.
+ */
+class AppLogBenchmark {
+
+    private val participants = List(6) { "ParticipantViewState(sid=PA$it, identity=participant $it)" }
+    private var minPriority = AppLog.minPriority
+
+    @Before
+    fun setUp() {
+        assumeBenchmarksEnabled()
+        Timber.uprootAll()
+        AppLog.minPriority = Log.INFO
+    }
+
+    @After
+    fun tearDown() {
+        AppLog.minPriority = minPriority
+    }
+
+    @Test
+    fun `benchmark a disabled debug message`() {
+        measure("Eager Timber.d") { Timber.d("Participant Cache: $participants") }
+        val lazy = measure("AppLog.d") { AppLog.d { "Participant Cache: $participants" } }
+
+        assertThat(lazy.bytesPerOp, equalTo(0L))
+    }
+}
@@ -0,0 +1,41 @@
+package com.twilio.video.app.util
+
+import android.util.Log
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+
+class AppLogTest {
+
+    private var minPriority = AppLog.minPriority
+
+    @After
+    fun tearDown() {
+        AppLog.minPriority = minPriority
+    }
+
+    @Test
+    fun `messages below the minimum priority should not be built`() {
+        AppLog.minPriority = Log.INFO
+        var builtMessages = 0
+
+        AppLog.v { "verbose".also { builtMessages++ } }
+        AppLog.d { "debug".also { builtMessages++ } }
+
+        assertThat(builtMessages, equalTo(0))
+        assertThat(AppLog.isLoggable(Log.DEBUG), equalTo(false))
+    }
+
+    @Test
+    fun `messages at or above the minimum priority should be built`() {
+        AppLog.minPriority = Log.INFO
+        var builtMessages = 0
+
+        AppLog.i { "info".also { builtMessages++ } }
+        AppLog.w { "warning".also { builtMessages++ } }
+        AppLog.e(Exception()) { "error".also { builtMessages++ } }
+
+        assertThat(builtMessages, equalTo(3))
+    }
+}
@@ -0,0 +1,150 @@
+package com.twilio.video.app.util
+
+import org.junit.After
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyZeroInteractions
+import timber.log.Timber
+
+class AsyncLoggingTreeTest {
+
+    private val treeRanger = mock<TreeRanger>()
+    private val defaultHandler = Thread.getDefaultUncaughtExceptionHandler()
+
+    @After
+    fun tearDown() {
+        Timber.uprootAll()
+        Thread.setDefaultUncaughtExceptionHandler(defaultHandler)
+    }
+
+    @Test
+    fun `messages should only reach the ranger when flushed`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 100, 1, false)
+
+        tree.i("info")
+
+        verifyZeroInteractions(treeRanger)
+        tree.flush()
+        verify(treeRanger).inform("info")
+    }
+
+    @Test
+    fun `info messages should be batched while warnings and errors keep their order`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 100, 1, false)
+        val exception = Exception()
+
+        tree.i("first")
+        tree.d("second")
+        tree.w("warning")
+        tree.i("third")
+        tree.e(exception)
+        tree.flush()
+
+        inOrder(treeRanger) {
+            verify().inform("first\nsecond")
+            verify().caution("warning")
+            verify().inform("third")
+            verify().alert(exception)
+        }
+    }
+
+    @Test
+    fun `warnings and errors should be forwarded without a flush`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 100, 1, false)
+        val exception = Exception()
+
+        tree.i("info")
+        tree.w("warning")
+        tree.e(exception)
+
+        inOrder(treeRanger) {
+            verify().inform("info")
+            verify().caution("warning")
+            verify().alert(exception)
+        }
+    }
+
+    @Test
+    fun `an uncaught exception should flush the buffer before the previous handler`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 100, 1, false)
+        val crashHandler = mock<Thread.UncaughtExceptionHandler>()
+        Thread.setDefaultUncaughtExceptionHandler(crashHandler)
+        tree.flushOnUncaughtException()
+        val exception = RuntimeException()
+
+        tree.i("breadcrumb")
+        Thread.getDefaultUncaughtExceptionHandler()!!.uncaughtException(Thread.currentThread(), exception)
+
+        inOrder(treeRanger, crashHandler) {
+            verify(treeRanger).inform("breadcrumb")
+            verify(crashHandler).uncaughtException(Thread.currentThread(), exception)
+        }
+    }
+
+    @Test
+    fun `messages beyond the per tag limit should be dropped`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 2, 1, false)
+        Timber.plant(tree)
+
+        repeat(3) { Timber.tag("first").i("message") }
+        Timber.tag("second").i("other")
+        tree.flush()
+
+        verify(treeRanger).inform("message\nmessage\nother")
+    }
+
+    @Test
+    fun `untagged messages should be limited per calling class`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 2, 1, false)
+        Timber.plant(tree)
+
+        repeat(3) { Timber.i("message") }
+        OtherCaller.log("other")
+        tree.flush()
+
+        verify(treeRanger).inform("message\nmessage\nother")
+    }
+
+    @Test
+    fun `debug messages should be sampled`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 100, 2, false)
+
+        repeat(4) { tree.d("debug $it") }
+        tree.flush()
+
+        verify(treeRanger).inform("debug 0\ndebug 2")
+    }
+
+    @Test
+    fun `warnings should not be rate limited or sampled`() {
+        val tree = AsyncLoggingTree(treeRanger, 16, 1, 4, false)
+
+        repeat(3) { tree.w("warning") }
+        tree.flush()
+
+        verify(treeRanger, times(3)).caution("warning")
+    }
+
+    @Test
+    fun `a full buffer should drop messages and report them`() {
+        val tree = AsyncLoggingTree(treeRanger, 2, 100, 1, false)
+
+        repeat(3) { tree.i("info $it") }
+        tree.flush()
+
+        inOrder(treeRanger) {
+            verify().inform("info 0\ninfo 1")
+            verify().caution("Dropped 1 log messages, the log buffer was full")
+        }
+        verify(treeRanger, never()).alert(any())
+    }
+
+    private object OtherCaller {
+        fun log(message: String) = Timber.i(message)
+    }
+}
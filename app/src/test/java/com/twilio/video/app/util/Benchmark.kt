@@ -0,0 +1,46 @@
+package com.twilio.video.app.util
+
+import org.junit.Assume.assumeTrue
+
+private const val WARMUP_ITERATIONS = 10_000
+private const val MEASURED_ITERATIONS = 100_000
+
+data class BenchmarkResult(val nanosPerOp: Long, val bytesPerOp: Long)
+
+/*
+ * Benchmarks are skipped unless the build is run with -PrunBenchmarks.
+ */
+fun assumeBenchmarksEnabled() {
+    assumeTrue(System.getProperty("runBenchmarks") != null)
+}
+
+fun measure(
+    name: String,
+    iterations: Int = MEASURED_ITERATIONS,
+    operation: () -> Any?
+): BenchmarkResult {
+    repeat(WARMUP_ITERATIONS) { operation() }
+
+    val startBytes = allocatedBytes()
+    val startNanos = System.nanoTime()
+    repeat(iterations) { operation() }
+    val elapsedNanos = System.nanoTime() - startNanos
+    val allocated = allocatedBytes() - startBytes
+
+    return BenchmarkResult(elapsedNanos / iterations, allocated / iterations).also {
+        println("$name: ${it.nanosPerOp} ns/op, ${it.bytesPerOp} bytes/op")
+    }
+}
+
+/*
+ * Reads the HotSpot per-thread allocation counter. The management classes are not part of the
+ * Android SDK, so they are looked up reflectively.
+ */
+private fun allocatedBytes(): Long {
+    val threadMXBean = Class.forName("java.lang.management.ManagementFactory")
+            .getMethod("getThreadMXBean")
+            .invoke(null)
+    return Class.forName("com.sun.management.ThreadMXBean")
+            .getMethod("getThreadAllocatedBytes", Long::class.javaPrimitiveType)
+            .invoke(threadMXBean, Thread.currentThread().id) as Long
+}
@@ -0,0 +1,58 @@
+package com.twilio.video.app.util
+
+import dagger.Lazy
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.inOrder
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyZeroInteractions
+
+class DeferredTreeRangerTest {
+
+    private val crashlyticsTreeRanger = mock<CrashlyticsTreeRanger>()
+    private var isRangerCreated = false
+    private val deferredTreeRanger = DeferredTreeRanger(Lazy {
+        isRangerCreated = true
+        crashlyticsTreeRanger
+    })
+
+    @Test
+    fun `messages should be buffered until attached`() {
+        deferredTreeRanger.inform("info")
+        deferredTreeRanger.caution("warning")
+
+        verifyZeroInteractions(crashlyticsTreeRanger)
+        assertThat(isRangerCreated, equalTo(false))
+
+        deferredTreeRanger.attach()
+
+        inOrder(crashlyticsTreeRanger) {
+            verify().inform("info")
+            verify().caution("warning")
+        }
+    }
+
+    @Test
+    fun `an alert should attach right away`() {
+        val exception = Exception()
+        deferredTreeRanger.inform("info")
+
+        deferredTreeRanger.alert(exception)
+
+        inOrder(crashlyticsTreeRanger) {
+            verify().inform("info")
+            verify().alert(exception)
+        }
+    }
+
+    @Test
+    fun `messages should go straight to the ranger once attached`() {
+        deferredTreeRanger.attach()
+
+        deferredTreeRanger.inform("info")
+
+        verify(crashlyticsTreeRanger).inform("info")
+    }
+}
@@ -0,0 +1,30 @@
+package com.twilio.video.app.util
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class PerformanceClassTest {
+
+    @Test
+    fun `low ram devices should be in the low class`() {
+        assertThat(PerformanceClass.classify(true, 512, 8), equalTo(PerformanceClass.LOW))
+    }
+
+    @Test
+    fun `devices with few cores or a small heap should be in the low class`() {
+        assertThat(PerformanceClass.classify(false, 512, 2), equalTo(PerformanceClass.LOW))
+        assertThat(PerformanceClass.classify(false, 128, 8), equalTo(PerformanceClass.LOW))
+    }
+
+    @Test
+    fun `devices with a large heap and many cores should be in the high class`() {
+        assertThat(PerformanceClass.classify(false, 256, 8), equalTo(PerformanceClass.HIGH))
+    }
+
+    @Test
+    fun `other devices should be in the medium class`() {
+        assertThat(PerformanceClass.classify(false, 256, 4), equalTo(PerformanceClass.MEDIUM))
+        assertThat(PerformanceClass.classify(false, 192, 8), equalTo(PerformanceClass.MEDIUM))
+    }
+}
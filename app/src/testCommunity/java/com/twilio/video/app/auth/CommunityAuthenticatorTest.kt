@@ -0,0 +1,51 @@
+package com.twilio.video.app.auth
+
+import android.content.SharedPreferences
+import com.twilio.video.app.data.PASSCODE
+import com.twilio.video.app.data.Preferences.DISPLAY_NAME
+import com.twilio.video.app.security.SecurePreferences
+import com.twilio.video.app.security.SecurePreferencesFake
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+class CommunityAuthenticatorTest {
+
+    private val editor = mock<SharedPreferences.Editor> {
+        whenever(mock.remove(any())).thenReturn(mock)
+    }
+    private val sharedPreferences = mock<SharedPreferences> {
+        whenever(mock.edit()).thenReturn(editor)
+    }
+    private val securePreferences = SecurePreferencesFake()
+    private val authenticator = CommunityAuthenticator(sharedPreferences, securePreferences, mock())
+
+    @Test
+    fun `logout should clear the stored passcode`() {
+        securePreferences.putSecureString(PASSCODE, "0123456789")
+        assertThat(authenticator.loggedIn(), equalTo(true))
+
+        authenticator.logout()
+
+        assertThat(securePreferences.getSecureString(PASSCODE), nullValue())
+        assertThat(authenticator.loggedIn(), equalTo(false))
+        verify(editor).remove(DISPLAY_NAME)
+    }
+
+    @Test
+    fun `loggedIn should not decrypt the stored passcode`() {
+        val securePreferences = mock<SecurePreferences> {
+            whenever(mock.hasSecureString(PASSCODE)).thenReturn(true)
+        }
+        val authenticator = CommunityAuthenticator(sharedPreferences, securePreferences, mock())
+
+        assertThat(authenticator.loggedIn(), equalTo(true))
+        verify(securePreferences, never()).getSecureString(any())
+    }
+}
@@ -0,0 +1,58 @@
+package com.twilio.video.app.data.api
+
+import com.google.gson.Gson
+import com.google.gson.annotations.SerializedName
+import com.twilio.video.app.data.api.model.Topology
+import com.twilio.video.app.util.INVALID_PASSCODE_ERROR
+import com.twilio.video.app.util.assumeBenchmarksEnabled
+import com.twilio.video.app.util.measure
+import okio.Buffer
+import org.junit.Before
+import org.junit.Test
+
+private const val RESPONSE_JSON = """{"token":"eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.e30","room_type":"group"}"""
+
+/*
+ * The response DTO as the Gson converter read it, so that both sides map room_type.
+ */
+private data class GsonAuthServiceResponseDTO(
+    val token: String? = null,
+    @SerializedName("room_type") val topology: Topology? = null
+)
+
+/*
+ * Compares parse time and allocations of the generated Moshi adapters against reflective Gson for
+ * the auth service DTOs. Run with ./gradlew testCommunityDebugUnitTest -PrunBenchmarks
+ * --tests '*AuthServiceJsonBenchmark'.
+ */
+class AuthServiceJsonBenchmark {
+
+    private val gson = Gson()
+    private val responseAdapter = authServiceMoshi.adapter(AuthServiceResponseDTO::class.java)
+    private val errorAdapter = authServiceMoshi.adapter(AuthServiceErrorDTO::class.java)
+
+    @Before
+    fun setUp() {
+        assumeBenchmarksEnabled()
+    }
+
+    @Test
+    fun `benchmark parsing the token response`() {
+        measure("Gson response") {
+            gson.fromJson(RESPONSE_JSON, GsonAuthServiceResponseDTO::class.java)
+        }
+        measure("Moshi response") {
+            responseAdapter.fromJson(Buffer().writeUtf8(RESPONSE_JSON))
+        }
+    }
+
+    @Test
+    fun `benchmark parsing the error response`() {
+        measure("Gson error") {
+            gson.fromJson(INVALID_PASSCODE_ERROR, AuthServiceErrorDTO::class.java)
+        }
+        measure("Moshi error") {
+            errorAdapter.fromJson(Buffer().writeUtf8(INVALID_PASSCODE_ERROR))
+        }
+    }
+}
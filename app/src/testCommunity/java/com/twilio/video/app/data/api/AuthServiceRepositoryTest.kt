@@ -185,6 +185,14 @@ class AuthServiceRepositoryTest {
         }
     }
 
+    @Test
+    fun `it should only report requests that do not create a room as idempotent`() {
+        val repository = AuthServiceRepository(mock(), mock(), mock())
+
+        assertThat(repository.isIdempotent(roomName = null), equalTo(true))
+        assertThat(repository.isIdempotent("roomName"), equalTo(false))
+    }
+
     fun videoCodecParams() =
             arrayOf(
                     arrayOf(GROUP, GROUP_SMALL, true, VIDEO_CAPTURE_RESOLUTION_DEFAULT),
@@ -9,4 +9,10 @@ class SecurePreferencesFake : SecurePreferences {
     }
 
     override fun getSecureString(key: String) = preferences[key]
+
+    override fun hasSecureString(key: String) = preferences.containsKey(key)
+
+    override fun removeSecureString(key: String) {
+        preferences.remove(key)
+    }
 }
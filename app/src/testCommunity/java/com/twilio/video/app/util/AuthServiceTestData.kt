@@ -32,10 +32,7 @@ const val UNKNOWN_ERROR_MESSAGE =
 }"""
 
 fun getMockHttpException(errorBody: String?): HttpException {
-        val responseBody: ResponseBody = mock {
-            val errorString = errorBody
-            whenever(mock.string()).thenReturn(errorString)
-        }
+        val responseBody = errorBody?.let { ResponseBody.create(null, it) }
         val response: Response<AuthServiceResponseDTO> = mock {
             whenever(mock.errorBody()).thenReturn(responseBody)
         }
@@ -0,0 +1,120 @@
+package com.twilio.video.app.benchmark
+
+import android.os.Build
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.Until
+import java.io.File
+import java.util.UUID
+
+private const val SPLASH_ACTIVITY = "com.twilio.video.app.ui.splash.SplashActivity"
+private const val BASELINE_PROFILE_ASSET = "baseline-prof.txt"
+private const val UI_TIMEOUT_MS = 10_000L
+private const val CONNECT_TIMEOUT_MS = 30_000L
+private val TOTAL_TIME_REGEX = Regex("""TotalTime:\s+(\d+)""")
+
+/*
+ * Drives the app under test through shell commands and UiAutomator. The app is expected to be
+ * logged in already so that a launch goes from the splash screen straight to the lobby.
+ */
+class AppUnderTest {
+
+    val packageName: String =
+            InstrumentationRegistry.getInstrumentation().targetContext.packageName
+    private val device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation())
+
+    fun shell(command: String): String = device.executeShellCommand(command)
+
+    fun compile(compilation: Compilation) {
+        when (compilation) {
+            Compilation.NONE -> shell("cmd package compile -f -m verify $packageName")
+            Compilation.BASELINE_PROFILE -> {
+                installBaselineProfile()
+                shell("cmd package compile -f -m speed-profile $packageName")
+            }
+        }
+    }
+
+    /*
+     * The committed app/src/main/baseline-prof.txt, which the build copies into the assets of this
+     * module, or null if it has no rules yet.
+     */
+    fun baselineProfile(): String? {
+        val context = InstrumentationRegistry.getInstrumentation().context
+        return runCatching { context.assets.open(BASELINE_PROFILE_ASSET).reader().use { it.readText() } }
+                .getOrNull()
+                ?.takeIf { it.isNotBlank() }
+    }
+
+    /*
+     * profman and the profile directories are only available to a root shell (adb root).
+     */
+    fun isRootShell() = shell("id").contains("uid=0(")
+
+    /*
+     * Replaces the app's reference profile with the committed baseline profile, after dropping
+     * everything the runtime recorded so far, so that a speed-profile compilation only uses the
+     * committed rules.
+     */
+    private fun installBaselineProfile() {
+        val rules = checkNotNull(baselineProfile()) { "The baseline profile has no rules" }
+        val rulesFile = File(InstrumentationRegistry.getInstrumentation().context
+                .getExternalFilesDir(null), BASELINE_PROFILE_ASSET)
+        rulesFile.writeText(rules)
+        val apkPath = shell("pm path $packageName").lineSequence()
+                .first { it.startsWith("package:") }
+                .removePrefix("package:")
+                .trim()
+        shell("cmd package compile --reset $packageName")
+        val output = shell("profman --create-profile-from=${rulesFile.absolutePath} " +
+                "--apk=$apkPath --dex-location=$apkPath " +
+                "--reference-profile-file=/data/misc/profiles/ref/$packageName/primary.prof")
+        check(output.isBlank()) { "Failed to install the baseline profile: $output" }
+    }
+
+    fun grantPermissions() {
+        listOf("android.permission.CAMERA", "android.permission.RECORD_AUDIO")
+                .forEach { shell("pm grant $packageName $it") }
+    }
+
+    fun forceStop() {
+        shell("am force-stop $packageName")
+    }
+
+    fun pressHome() {
+        device.pressHome()
+        device.waitForIdle()
+    }
+
+    /*
+     * Launches the app like the launcher does and returns the total launch time reported by the
+     * activity manager, which covers the splash trampoline up to the first lobby frame.
+     */
+    fun startAndMeasure(): Long {
+        val output = shell("am start -W -a android.intent.action.MAIN " +
+                "-c android.intent.category.LAUNCHER -n $packageName/$SPLASH_ACTIVITY")
+        checkNotNull(device.wait(Until.hasObject(By.res(packageName, "connect")), UI_TIMEOUT_MS)) {
+            "The lobby was not shown, make sure the app is logged in"
+        }
+        return TOTAL_TIME_REGEX.find(output)?.groupValues?.get(1)?.toLong()
+                ?: error("Unable to read the launch time from: $output")
+    }
+
+    fun joinAndLeaveRoom(renderDurationMs: Long) {
+        device.findObject(By.res(packageName, "room_name")).text = "startup-${UUID.randomUUID()}"
+        device.findObject(By.res(packageName, "connect")).click()
+        checkNotNull(device.wait(Until.findObject(By.res(packageName, "disconnect")),
+                CONNECT_TIMEOUT_MS)) { "Failed to connect to the room" }
+        // Let the local video render for a while before leaving
+        Thread.sleep(renderDurationMs)
+        device.findObject(By.res(packageName, "disconnect")).click()
+        device.wait(Until.hasObject(By.res(packageName, "connect")), UI_TIMEOUT_MS)
+    }
+
+    fun supportsProfiles() = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+}
+
+enum class Compilation { NONE, BASELINE_PROFILE }
+
+enum class StartMode { COLD, WARM }
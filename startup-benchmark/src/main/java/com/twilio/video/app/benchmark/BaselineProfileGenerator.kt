@@ -0,0 +1,61 @@
+package com.twilio.video.app.benchmark
+
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry
+import java.io.File
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+private const val TAG = "BaselineProfile"
+private const val JOURNEYS = 3
+private const val RENDER_DURATION_MS = 5_000L
+// Class rules start with L, method rules with their hot, startup and post-startup flags
+private val APP_RULE_REGEX = Regex("""^[HSP]*Lcom/twilio/video/app/""")
+
+/*
+ * Records the ART profile for splash -> lobby -> connect -> render and writes the app's rules to
+ * the instrumentation's external files directory as baseline-prof.txt. Reading the dumped profile
+ * requires a rooted or userdebug device (adb root). Copy the result over
+ * app/src/main/baseline-prof.txt:
+ *
+ * ./gradlew startup-benchmark:connectedInternalBenchmarkAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.twilio.video.app.benchmark.BaselineProfileGenerator
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    private val app = AppUnderTest()
+
+    @Test
+    fun generate() {
+        assumeTrue(app.supportsProfiles())
+        app.forceStop()
+        // Start from an empty profile so that only the journey is recorded
+        app.shell("cmd package compile --reset ${app.packageName}")
+        app.grantPermissions()
+
+        repeat(JOURNEYS) {
+            app.forceStop()
+            app.startAndMeasure()
+            app.joinAndLeaveRoom(RENDER_DURATION_MS)
+        }
+
+        // Ask the runtime to save the profile it has collected, then dump it as text
+        app.shell("killall -s SIGUSR1 ${app.packageName}")
+        Thread.sleep(1_000)
+        app.shell("pm dump-profiles ${app.packageName}")
+        val dump = app.shell("cat /data/misc/profman/${app.packageName}-primary.prof.txt")
+        val rules = dump.lineSequence().filter { APP_RULE_REGEX.containsMatchIn(it) }.toList()
+        check(rules.isNotEmpty()) { "No profile rules found, is the device rooted?" }
+
+        val outputDirectory = InstrumentationRegistry.getInstrumentation()
+                .context.getExternalFilesDir(null)
+        val output = File(outputDirectory, "baseline-prof.txt")
+        output.writeText(rules.joinToString(separator = "\n", postfix = "\n"))
+        Log.i(TAG, "Wrote ${rules.size} rules, adb pull ${output.absolutePath}")
+    }
+}
@@ -0,0 +1,68 @@
+package com.twilio.video.app.benchmark
+
+import android.os.Bundle
+import android.util.Log
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+private const val TAG = "StartupBenchmark"
+private const val ITERATIONS = 10
+
+/*
+ * Measures cold and warm startup of the benchmark build, once with the app only verified and once
+ * compiled from the committed baseline profile alone. The profile runs need a root shell and a
+ * profile generated by BaselineProfileGenerator.
+ *
+ * ./gradlew startup-benchmark:connectedInternalBenchmarkAndroidTest
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class StartupBenchmark(
+    private val startMode: StartMode,
+    private val compilation: Compilation
+) {
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "{0}_{1}")
+        fun parameters() = StartMode.values().flatMap { startMode ->
+            Compilation.values().map { compilation -> arrayOf(startMode, compilation) }
+        }
+    }
+
+    private val app = AppUnderTest()
+
+    @Test
+    fun startup() {
+        assumeTrue(app.supportsProfiles())
+        if (compilation == Compilation.BASELINE_PROFILE) {
+            assumeTrue("Installing a profile needs adb root", app.isRootShell())
+            assumeTrue("app/src/main/baseline-prof.txt has no rules", app.baselineProfile() != null)
+        }
+        app.forceStop()
+        app.compile(compilation)
+        if (startMode == StartMode.WARM) app.startAndMeasure()
+
+        val timingsMs = List(ITERATIONS) {
+            when (startMode) {
+                StartMode.COLD -> app.forceStop()
+                StartMode.WARM -> app.pressHome()
+            }
+            app.startAndMeasure()
+        }.sorted()
+
+        val name = "${startMode}_$compilation".toLowerCase()
+        val median = timingsMs[timingsMs.size / 2]
+        Log.i(TAG, "$name startup: median $median ms, min ${timingsMs.first()} ms, " +
+                "max ${timingsMs.last()} ms")
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, Bundle().apply {
+            putLong("${name}_median_ms", median)
+            putLong("${name}_min_ms", timingsMs.first())
+            putLong("${name}_max_ms", timingsMs.last())
+        })
+    }
+}